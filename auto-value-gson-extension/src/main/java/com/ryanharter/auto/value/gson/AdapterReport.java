@@ -0,0 +1,107 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.javapoet.ClassName;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+/**
+ * Represents the JSON report of a generated TypeAdapter, written when the
+ * {@code autovaluegson.report} processor option is set. It covers what makes the adapter slower to
+ * run:
+ * <ul>
+ * <li>The names it matches in the switch of {@code read()}, and those it compares one by one in the
+ * {@code default} branch, as they depend on the field naming policy.</li>
+ * <li>The lines of code of {@code read()} and {@code write()}, as the size of the bytecode isn't
+ * known until the generated source is compiled.</li>
+ * <li>The properties whose values are boxed by Gson's adapters, rather than read and written by
+ * {@code PrimitiveAdapters} or {@code ScalarAdapters}, the adapters looked up lazily from Gson,
+ * and the properties whose adapters need a {@code TypeToken} built from the type arguments of
+ * each adapter.</li>
+ * </ul>
+ * <p>
+ * Like {@link ProguardConfig}, there is one file per target class with a deterministic name, to keep
+ * this processor {@code ISOLATING}.
+ */
+@AutoValue
+abstract class AdapterReport {
+  abstract ClassName targetClass();
+  abstract ClassName adapterName();
+  abstract int propertyCount();
+  abstract int switchNames();
+  abstract int alternateNames();
+  abstract int comparedNames();
+  abstract int readLines();
+  abstract int writeLines();
+  abstract List<String> boxedProperties();
+  abstract List<String> lazyAdapters();
+  abstract List<String> runtimeTypeTokens();
+  abstract String outputFile();
+
+  static Builder builder(ClassName targetClass, ClassName adapterName) {
+    return new AutoValue_AdapterReport.Builder()
+        .targetClass(targetClass)
+        .adapterName(adapterName)
+        .outputFile("META-INF/auto-value-gson/avg-" + targetClass.canonicalName() + ".json");
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder targetClass(ClassName targetClass);
+    abstract Builder adapterName(ClassName adapterName);
+    abstract Builder propertyCount(int propertyCount);
+    abstract Builder switchNames(int switchNames);
+    abstract Builder alternateNames(int alternateNames);
+    abstract Builder comparedNames(int comparedNames);
+    abstract Builder readLines(int readLines);
+    abstract Builder writeLines(int writeLines);
+    abstract Builder boxedProperties(List<String> boxedProperties);
+    abstract Builder lazyAdapters(List<String> lazyAdapters);
+    abstract Builder runtimeTypeTokens(List<String> runtimeTypeTokens);
+    abstract Builder outputFile(String outputFile);
+    abstract AdapterReport build();
+  }
+
+  /** Writes this to {@code filer}. */
+  final void writeTo(Filer filer, Element... originatingElements) throws IOException {
+    try (Writer writer = filer.createResource(CLASS_OUTPUT, "", outputFile(), originatingElements)
+        .openWriter()) {
+      writeTo(writer);
+    }
+  }
+
+  private void writeTo(Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.setIndent("  ");
+    writer.beginObject();
+    writer.name("type").value(targetClass().reflectionName());
+    writer.name("adapter").value(adapterName().reflectionName());
+    writer.name("propertyCount").value(propertyCount());
+    writer.name("switchNames").value(switchNames());
+    writer.name("alternateNames").value(alternateNames());
+    writer.name("comparedNames").value(comparedNames());
+    writer.name("readLines").value(readLines());
+    writer.name("writeLines").value(writeLines());
+    writeArray(writer, "boxedProperties", boxedProperties());
+    writeArray(writer, "lazyAdapters", lazyAdapters());
+    writeArray(writer, "runtimeTypeTokens", runtimeTypeTokens());
+    writer.endObject();
+    writer.flush();
+    out.append('\n');
+  }
+
+  private static void writeArray(JsonWriter writer, String name, List<String> values)
+      throws IOException {
+    writer.name(name).beginArray();
+    for (String value : values) {
+      writer.value(value);
+    }
+    writer.endArray();
+  }
+}
@@ -0,0 +1,468 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.auto.common.GeneratedAnnotations;
+import com.google.auto.service.AutoService;
+import com.google.auto.value.AutoOneOf;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.internal.Util;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import net.ltgt.gradle.incap.IncrementalAnnotationProcessor;
+
+import static com.google.auto.common.MoreElements.getPackage;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.GENERATED_COMMENTS;
+import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.VOLATILE;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static net.ltgt.gradle.incap.IncrementalAnnotationProcessorType.ISOLATING;
+
+/**
+ * Generates the TypeAdapters of {@link AutoOneOf} types annotated with
+ * {@link GenerateTypeAdapter}, which {@link GenerateTypeAdapter#FACTORY} finds like those of
+ * {@code @AutoValue} types. AutoValue extensions don't apply to {@code @AutoOneOf}, so this is a
+ * processor of its own.
+ *
+ * <p>The adapters switch on the kind to write the value with its delegate adapter, and on the
+ * kind's name to read it, styled by {@link GsonOneOf}.
+ */
+@IncrementalAnnotationProcessor(ISOLATING)
+@AutoService(Processor.class)
+public class AutoOneOfGsonProcessor extends AbstractProcessor {
+
+  private Types typeUtils;
+  private Elements elementUtils;
+
+  @Override public Set<String> getSupportedAnnotationTypes() {
+    return ImmutableSet.of(GenerateTypeAdapter.class.getName());
+  }
+
+  @Override public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    typeUtils = processingEnv.getTypeUtils();
+    elementUtils = processingEnv.getElementUtils();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapter.class)) {
+      if (element.getAnnotation(AutoOneOf.class) == null) {
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      TypeSpec typeAdapter = createTypeAdapter(type);
+      if (typeAdapter == null) {
+        continue;
+      }
+      String packageName = getPackage(type).getQualifiedName().toString();
+      try {
+        JavaFile.builder(packageName, typeAdapter)
+            .skipJavaLangImports(true)
+            .build()
+            .writeTo(processingEnv.getFiler());
+        ProguardConfig.create(
+            ClassName.get(type),
+            ClassName.get(packageName, typeAdapter.name),
+            ImmutableList.of(Gson.class.getName())
+        ).writeTo(processingEnv.getFiler(), type);
+      } catch (IOException e) {
+        error(type, "Failed to write TypeAdapter for @AutoOneOf type \"%s\" with reason \"%s\"",
+            type, e.getMessage());
+      }
+    }
+
+    // return false so other processors can consume the @GenerateTypeAdapter annotation
+    return false;
+  }
+
+  /** A property of an {@code @AutoOneOf} type, and the kind it is set for. */
+  private static final class Kind {
+    final String name;
+    final ExecutableElement method;
+    final String constant;
+    final String serializedName;
+    final List<String> alternates;
+    /** The boxed type of the value, or {@code null} for a {@code void} property. */
+    final TypeName type;
+    final FieldSpec adapter;
+
+    Kind(String name, ExecutableElement method, String constant, String serializedName,
+        List<String> alternates, TypeName type, FieldSpec adapter) {
+      this.name = name;
+      this.method = method;
+      this.constant = constant;
+      this.serializedName = serializedName;
+      this.alternates = alternates;
+      this.type = type;
+      this.adapter = adapter;
+    }
+  }
+
+  private TypeSpec createTypeAdapter(TypeElement type) {
+    if (!type.getTypeParameters().isEmpty()) {
+      error(type, "@GenerateTypeAdapter doesn't support generic @AutoOneOf types.");
+      return null;
+    }
+    TypeMirror kindType;
+    try {
+      type.getAnnotation(AutoOneOf.class).value();
+      throw new AssertionError("@AutoOneOf.value() must be a mirrored type");
+    } catch (MirroredTypeException e) {
+      kindType = e.getTypeMirror();
+    }
+
+    ExecutableElement kindGetter = null;
+    List<ExecutableElement> getters = new ArrayList<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(elementUtils.getAllMembers(type))) {
+      if (!method.getModifiers().contains(ABSTRACT) || !method.getParameters().isEmpty()) {
+        continue;
+      }
+      if (typeUtils.isSameType(method.getReturnType(), kindType)) {
+        kindGetter = method;
+      } else {
+        getters.add(method);
+      }
+    }
+    if (kindGetter == null) {
+      // AutoOneOf reports this
+      return null;
+    }
+
+    Map<String, String> constants = new LinkedHashMap<>();
+    for (Element e : typeUtils.asElement(kindType).getEnclosedElements()) {
+      if (e.getKind() == ElementKind.ENUM_CONSTANT) {
+        String constant = e.getSimpleName().toString();
+        constants.put(normalize(constant), constant);
+      }
+    }
+
+    boolean stripPrefixes = getters.stream().allMatch(AutoOneOfGsonProcessor::hasPrefix);
+    NameAllocator fieldNames = new NameAllocator();
+    fieldNames.newName("gson");
+    Set<String> jsonNames = new HashSet<>();
+    List<Kind> kinds = new ArrayList<>();
+    for (ExecutableElement getter : getters) {
+      String name = getter.getSimpleName().toString();
+      if (stripPrefixes) {
+        name = stripPrefix(name);
+      }
+      String constant = constants.get(normalize(name));
+      if (constant == null) {
+        // AutoOneOf reports this
+        return null;
+      }
+      SerializedName annotation = getter.getAnnotation(SerializedName.class);
+      String serializedName = annotation != null ? annotation.value() : name;
+      List<String> alternates = annotation != null
+          ? ImmutableList.copyOf(annotation.alternate())
+          : ImmutableList.of();
+      for (String jsonName : ImmutableList.<String>builder()
+          .add(serializedName).addAll(alternates).build()) {
+        if (!jsonNames.add(jsonName)) {
+          error(getter, "Duplicate kind name \"%s\" in %s.", jsonName, type);
+          return null;
+        }
+      }
+      TypeName valueType = null;
+      FieldSpec adapter = null;
+      if (getter.getReturnType().getKind() != TypeKind.VOID) {
+        valueType = TypeName.get(getter.getReturnType()).box();
+        adapter = FieldSpec.builder(
+            ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), valueType),
+            fieldNames.newName(name + "_adapter"), PRIVATE, VOLATILE)
+            .build();
+      }
+      kinds.add(new Kind(name, getter, constant, serializedName, alternates, valueType, adapter));
+    }
+
+    GsonOneOf oneOf = type.getAnnotation(GsonOneOf.class);
+    GsonOneOf.Style style = oneOf != null ? oneOf.style() : GsonOneOf.Style.WRAPPER_OBJECT;
+    if (style == GsonOneOf.Style.DISCRIMINATOR && oneOf.property().equals(oneOf.valueProperty())) {
+      error(type, "@GsonOneOf property and valueProperty must differ.");
+      return null;
+    }
+
+    ClassName typeName = ClassName.get(type);
+    String simpleNames = Joiner.on("_").join(typeName.simpleNames());
+    ClassName autoOneOfName = ClassName.get(typeName.packageName(), "AutoOneOf_" + simpleNames);
+    ClassName adapterName = ClassName.get(typeName.packageName(), simpleNames + "_GsonTypeAdapter");
+    String humanName = Joiner.on(".").join(typeName.simpleNames());
+
+    FieldSpec gson = FieldSpec.builder(Gson.class, "gson", PRIVATE, FINAL).build();
+    TypeSpec.Builder adapter = TypeSpec.classBuilder(adapterName)
+        .addOriginatingElement(type)
+        .addModifiers(FINAL)
+        .superclass(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), typeName));
+    GeneratedAnnotations.generatedAnnotation(elementUtils, processingEnv.getSourceVersion())
+        .map(AutoOneOfGsonProcessor::createGeneratedAnnotationSpec)
+        .ifPresent(adapter::addAnnotation);
+    for (Kind kind : kinds) {
+      if (kind.adapter != null) {
+        adapter.addField(kind.adapter);
+      }
+    }
+    return adapter.addField(gson)
+        .addMethod(MethodSpec.constructorBuilder()
+            .addParameter(Gson.class, "gson")
+            .addStatement("this.$N = gson", gson)
+            .build())
+        .addMethod(createWriteMethod(typeName, kindGetter, kinds, oneOf, style))
+        .addMethod(createReadMethod(typeName, humanName, oneOf, style))
+        .addMethod(createReadValueMethod(typeName, autoOneOfName, humanName, kinds))
+        .addMethod(MethodSpec.methodBuilder("toString")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(String.class)
+            .addStatement("return new $T().append($S).append($S).append($S).toString()",
+                StringBuilder.class,
+                "TypeAdapter(",
+                humanName,
+                ")")
+            .build())
+        .build();
+  }
+
+  private static MethodSpec createWriteMethod(ClassName typeName, ExecutableElement kindGetter,
+      List<Kind> kinds, GsonOneOf oneOf, GsonOneOf.Style style) {
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec object = ParameterSpec.builder(typeName, "object").build();
+    MethodSpec.Builder writeMethod = MethodSpec.methodBuilder("write")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addParameter(object)
+        .addException(IOException.class);
+
+    writeMethod.beginControlFlow("if ($N == null)", object);
+    writeMethod.addStatement("$N.nullValue()", jsonWriter);
+    writeMethod.addStatement("return");
+    writeMethod.endControlFlow();
+
+    writeMethod.addStatement("$N.beginObject()", jsonWriter);
+    writeMethod.beginControlFlow("switch ($N.$N())", object, kindGetter.getSimpleName().toString());
+    for (Kind kind : kinds) {
+      writeMethod.beginControlFlow("case $L:", kind.constant);
+      if (style == GsonOneOf.Style.DISCRIMINATOR) {
+        writeMethod.addStatement("$N.name($S).value($S)", jsonWriter, oneOf.property(),
+            kind.serializedName);
+        if (kind.adapter != null) {
+          writeMethod.addStatement("$N.name($S)", jsonWriter, oneOf.valueProperty());
+        }
+      } else {
+        writeMethod.addStatement("$N.name($S)", jsonWriter, kind.serializedName);
+      }
+      if (kind.adapter != null) {
+        writeMethod.addCode(lazyAdapter(kind));
+        writeMethod.addStatement("$N.write($N, $N.$N())", kind.adapter, jsonWriter, object,
+            kind.method.getSimpleName().toString());
+      } else if (style == GsonOneOf.Style.WRAPPER_OBJECT) {
+        writeMethod.addStatement("$N.beginObject()", jsonWriter);
+        writeMethod.addStatement("$N.endObject()", jsonWriter);
+      }
+      writeMethod.addStatement("break");
+      writeMethod.endControlFlow();
+    }
+    writeMethod.endControlFlow();
+    writeMethod.addStatement("$N.endObject()", jsonWriter);
+    return writeMethod.build();
+  }
+
+  private static MethodSpec createReadMethod(ClassName typeName, String humanName,
+      GsonOneOf oneOf, GsonOneOf.Style style) {
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    MethodSpec.Builder readMethod = MethodSpec.methodBuilder("read")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .returns(typeName)
+        .addParameter(jsonReader)
+        .addException(IOException.class);
+
+    readMethod.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, JsonToken.class);
+    readMethod.addStatement("$N.nextNull()", jsonReader);
+    readMethod.addStatement("return null");
+    readMethod.endControlFlow();
+
+    readMethod.addStatement("$N.beginObject()", jsonReader);
+    if (style == GsonOneOf.Style.WRAPPER_OBJECT) {
+      readMethod.beginControlFlow("if (!$N.hasNext())", jsonReader);
+      readMethod.addStatement("throw new $T($S + $N.getPath())", JsonParseException.class,
+          "Missing kind of " + humanName + " at ", jsonReader);
+      readMethod.endControlFlow();
+      readMethod.addStatement("$T value = readValue($N.nextName(), $N)", typeName, jsonReader,
+          jsonReader);
+      readMethod.addStatement("$N.endObject()", jsonReader);
+      readMethod.addStatement("return value");
+      return readMethod.build();
+    }
+
+    // The value is read directly when the kind comes first, and buffered otherwise.
+    readMethod.addStatement("$T kind = null", String.class);
+    readMethod.addStatement("$T buffered = null", String.class);
+    readMethod.addStatement("$T value = null", typeName);
+    readMethod.beginControlFlow("while ($N.hasNext())", jsonReader);
+    readMethod.addStatement("$T _name = $N.nextName()", String.class, jsonReader);
+    readMethod.beginControlFlow("if ($S.equals(_name))", oneOf.property());
+    readMethod.addStatement("kind = $N.nextString()", jsonReader);
+    readMethod.nextControlFlow("else if ($S.equals(_name) && kind == null)",
+        oneOf.valueProperty());
+    readMethod.addStatement("buffered = $T.bufferValue($N)", Util.class, jsonReader);
+    readMethod.nextControlFlow("else if ($S.equals(_name))", oneOf.valueProperty());
+    readMethod.addStatement("value = readValue(kind, $N)", jsonReader);
+    readMethod.nextControlFlow("else");
+    readMethod.addStatement("$N.skipValue()", jsonReader);
+    readMethod.endControlFlow();
+    readMethod.endControlFlow();
+    readMethod.addStatement("$N.endObject()", jsonReader);
+    readMethod.beginControlFlow("if (kind == null)");
+    readMethod.addStatement("throw new $T($S + $N.getPath())", JsonParseException.class,
+        "Missing " + oneOf.property() + " of " + humanName + " at ", jsonReader);
+    readMethod.endControlFlow();
+    readMethod.beginControlFlow("if (value == null)");
+    readMethod.addComment("void kinds have no value");
+    readMethod.addStatement(
+        "value = readValue(kind, $T.bufferedReader(buffered != null ? buffered : $S, $N))",
+        Util.class, "null", jsonReader);
+    readMethod.endControlFlow();
+    readMethod.addStatement("return value");
+    return readMethod.build();
+  }
+
+  private static MethodSpec createReadValueMethod(ClassName typeName, ClassName autoOneOfName,
+      String humanName, List<Kind> kinds) {
+    ParameterSpec kindName = ParameterSpec.builder(String.class, "kind").build();
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    MethodSpec.Builder readValueMethod = MethodSpec.methodBuilder("readValue")
+        .addModifiers(PRIVATE)
+        .returns(typeName)
+        .addParameter(kindName)
+        .addParameter(jsonReader)
+        .addException(IOException.class);
+
+    readValueMethod.beginControlFlow("switch ($N)", kindName);
+    for (Kind kind : kinds) {
+      for (String alternate : kind.alternates) {
+        readValueMethod.addCode("case $S:\n", alternate);
+      }
+      readValueMethod.beginControlFlow("case $S:", kind.serializedName);
+      if (kind.adapter != null) {
+        readValueMethod.addCode(lazyAdapter(kind));
+        // AutoOneOf rejects a null value
+        readValueMethod.addStatement("$T value = $N.read($N)", kind.type, kind.adapter, jsonReader);
+        readValueMethod.beginControlFlow("if (value == null)");
+        readValueMethod.addStatement("throw new $T($S + $N.getPath())", JsonParseException.class,
+            "Missing value of kind \"" + kind.serializedName + "\" of " + humanName + " at ",
+            jsonReader);
+        readValueMethod.endControlFlow();
+        readValueMethod.addStatement("return $T.$N(value)", autoOneOfName, kind.name);
+      } else {
+        readValueMethod.addStatement("$N.skipValue()", jsonReader);
+        readValueMethod.addStatement("return $T.$N()", autoOneOfName, kind.name);
+      }
+      readValueMethod.endControlFlow();
+    }
+    readValueMethod.beginControlFlow("default:");
+    readValueMethod.addStatement("throw new $T($S + $N + $S + $N.getPath())",
+        JsonParseException.class, "Unknown kind \"", kindName, "\" of " + humanName + " at ",
+        jsonReader);
+    readValueMethod.endControlFlow();
+    readValueMethod.endControlFlow();
+    return readValueMethod.build();
+  }
+
+  private static CodeBlock lazyAdapter(Kind kind) {
+    CodeBlock.Builder block = CodeBlock.builder();
+    block.addStatement("$T $N = this.$N", kind.adapter.type, kind.adapter, kind.adapter);
+    block.beginControlFlow("if ($N == null)", kind.adapter);
+    if (kind.type instanceof ClassName) {
+      block.addStatement("this.$N = $N = gson.getAdapter($T.class)", kind.adapter, kind.adapter,
+          kind.type);
+    } else {
+      block.addStatement("this.$N = $N = gson.getAdapter(new $T<$T>() {})", kind.adapter,
+          kind.adapter, TypeToken.class, kind.type);
+    }
+    block.endControlFlow();
+    return block.build();
+  }
+
+  /** Normalizes names as AutoOneOf does to match properties with kinds. */
+  private static String normalize(String name) {
+    return name.replace("_", "").toLowerCase(Locale.ROOT);
+  }
+
+  private static boolean hasPrefix(ExecutableElement method) {
+    String name = method.getSimpleName().toString();
+    if (name.startsWith("is") && name.length() > 2
+        && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+      return true;
+    }
+    return name.startsWith("get") && name.length() > 3;
+  }
+
+  private static String stripPrefix(String name) {
+    String stripped = name.startsWith("get") ? name.substring(3) : name.substring(2);
+    return Character.toLowerCase(stripped.charAt(0)) + stripped.substring(1);
+  }
+
+  private static AnnotationSpec createGeneratedAnnotationSpec(
+      TypeElement generatedAnnotationTypeElement) {
+    return AnnotationSpec.builder(ClassName.get(generatedAnnotationTypeElement))
+        .addMember("value", "$S", AutoOneOfGsonProcessor.class.getName())
+        .addMember("comments", "$S", GENERATED_COMMENTS)
+        .build();
+  }
+
+  private void error(Element element, String message, Object... args) {
+    if (args.length > 0) {
+      message = String.format(message, args);
+    }
+    processingEnv.getMessager().printMessage(ERROR, message, element);
+  }
+}
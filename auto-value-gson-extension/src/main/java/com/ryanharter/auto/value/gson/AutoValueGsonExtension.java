@@ -16,11 +16,20 @@ import com.google.common.collect.Sets;
 import com.google.common.primitives.Primitives;
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.annotations.Since;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.internal.ColumnarListAdapter;
+import com.ryanharter.auto.value.gson.internal.FieldNames;
+import com.ryanharter.auto.value.gson.internal.PrimitiveAdapters;
+import com.ryanharter.auto.value.gson.internal.ScalarAdapters;
+import com.ryanharter.auto.value.gson.internal.SerializedCache;
+import com.ryanharter.auto.value.gson.internal.Util;
 import com.ryanharter.auto.value.gson.internal.WildcardUtil;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ArrayTypeName;
@@ -41,12 +50,18 @@ import io.sweers.autotransient.AutoTransient;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.annotation.processing.Filer;
@@ -54,10 +69,15 @@ import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.MirroredTypesException;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
@@ -65,6 +85,11 @@ import javax.tools.Diagnostic;
 
 import static com.google.common.base.CaseFormat.LOWER_CAMEL;
 import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.ENUM_ADAPTERS;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.JFR;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.METRICS;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.NAME_STATS;
+import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.REPORT;
 import static com.ryanharter.auto.value.gson.AutoValueGsonExtension.USE_FIELD_NAME_POLICY;
 import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
@@ -72,14 +97,178 @@ import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 import static javax.lang.model.element.Modifier.VOLATILE;
+import static javax.lang.model.util.ElementFilter.constructorsIn;
+import static javax.lang.model.util.ElementFilter.fieldsIn;
 import static javax.lang.model.util.ElementFilter.methodsIn;
 
-@SupportedOptions(USE_FIELD_NAME_POLICY)
+@SupportedOptions({USE_FIELD_NAME_POLICY, ENUM_ADAPTERS, METRICS, JFR, NAME_STATS, REPORT})
 @AutoService(AutoValueExtension.class)
 public class AutoValueGsonExtension extends AutoValueExtension {
 
   public static final String GENERATED_COMMENTS = "https://github.com/rharter/auto-value-gson";
   static final String USE_FIELD_NAME_POLICY = "autovaluegson.useFieldNamePolicy";
+  static final String ENUM_ADAPTERS = "autovaluegson.enumAdapters";
+  static final String METRICS = "autovaluegson.metrics";
+  static final String JFR = "autovaluegson.jfr";
+  static final String NAME_STATS = "autovaluegson.nameStats";
+  static final String REPORT = "autovaluegson.report";
+
+  /** Property types with a specialized, non-boxing adapter in {@link PrimitiveAdapters}. */
+  private static final ImmutableMap<TypeName, String> PRIMITIVE_ADAPTERS =
+      ImmutableMap.<TypeName, String>builder()
+          .put(ArrayTypeName.of(TypeName.INT), "intArrayAdapter")
+          .put(ArrayTypeName.of(TypeName.LONG), "longArrayAdapter")
+          .put(ArrayTypeName.of(TypeName.DOUBLE), "doubleArrayAdapter")
+          .put(ParameterizedTypeName.get(ClassName.get(List.class), TypeName.INT.box()),
+              "intListAdapter")
+          .put(ParameterizedTypeName.get(ClassName.get(List.class), TypeName.LONG.box()),
+              "longListAdapter")
+          .put(ParameterizedTypeName.get(ClassName.get(List.class), TypeName.DOUBLE.box()),
+              "doubleListAdapter")
+          .build();
+
+  /** Property types with a Gson-independent adapter in {@link ScalarAdapters}. */
+  private static final ImmutableMap<TypeName, String> SCALAR_ADAPTERS =
+      ImmutableMap.<TypeName, String>builder()
+          .put(ClassName.get(String.class), "STRING")
+          .put(TypeName.BOOLEAN.box(), "BOOLEAN")
+          .put(TypeName.INT.box(), "INTEGER")
+          .put(TypeName.LONG.box(), "LONG")
+          .put(TypeName.SHORT.box(), "SHORT")
+          .put(TypeName.BYTE.box(), "BYTE")
+          .put(TypeName.DOUBLE.box(), "DOUBLE")
+          .put(TypeName.FLOAT.box(), "FLOAT")
+          .put(TypeName.CHAR.box(), "CHARACTER")
+          .build();
+
+  private static final ImmutableSet<String> OPTIONAL_TYPES = ImmutableSet.of(
+      "java.util.Optional",
+      "java.util.OptionalInt",
+      "java.util.OptionalLong",
+      "java.util.OptionalDouble",
+      "com.google.common.base.Optional");
+
+  /** The well-known collection types that are ordered by a {@code comparator()}. */
+  private static final ImmutableSet<String> SORTED_TYPES = ImmutableSet.of(
+      "java.util.SortedSet",
+      "java.util.NavigableSet",
+      "java.util.SortedMap",
+      "java.util.NavigableMap",
+      "com.google.common.collect.ImmutableSortedSet",
+      "com.google.common.collect.ImmutableSortedMap");
+
+  /** The read methods that are generated from the same property reads. */
+  enum ReadMode {
+    /** {@code read}, for a JSON object. */
+    OBJECT("read"),
+    /** {@code readColumnarRow}, for a row of a {@link GsonColumnar} list. */
+    ROW("readColumnarRow"),
+    /** {@code readDelta}, for changes to a base value of a {@link GsonDelta} type. */
+    DELTA("readDelta"),
+    /** {@code readProperties}, for the rest of an object opened by a {@link GsonSubtypes} type. */
+    PROPERTIES("readProperties");
+
+    final String methodName;
+
+    ReadMode(String methodName) {
+      this.methodName = methodName;
+    }
+  }
+
+  /** A {@link TypeAdapter} or {@link TypeAdapterFactory} set with {@link GsonPropertyAdapter}. */
+  static final class CustomAdapter {
+
+    @Nullable
+    static CustomAdapter create(GsonPropertyAdapter annotation, String humanName, TypeName type,
+        TypeElement autoValueClass) {
+      TypeMirror adapterMirror;
+      try {
+        annotation.value();
+        throw new AssertionError("GsonPropertyAdapter classes are only available as mirrors");
+      } catch (MirroredTypeException e) {
+        adapterMirror = e.getTypeMirror();
+      }
+      if (adapterMirror.getKind() != TypeKind.DECLARED) {
+        return null;
+      }
+      TypeElement adapterType = MoreTypes.asTypeElement(adapterMirror);
+      boolean factory = isSubtype(adapterType, TypeAdapterFactory.class.getName());
+      if (!factory && !isSubtype(adapterType, TypeAdapter.class.getName())
+          || !isInstantiable(adapterType)) {
+        return null;
+      }
+
+      ClassName className = ClassName.get(adapterType);
+      TypeName fieldType = ParameterizedTypeName.get(ClassName.get(TypeAdapter.class),
+          type.isPrimitive() ? type.box() : type);
+      String name = humanName + "_typeAdapter";
+      FieldSpec field;
+      if (factory) {
+        // created on first use, as the factory needs Gson
+        field = FieldSpec.builder(fieldType, name, PRIVATE, VOLATILE).build();
+      } else {
+        FieldSpec.Builder builder = isStateless(adapterType)
+            && autoValueClass.getTypeParameters().isEmpty()
+            ? FieldSpec.builder(fieldType, name, PRIVATE, STATIC, FINAL)
+            : FieldSpec.builder(fieldType, name, PRIVATE, FINAL);
+        field = builder.initializer(annotation.nullSafe() ? "new $T().nullSafe()" : "new $T()",
+            className).build();
+      }
+      return new CustomAdapter(className, factory, annotation.nullSafe(), field);
+    }
+
+    private static boolean isSubtype(TypeElement type, String qualifiedName) {
+      if (type.getQualifiedName().contentEquals(qualifiedName)) {
+        return true;
+      }
+      List<TypeMirror> supertypes = new ArrayList<>(type.getInterfaces());
+      supertypes.add(type.getSuperclass());
+      for (TypeMirror supertype : supertypes) {
+        if (supertype.getKind() == TypeKind.DECLARED
+            && isSubtype(MoreTypes.asTypeElement(supertype), qualifiedName)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean isInstantiable(TypeElement type) {
+      if (type.getModifiers().contains(ABSTRACT)
+          || type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(STATIC)) {
+        return false;
+      }
+      return constructorsIn(type.getEnclosedElements()).stream()
+          .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(PRIVATE));
+    }
+
+    /** Whether {@code adapterType} and its superclasses below TypeAdapter have no instance fields. */
+    private static boolean isStateless(TypeElement adapterType) {
+      for (TypeElement type = adapterType;
+          !type.getQualifiedName().contentEquals(TypeAdapter.class.getName());
+          type = MoreTypes.asTypeElement(type.getSuperclass())) {
+        for (VariableElement field : fieldsIn(type.getEnclosedElements())) {
+          if (!field.getModifiers().contains(STATIC)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    final ClassName className;
+    final boolean factory;
+    final boolean nullSafe;
+    /** Holds the TypeAdapter, which is only created lazily for factories. */
+    final FieldSpec field;
+
+    private CustomAdapter(ClassName className, boolean factory, boolean nullSafe,
+        FieldSpec field) {
+      this.className = className;
+      this.factory = factory;
+      this.nullSafe = nullSafe;
+      this.field = field;
+    }
+  }
 
   static class Property {
 
@@ -88,12 +277,25 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         Messager messager,
         String humanName,
         ExecutableElement element,
-        TypeMirror actualType
+        TypeMirror actualType,
+        TypeElement autoValueClass
     ) {
-      Property property = new Property(humanName, element, actualType);
+      Property property = new Property(humanName, element, actualType, autoValueClass);
       if (property.isTransient() && !property.nullable()) {
         messager.printMessage(Diagnostic.Kind.ERROR, "Required property cannot be transient!", element);
         return null;
+      } else if (element.getAnnotation(GsonOmitDefaults.class) != null
+          && !property.hasRestorableDefault()) {
+        messager.printMessage(Diagnostic.Kind.ERROR,
+            "@GsonOmitDefaults property has no default value that can be restored on read.",
+            element);
+        return null;
+      } else if (element.getAnnotation(GsonPropertyAdapter.class) != null
+          && property.customAdapter == null) {
+        messager.printMessage(Diagnostic.Kind.ERROR,
+            "@GsonPropertyAdapter requires a TypeAdapter or TypeAdapterFactory class with a no-arg "
+                + "constructor.", element);
+        return null;
       } else {
         return property;
       }
@@ -108,8 +310,31 @@ public class AutoValueGsonExtension extends AutoValueExtension {
     final ImmutableSet<AnnotationMirror> methodAnnotations;
     final boolean nullable;
     final boolean isTransient;
-
-    private Property(String humanName, ExecutableElement element, TypeMirror actualType) {
+    @Nullable final TypeElement enumType;
+    final boolean omitNulls;
+    final boolean omitDefaults;
+    /** The empty value of a well-known reference type, or else {@code null}. */
+    @Nullable final CodeBlock emptyValue;
+    final boolean optional;
+    /** Whether the property's type is one of {@link #SORTED_TYPES}. */
+    final boolean sorted;
+    /** Whether the property's type is annotated with {@link GsonDelta}. */
+    final boolean deltaType;
+    /** The property's type if it is annotated with {@link GsonStandalone}. */
+    @Nullable final TypeElement standaloneType;
+    /** The classes of the {@link GsonView} annotation, empty if the property is in every view. */
+    final ImmutableList<TypeMirror> views;
+    /** The values of {@link GsonSince} and {@link GsonUntil}, if present. */
+    @Nullable final Double since;
+    @Nullable final Double until;
+    /** The adapter set with {@link GsonPropertyAdapter}, or {@code null} to use Gson's. */
+    @Nullable final CustomAdapter customAdapter;
+    /** The {@link SerializedName} annotation, looked up once as it's read for every name. */
+    @Nullable private final SerializedName serializedName;
+    private final String[] serializedNameAlternate;
+
+    private Property(String humanName, ExecutableElement element, TypeMirror actualType,
+        TypeElement autoValueClass) {
       this.methodName = element.getSimpleName().toString();
       this.humanName = humanName;
       this.element = element;
@@ -120,10 +345,66 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       methodAnnotations = ImmutableSet.copyOf(element.getAnnotationMirrors());
       nullable = nullableTypeAnnotation().isPresent() || nullableMethodAnnotation().isPresent();
       isTransient = element.getAnnotation(AutoTransient.class) != null;
+      enumType = actualType.getKind() == TypeKind.DECLARED
+          && MoreTypes.asElement(actualType).getKind() == ElementKind.ENUM
+          ? MoreTypes.asTypeElement(actualType)
+          : null;
+      omitNulls = element.getAnnotation(GsonOmitNulls.class) != null
+          || autoValueClass.getAnnotation(GsonOmitNulls.class) != null;
+      omitDefaults = element.getAnnotation(GsonOmitDefaults.class) != null
+          || autoValueClass.getAnnotation(GsonOmitDefaults.class) != null;
+      emptyValue = emptyValue(actualType);
+      optional = actualType.getKind() == TypeKind.DECLARED && OPTIONAL_TYPES.contains(
+          MoreTypes.asTypeElement(actualType).getQualifiedName().toString());
+      sorted = actualType.getKind() == TypeKind.DECLARED && SORTED_TYPES.contains(
+          MoreTypes.asTypeElement(actualType).getQualifiedName().toString());
+      deltaType = actualType.getKind() == TypeKind.DECLARED
+          && MoreTypes.asElement(actualType).getAnnotation(GsonDelta.class) != null;
+      standaloneType = actualType.getKind() == TypeKind.DECLARED
+          && MoreTypes.asElement(actualType).getAnnotation(GsonStandalone.class) != null
+          ? MoreTypes.asTypeElement(actualType)
+          : null;
+      views = viewsOf(element);
+      GsonSince sinceAnnotation = element.getAnnotation(GsonSince.class);
+      since = sinceAnnotation != null ? sinceAnnotation.value() : null;
+      GsonUntil untilAnnotation = element.getAnnotation(GsonUntil.class);
+      until = untilAnnotation != null ? untilAnnotation.value() : null;
+      GsonPropertyAdapter adapterAnnotation = element.getAnnotation(GsonPropertyAdapter.class);
+      customAdapter = adapterAnnotation != null
+          ? CustomAdapter.create(adapterAnnotation, humanName, type, autoValueClass)
+          : null;
+      serializedName = element.getAnnotation(SerializedName.class);
+      serializedNameAlternate =
+          serializedName != null ? serializedName.alternate() : new String[0];
+    }
+
+    private static ImmutableList<TypeMirror> viewsOf(ExecutableElement element) {
+      GsonView view = element.getAnnotation(GsonView.class);
+      if (view == null) {
+        return ImmutableList.of();
+      }
+      try {
+        view.value();
+        throw new AssertionError("GsonView classes are only available as mirrors");
+      } catch (MirroredTypesException e) {
+        return ImmutableList.copyOf(e.getTypeMirrors());
+      }
+    }
+
+    /** Whether the property is written in {@code view}, or a subtype of one of its views. */
+    boolean inView(TypeMirror view, Types types) {
+      if (views.isEmpty()) {
+        return true;
+      }
+      for (TypeMirror candidate : views) {
+        if (types.isSubtype(types.erasure(view), types.erasure(candidate))) {
+          return true;
+        }
+      }
+      return false;
     }
 
     String serializedName() {
-      SerializedName serializedName = element.getAnnotation(SerializedName.class);
       if (serializedName != null) {
         return serializedName.value();
       } else {
@@ -131,17 +412,12 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       }
     }
 
+    /** Returns the alternate names, which callers must not modify. */
     String[] serializedNameAlternate() {
-      SerializedName serializedName = element.getAnnotation(SerializedName.class);
-      if (serializedName != null) {
-        return serializedName.alternate();
-      } else {
-        return new String[0];
-      }
+      return serializedNameAlternate;
     }
 
     boolean hasSerializedNameAnnotation() {
-      SerializedName serializedName = element.getAnnotation(SerializedName.class);
       return serializedName != null;
     }
 
@@ -153,6 +429,15 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       return nullable;
     }
 
+    boolean hasRestorableDefault() {
+      return nullable || type.isPrimitive() || emptyValue != null;
+    }
+
+    /** Whether this property is left out of the output when it holds its default value. */
+    boolean omitsDefault() {
+      return omitDefaults && hasRestorableDefault() || omitNulls && nullable;
+    }
+
     private Optional<AnnotationMirror> nullableIn(Set<AnnotationMirror> annotations) {
       return annotations.stream()
           .filter(
@@ -173,6 +458,10 @@ public class AutoValueGsonExtension extends AutoValueExtension {
   }
 
   private boolean useFieldNamePolicy = false;
+  private boolean generateEnumAdapters = false;
+  private boolean metrics = false;
+  private boolean jfr = false;
+  private boolean nameStats = false;
 
   @Override
   public IncrementalExtensionType incrementalType(ProcessingEnvironment processingEnvironment) {
@@ -183,7 +472,14 @@ public class AutoValueGsonExtension extends AutoValueExtension {
   public boolean applicable(Context context) {
     useFieldNamePolicy = context.processingEnvironment()
         .getOptions()
-        .containsKey(USE_FIELD_NAME_POLICY);
+        .containsKey(USE_FIELD_NAME_POLICY)
+        // standalone adapters have no Gson to take the policy from
+        && context.autoValueClass().getAnnotation(GsonStandalone.class) == null;
+    generateEnumAdapters =
+        context.processingEnvironment().getOptions().containsKey(ENUM_ADAPTERS);
+    metrics = context.processingEnvironment().getOptions().containsKey(METRICS);
+    jfr = context.processingEnvironment().getOptions().containsKey(JFR);
+    nameStats = context.processingEnvironment().getOptions().containsKey(NAME_STATS);
     return isApplicable(context.autoValueClass(), context.processingEnvironment().getMessager());
   }
 
@@ -253,7 +549,8 @@ public class AutoValueGsonExtension extends AutoValueExtension {
           context.processingEnvironment().getMessager(),
           entry.getKey(),
           entry.getValue(),
-          context.propertyTypes().get(entry.getKey())
+          context.propertyTypes().get(entry.getKey()),
+          type
       );
       if (property == null) {
         return null;
@@ -286,6 +583,19 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         finalSuperClass, properties, params, context.builder().orElse(null), context.processingEnvironment());
 
     Filer filer = context.processingEnvironment().getFiler();
+    if (context.processingEnvironment().getOptions().containsKey(REPORT)) {
+      AdapterReport report = createReport(type, adapterClassName, properties, typeAdapter);
+      try {
+        report.writeTo(filer, type);
+      } catch (IOException e) {
+        context.processingEnvironment().getMessager()
+            .printMessage(Diagnostic.Kind.ERROR,
+                String.format(
+                    "Failed to write adapter report for element \"%s\" with reason \"%s\"",
+                    type,
+                    e.getMessage()));
+      }
+    }
     if (generateExternalAdapter) {
       try {
         TypeSpec.Builder builder = typeAdapter.toBuilder();
@@ -358,23 +668,33 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       .build();
   }
 
-  private ImmutableMap<TypeName, FieldSpec> createFields(List<Property> properties) {
+  /**
+   * Creates the adapter fields, resolved on first use from Gson, or else set to the Gson-independent
+   * adapters of a {@link GsonStandalone} type with {@code standaloneEnumAdapters}.
+   */
+  private ImmutableMap<TypeName, FieldSpec> createFields(List<Property> properties,
+      @Nullable Map<TypeName, ClassName> standaloneEnumAdapters) {
     ImmutableMap.Builder<TypeName, FieldSpec> fields = ImmutableMap.builder();
 
     ClassName jsonAdapter = ClassName.get(TypeAdapter.class);
     Set<TypeName> seenTypes = Sets.newHashSet();
     NameAllocator nameAllocator = new NameAllocator();
     for (Property property : properties) {
-      if (property.isTransient()) {
+      if (property.isTransient() || property.customAdapter != null) {
         continue;
       }
       TypeName type = property.type.isPrimitive() ? property.type.box() : property.type;
       ParameterizedTypeName adp = ParameterizedTypeName.get(jsonAdapter, type);
       if (!seenTypes.contains(property.type)) {
-        fields.put(property.type,
-                FieldSpec.builder(adp,
-                    nameAllocator.newName(simpleName(property.type)) + "_adapter", PRIVATE, VOLATILE)
-                    .build());
+        FieldSpec.Builder field = FieldSpec.builder(adp,
+            nameAllocator.newName(simpleName(property.type)) + "_adapter");
+        if (standaloneEnumAdapters != null) {
+          field.addModifiers(PRIVATE, STATIC, FINAL)
+              .initializer(standaloneAdapter(property, standaloneEnumAdapters));
+        } else {
+          field.addModifiers(PRIVATE, VOLATILE);
+        }
+        fields.put(property.type, field.build());
         seenTypes.add(property.type);
       }
     }
@@ -382,6 +702,66 @@ public class AutoValueGsonExtension extends AutoValueExtension {
     return fields.build();
   }
 
+  /** Returns the shared adapter of a property of a {@link GsonStandalone} type. */
+  private static CodeBlock standaloneAdapter(Property prop, Map<TypeName, ClassName> enumAdapters) {
+    if (prop.enumType != null) {
+      return CodeBlock.of("new $T()", enumAdapters.get(prop.type));
+    }
+    if (prop.standaloneType != null) {
+      ClassName type = ClassName.get(prop.standaloneType);
+      return CodeBlock.of("$T.INSTANCE", ClassName.get(type.packageName(),
+          Joiner.on("_").join(type.simpleNames()) + "_GsonTypeAdapter"));
+    }
+    return CodeBlock.of("$T.$N", ScalarAdapters.class, SCALAR_ADAPTERS.get(prop.type.box()));
+  }
+
+  /**
+   * Reports the parts of a {@link GsonStandalone} type that need Gson, and returns whether there
+   * are none.
+   */
+  private static boolean checkStandalone(TypeElement type, List<Property> properties,
+      Messager messager) {
+    if (type.getAnnotation(GenerateTypeAdapter.class) == null) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@GsonStandalone requires @GenerateTypeAdapter.", type);
+      return false;
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@GsonStandalone types can't be generic.", type);
+      return false;
+    }
+    if (type.getAnnotation(GsonCacheSerialized.class) != null) {
+      // the cache needs the Gson whose writers it splices text into
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@GsonStandalone types can't be @GsonCacheSerialized.", type);
+      return false;
+    }
+    boolean standalone = true;
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      String error = null;
+      if (prop.since != null || prop.until != null) {
+        error = "@GsonStandalone properties can't have @GsonSince or @GsonUntil.";
+      } else if (prop.customAdapter != null) {
+        if (prop.customAdapter.factory) {
+          error = "@GsonStandalone properties can't have a TypeAdapterFactory.";
+        }
+      } else if (prop.enumType == null && prop.standaloneType == null
+          && !SCALAR_ADAPTERS.containsKey(prop.type.box())) {
+        error = "@GsonStandalone properties must be primitives, strings, enums or "
+            + "@GsonStandalone types.";
+      }
+      if (error != null) {
+        messager.printMessage(Diagnostic.Kind.ERROR, error, prop.element);
+        standalone = false;
+      }
+    }
+    return standalone;
+  }
+
   private static String simpleName(TypeName typeName) {
     if (typeName instanceof ClassName) {
       return UPPER_CAMEL.to(LOWER_CAMEL, ((ClassName) typeName).simpleName());
@@ -470,9 +850,15 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         : autoValueClassName;
     ParameterizedTypeName superClass = ParameterizedTypeName.get(typeAdapterClass, autoValueTypeName);
 
+    boolean standalone = autoValueType.getAnnotation(GsonStandalone.class) != null
+        && checkStandalone(autoValueType, properties, processingEnvironment.getMessager());
     ParameterSpec gsonParam = ParameterSpec.builder(Gson.class, "gson").build();
-    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
-            .addParameter(gsonParam);
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder();
+    if (standalone) {
+      constructor.addModifiers(PRIVATE);
+    } else {
+      constructor.addParameter(gsonParam);
+    }
 
     if (!typeParams.isEmpty()) {
 
@@ -483,18 +869,11 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       constructor.addStatement("typeArgs = $N", typeAdapter);
     }
 
-    ImmutableMap<TypeName, FieldSpec> adapters = createFields(properties);
-    if (useFieldNamePolicy) {
-      constructor.addStatement("$1T fields = new $1T()", ParameterizedTypeName.get(ArrayList.class, String.class));
-      for (Property prop : properties) {
-        constructor.addStatement("fields.add($S)", prop.humanName);
-      }
+    if (!standalone) {
+      constructor.addStatement("this.gson = gson");
     }
-    constructor.addStatement("this.gson = gson");
     if (useFieldNamePolicy) {
-      constructor.addStatement("this.realFieldNames = $T.renameFields($T.class, fields, gson.fieldNamingStrategy())",
-          ClassName.get("com.ryanharter.auto.value.gson.internal", "Util"),
-          superClassType);
+      constructor.addStatement("this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy())");
     }
 
     ClassName jsonAdapter = ClassName.get(TypeAdapter.class);
@@ -502,19 +881,169 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         .addOriginatingElement(autoValueType)
         .addTypeVariables(typeParams)
         .addModifiers(FINAL)
-        .superclass(superClass)
-        .addFields(adapters.values());
+        .superclass(superClass);
+    if (standalone) {
+      // first, so that it is set when the adapters of other standalone types refer back to it
+      classBuilder.addModifiers(PUBLIC)
+          .addField(FieldSpec.builder(gsonTypeAdapterName, "INSTANCE", PUBLIC, STATIC, FINAL)
+              .initializer("new $T()", gsonTypeAdapterName)
+              .build());
+    }
+
+    // Generated enum adapters are only used when asked for, and for enums not annotated with
+    // @JsonAdapter. They still give way to enum adapters registered with Gson.
+    Map<TypeName, ClassName> enumAdapters = new LinkedHashMap<>();
+    NameAllocator enumAdapterNames = new NameAllocator();
+    for (Property prop : properties) {
+      if (prop.isTransient() || prop.enumType == null || prop.customAdapter != null
+          || enumAdapters.containsKey(prop.type)) {
+        continue;
+      }
+      if (!standalone && (!generateEnumAdapters
+          || prop.enumType.getAnnotation(JsonAdapter.class) != null)) {
+        continue;
+      }
+      ClassName enumClassName = ClassName.get(prop.enumType);
+      ClassName enumAdapterName = gsonTypeAdapterName.nestedClass(enumAdapterNames.newName(
+          Joiner.on("_").join(enumClassName.simpleNames()) + "_EnumAdapter"));
+      classBuilder.addType(createEnumAdapter(enumAdapterName, prop.enumType));
+      enumAdapters.put(prop.type, enumAdapterName);
+    }
+
+    ImmutableMap<TypeName, FieldSpec> adapters =
+        createFields(properties, standalone ? enumAdapters : null);
+    classBuilder.addFields(adapters.values());
+    for (Property prop : properties) {
+      if (!prop.isTransient() && prop.customAdapter != null) {
+        classBuilder.addField(prop.customAdapter.field);
+      }
+    }
+    addTypeTokens(classBuilder, constructor, properties, adapters, enumAdapters, typeParams);
 
     if (useFieldNamePolicy) {
+      classBuilder.addField(createFieldNames(superClassType, properties));
       classBuilder.addField(FieldSpec.builder(ParameterizedTypeName.get(Map.class, String.class, String.class), "realFieldNames", PRIVATE, FINAL).build());
     }
 
-    classBuilder.addField(FieldSpec.builder(Gson.class, "gson", PRIVATE, FINAL).build())
-        .addMethod(constructor.build())
-        .addMethod(createWriteMethod(autoValueTypeName, properties, adapters,
-            jsonAdapter, typeParams))
-        .addMethod(createReadMethod(className, autoValueClassName, autoValueTypeName, properties,
-            adapters, jsonAdapter, typeParams, builderContext, processingEnvironment))
+    Map<Property, Long> versionBits =
+        createVersionBits(properties, processingEnvironment.getMessager());
+    if (!versionBits.isEmpty()) {
+      addVersionMask(classBuilder, constructor, gsonParam, versionBits);
+    }
+
+    boolean cacheSerialized = autoValueType.getAnnotation(GsonCacheSerialized.class) != null;
+    MethodSpec cachedWriteMethod = null;
+    if (cacheSerialized) {
+      cachedWriteMethod =
+          addSerializedCache(classBuilder, constructor, gsonParam, autoValueTypeName);
+    }
+
+    Map<String, String> shortNames = null;
+    if (autoValueType.getAnnotation(GsonCompactKeys.class) != null) {
+      shortNames = createShortNames(properties, processingEnvironment.getMessager());
+      addCompactMethods(classBuilder, gsonTypeAdapterName, autoValueTypeName, superClass,
+          cacheSerialized);
+    } else {
+      for (Property prop : properties) {
+        if (prop.element.getAnnotation(GsonShortName.class) != null) {
+          processingEnvironment.getMessager().printMessage(Diagnostic.Kind.ERROR,
+              "@GsonShortName requires @GsonCompactKeys on the AutoValue type.", prop.element);
+        }
+      }
+    }
+
+    if (autoValueType.getAnnotation(GsonDelta.class) != null) {
+      addDeltaMethods(classBuilder, autoValueTypeName, properties, adapters, enumAdapters,
+          jsonAdapter, typeParams, builderContext, processingEnvironment.getMessager(),
+          createReadMethod(className, autoValueClassName, autoValueTypeName, properties,
+              adapters, enumAdapters, jsonAdapter, typeParams, builderContext,
+              processingEnvironment, null, versionBits, ReadMode.DELTA));
+    }
+
+    Map<ClassName, TypeMirror> views = new LinkedHashMap<>();
+    for (Property prop : properties) {
+      for (TypeMirror view : prop.views) {
+        views.putIfAbsent(ClassName.get(MoreTypes.asTypeElement(view)), view);
+      }
+    }
+    if (!views.isEmpty()) {
+      addViewMethods(classBuilder, gsonTypeAdapterName, autoValueTypeName, superClass,
+          properties, views, adapters, enumAdapters, jsonAdapter, typeParams, versionBits,
+          processingEnvironment.getTypeUtils());
+    }
+
+    if (hasSubtypesSupertype(autoValueType)) {
+      classBuilder
+          .addSuperinterface(ParameterizedTypeName.get(ClassName.get(PropertiesAdapter.class),
+              autoValueTypeName))
+          .addMethod(createWriteMethod(autoValueTypeName, properties, adapters, enumAdapters,
+              jsonAdapter, typeParams, null, versionBits, false, true, null))
+          .addMethod(createReadMethod(className, autoValueClassName, autoValueTypeName,
+              properties, adapters, enumAdapters, jsonAdapter, typeParams, builderContext,
+              processingEnvironment, null, versionBits, ReadMode.PROPERTIES));
+    }
+
+    if (autoValueType.getAnnotation(GsonColumnar.class) != null) {
+      addColumnarMethod(classBuilder, autoValueTypeName, properties, adapters, enumAdapters,
+          jsonAdapter, typeParams, createReadMethod(className, autoValueClassName,
+              autoValueTypeName, properties, adapters, enumAdapters, jsonAdapter, typeParams,
+              builderContext, processingEnvironment, null, versionBits, ReadMode.ROW));
+    }
+
+    if (!standalone) {
+      classBuilder.addField(FieldSpec.builder(Gson.class, "gson", PRIVATE, FINAL).build());
+    }
+    if (nameStats) {
+      CodeBlock.Builder alternates = CodeBlock.builder();
+      for (Property prop : properties) {
+        if (!prop.isTransient()) {
+          for (String alternate : prop.serializedNameAlternate()) {
+            alternates.add(", $S", alternate);
+          }
+        }
+      }
+      classBuilder.addField(FieldSpec.builder(NameStats.class, "NAME_STATS",
+          PRIVATE, STATIC, FINAL)
+          .initializer("$T.forType($T.class$L)", NameStats.class, autoValueClassName,
+              alternates.build())
+          .build());
+    }
+    MethodSpec writeMethod = createWriteMethod(autoValueTypeName, properties, adapters,
+        enumAdapters, jsonAdapter, typeParams, shortNames, versionBits, cacheSerialized, false,
+        null);
+    MethodSpec readMethod = createReadMethod(className, autoValueClassName, autoValueTypeName,
+        properties, adapters, enumAdapters, jsonAdapter, typeParams, builderContext,
+        processingEnvironment, shortNames, versionBits, ReadMode.OBJECT);
+    if (metrics) {
+      classBuilder.addField(FieldSpec.builder(AdapterMetrics.TypeMetrics.class, "METRICS",
+          PRIVATE, STATIC, FINAL)
+          .initializer("$T.get().forType($T.class)", AdapterMetrics.class, autoValueClassName)
+          .build());
+    }
+    if (jfr) {
+      int propertyCount = (int) properties.stream().filter(p -> !p.isTransient()).count();
+      classBuilder.addField(FieldSpec.builder(AdapterEvents.class, "EVENTS",
+          PRIVATE, STATIC, FINAL)
+          .initializer("$T.forType($T.class, $L)", AdapterEvents.class, autoValueClassName,
+              propertyCount)
+          .build());
+    }
+    if (metrics || jfr) {
+      // Cached writes never reach the uncached write method, so the cache's is timed instead.
+      if (cachedWriteMethod != null) {
+        cachedWriteMethod = instrumented(cachedWriteMethod, false);
+      } else {
+        writeMethod = instrumented(writeMethod, false);
+      }
+      readMethod = instrumented(readMethod, true);
+    }
+    classBuilder.addMethod(constructor.build());
+    if (cachedWriteMethod != null) {
+      classBuilder.addMethod(cachedWriteMethod);
+    }
+    classBuilder
+        .addMethod(writeMethod)
+        .addMethod(readMethod)
         .addMethod(MethodSpec.methodBuilder("toString")
             .addAnnotation(Override.class)
             .addModifiers(PUBLIC)
@@ -534,111 +1063,771 @@ public class AutoValueGsonExtension extends AutoValueExtension {
     return classBuilder.build();
   }
 
-  private static void addConditionalAdapterAssignment(CodeBlock.Builder block,
-                                               FieldSpec adapterField,
-                                               Property prop,
-                                               ClassName jsonAdapter,
-                                               List<TypeVariableName> typeParams) {
-    TypeName type = prop.type.isPrimitive() ? prop.type.box() : prop.type;
-    ParameterizedTypeName adp = ParameterizedTypeName.get(jsonAdapter, type);
+  /**
+   * Returns the short keys of a {@link GsonCompactKeys} type by property name. Keys default to the
+   * base-36 index of the property, and must not collide with any other name a property is read
+   * with.
+   */
+  private static Map<String, String> createShortNames(List<Property> properties,
+      Messager messager) {
+    Map<String, String> shortNames = new LinkedHashMap<>();
+    Map<String, Property> owners = new LinkedHashMap<>();
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      owners.put(prop.serializedName(), prop);
+      for (String alternate : prop.serializedNameAlternate()) {
+        owners.put(alternate, prop);
+      }
+    }
+    for (int i = 0; i < properties.size(); i++) {
+      Property prop = properties.get(i);
+      if (prop.isTransient()) {
+        continue;
+      }
+      GsonShortName annotation = prop.element.getAnnotation(GsonShortName.class);
+      String shortName = annotation != null ? annotation.value() : Integer.toString(i, 36);
+      Property owner = owners.get(shortName);
+      if (owner != null && owner != prop) {
+        messager.printMessage(Diagnostic.Kind.ERROR, String.format(
+            "Short key \"%s\" of %s collides with a name of %s.", shortName, prop.humanName,
+            owner.humanName), prop.element);
+      }
+      owners.put(shortName, prop);
+      shortNames.put(prop.humanName, shortName);
+    }
+    return shortNames;
+  }
 
-    block.addStatement("$T $N = this.$N", adapterField.type, adapterField, adapterField);
-    block.beginControlFlow("if ($N == null)", adapterField);
-    if (prop.type instanceof ParameterizedTypeName || prop.type instanceof TypeVariableName) {
-      block.addStatement("this.$N = $N = ($T) gson.getAdapter($L)", adapterField, adapterField,
-          adp, makeParameterizedType(prop.type, typeParams));
-    } else {
-      block.addStatement("this.$N = $N = gson.getAdapter($T.class)", adapterField, adapterField, type);
+  /** Whether a supertype of {@code type} is annotated with {@link GsonSubtypes}. */
+  private static boolean hasSubtypesSupertype(TypeElement type) {
+    List<TypeMirror> supertypes = new ArrayList<>(type.getInterfaces());
+    supertypes.add(type.getSuperclass());
+    for (TypeMirror supertype : supertypes) {
+      if (supertype.getKind() != TypeKind.DECLARED) {
+        continue;
+      }
+      TypeElement element = MoreTypes.asTypeElement(supertype);
+      if (element.getAnnotation(GsonSubtypes.class) != null || hasSubtypesSupertype(element)) {
+        return true;
+      }
     }
-    block.endControlFlow();
+    return false;
   }
 
-  private static void addBuilderFieldSetting(Builder block,
-                                             Property prop,
-                                             FieldSpec adapter,
-                                             ParameterSpec jsonReader,
-                                             FieldSpec builder,
-                                             BuilderContext builderContext,
-                                             ProcessingEnvironment processingEnv) {
-    Set<ExecutableElement> setters = builderContext.setters().get(prop.humanName);
-    if (setters == null || setters.isEmpty()) {
-      ExecutableElement propertyBuilder = builderContext.propertyBuilders().get(prop.humanName);
-      if (propertyBuilder == null) {
-        processingEnv
-            .getMessager()
-            .printMessage(
-                Diagnostic.Kind.ERROR, "No setter or builder for " + prop.humanName, prop.element);
-      } else {
-        // This duplicates AutoValue's handling of addAll and putAll, for Guava's ImmutableList and
-        // ImmutableMap (etc). We have for example `ImmutableList<String> getFoo()` but we don't
-        // have `setFoo(ImmutableList<String>)`, we only have
-        // `ImmutableList.Builder<String> fooBuilder()`. So we need to do
-        // `builder.fooBuilder().addAll(adapter.read(jsonReader)`.
-        Set<String> methodNames =
-            methodsIn(
-                    MoreTypes.asTypeElement(propertyBuilder.getReturnType()).getEnclosedElements())
-                .stream()
-                .map(e -> e.getSimpleName().toString())
-                .collect(Collectors.toSet());
-        String addAllPutAll =
-            methodNames.contains("addAll")
-                ? "addAll"
-                : methodNames.contains("putAll")
-                    ? "putAll"
-                    : null;
-        if (addAllPutAll == null) {
-          processingEnv
-              .getMessager()
-              .printMessage(
-                  Diagnostic.Kind.ERROR,
-                  "Don't know how to get Gson values for " + prop.humanName + " into this builder",
-                  propertyBuilder);
-          return;
-        }
-        block.addStatement(
-            "$N.$N().$N($N.read($N))",
-            builder,
-            propertyBuilder.getSimpleName(),
-            addAllPutAll,
-            adapter,
-            jsonReader);
+  /**
+   * Assigns a bit of the {@code versionMask} to each property with {@link GsonSince} or
+   * {@link GsonUntil}.
+   */
+  private static Map<Property, Long> createVersionBits(List<Property> properties,
+      Messager messager) {
+    Map<Property, Long> versionBits = new LinkedHashMap<>();
+    for (Property prop : properties) {
+      if (prop.isTransient() || prop.since == null && prop.until == null) {
+        continue;
       }
-      return;
+      if (versionBits.size() == Long.SIZE) {
+        messager.printMessage(Diagnostic.Kind.ERROR,
+            "At most 64 properties of a type can have @GsonSince or @GsonUntil.", prop.element);
+        break;
+      }
+      versionBits.put(prop, 1L << versionBits.size());
     }
-    // We're looking for a method that we can call with a parameter that is a value of the property
-    // type. The parameter type might be exactly the same, but it could also be a supertype.
-    // For example, AutoValue allows you to set a property of type ImmutableList<String> using a
-    // parameter of type List<String> (it generates a call to ImmutableList.copyOf).
-    // Similarly, it allows you to set a property of type Optional<String> with a parameter of type
-    // String (it generates a call to Optional.of). So we look for those cases.
-    // There's a further quirk, which is that the T in @AutoValue class Foo<T> is not the same as
-    // @AutoValue.Builder class Foo.Builder<T>, so if the return type of Foo.getBar() is
-    // ImmutableList<T> then that won't look the same as the parameter type of
-    // Foo.Builder.setBar(ImmutableList<T>). AutoValue has some tricky logic to juggle the types
-    // but here we just assume the types will work if their erasures do. Otherwise AutoValue would
-    // presumably reject the getter/setter combination with a helpful error message.
-    Types typeUtils = processingEnv.getTypeUtils();
-    TypeMirror propertyType = prop.element.getReturnType();
-    for (ExecutableElement setter : setters) {
-      if (typeUtils.isAssignable(
-              typeUtils.erasure(propertyType), typeUtils.erasure(setter.getParameters().get(0).asType()))) {
-        block.addStatement(
-            "$N.$N($N.read($N))", builder, setter.getSimpleName(), adapter, jsonReader);
-        return;
+    return versionBits;
+  }
+
+  /**
+   * Adds the {@code versionMask} field, which holds the bits of the versioned properties that the
+   * version of Gson includes. The mask of every range between the versions of the properties is
+   * computed here, so the constructor only picks one. Gson doesn't expose its version, so each
+   * bound is a nested class annotated with {@link Since} that the constructor asks Gson's excluder
+   * about.
+   */
+  private static void addVersionMask(TypeSpec.Builder classBuilder,
+      MethodSpec.Builder constructor, ParameterSpec gsonParam, Map<Property, Long> versionBits) {
+    TreeSet<Double> bounds = new TreeSet<>();
+    long all = 0;
+    for (Map.Entry<Property, Long> entry : versionBits.entrySet()) {
+      Property prop = entry.getKey();
+      if (prop.since != null) {
+        bounds.add(prop.since);
       }
+      if (prop.until != null) {
+        bounds.add(prop.until);
+      }
+      all |= entry.getValue();
     }
-    Optional<TypeMirror> optionalArgType = optionalArgType(propertyType, typeUtils);
-    if (optionalArgType.isPresent()) {
-      for (ExecutableElement setter : setters) {
+    classBuilder.addField(FieldSpec.builder(TypeName.LONG, "versionMask", PRIVATE, FINAL).build());
+    constructor.beginControlFlow("if (!$T.hasVersion($N))", Util.class, gsonParam);
+    constructor.addStatement("this.versionMask = $L", maskLiteral(all));
+    double lower = Double.NEGATIVE_INFINITY;
+    int index = 0;
+    for (double bound : bounds) {
+      TypeSpec marker = TypeSpec.classBuilder("VersionBound" + index++)
+          .addModifiers(PRIVATE, STATIC, FINAL)
+          .addAnnotation(AnnotationSpec.builder(Since.class)
+              .addMember("value", "$L", bound)
+              .build())
+          .build();
+      classBuilder.addType(marker);
+      constructor.nextControlFlow("else if ($T.versionExcludes($N, $N.class))", Util.class,
+          gsonParam, marker);
+      constructor.addStatement("this.versionMask = $L", maskLiteral(versionMask(versionBits, lower)));
+      lower = bound;
+    }
+    constructor.nextControlFlow("else");
+    constructor.addStatement("this.versionMask = $L", maskLiteral(versionMask(versionBits, lower)));
+    constructor.endControlFlow();
+  }
+
+  /**
+   * Returns the bits of the properties that {@code version} includes, with the same rules as
+   * Gson's {@code Since} and {@code Until}.
+   */
+  private static long versionMask(Map<Property, Long> versionBits, double version) {
+    long mask = 0;
+    for (Map.Entry<Property, Long> entry : versionBits.entrySet()) {
+      Property prop = entry.getKey();
+      if ((prop.since == null || prop.since <= version)
+          && (prop.until == null || prop.until > version)) {
+        mask |= entry.getValue();
+      }
+    }
+    return mask;
+  }
+
+  private static CodeBlock maskLiteral(long mask) {
+    return CodeBlock.of("0x$LL", Long.toHexString(mask));
+  }
+
+  /**
+   * Implements {@link CompactKeysAdapter}, and delegates the regular, or else the uncached,
+   * {@code write} method to the one that takes a {@code compact} flag. When uncached, the compact
+   * adapter's writes are timed by it rather than by the method they delegate to.
+   */
+  private void addCompactMethods(TypeSpec.Builder classBuilder,
+      ClassName gsonTypeAdapterName, TypeName autoValueTypeName, TypeName superClass,
+      boolean cacheSerialized) {
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    ParameterSpec annotatedParam = ParameterSpec.builder(autoValueTypeName, "object").build();
+    MethodSpec compactWrite = MethodSpec.methodBuilder("write")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addParameter(annotatedParam)
+        .addException(IOException.class)
+        .addStatement("$T.this.write($N, $N, true)", gsonTypeAdapterName, jsonWriter,
+            annotatedParam)
+        .build();
+    if (cacheSerialized && (metrics || jfr)) {
+      compactWrite = instrumented(compactWrite, false);
+    }
+    TypeSpec compactAdapter = TypeSpec.anonymousClassBuilder("")
+        .superclass(superClass)
+        .addMethod(compactWrite)
+        .addMethod(MethodSpec.methodBuilder("read")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(autoValueTypeName)
+            .addParameter(jsonReader)
+            .addException(IOException.class)
+            .addStatement("return $T.this.read($N)", gsonTypeAdapterName, jsonReader)
+            .build())
+        .build();
+    // created once, so that calls to compact() don't allocate
+    FieldSpec compactField = FieldSpec.builder(superClass, "compactAdapter", PRIVATE, FINAL)
+        .initializer("$L", compactAdapter)
+        .build();
+    classBuilder
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(CompactKeysAdapter.class),
+            autoValueTypeName))
+        .addMethod(MethodSpec.methodBuilder(cacheSerialized ? "writeUncached" : "write")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(jsonWriter)
+            .addParameter(annotatedParam)
+            .addException(IOException.class)
+            .addStatement("write($N, $N, false)", jsonWriter, annotatedParam)
+            .build())
+        .addField(compactField)
+        .addMethod(MethodSpec.methodBuilder("compact")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(superClass)
+            .addStatement("return $N", compactField)
+            .build());
+  }
+
+  /**
+   * Implements {@link ViewAdapter} with one private write method per view class named in a
+   * {@link GsonView}, and one for the properties without views, so that choosing the properties
+   * of a view costs nothing per instance. A requested view class uses the method of the most
+   * specific named view it extends, and its adapter is cached.
+   */
+  private void addViewMethods(TypeSpec.Builder classBuilder, ClassName gsonTypeAdapterName,
+      TypeName autoValueTypeName, TypeName superClass, List<Property> properties,
+      Map<ClassName, TypeMirror> views, ImmutableMap<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters, ClassName jsonAdapter,
+      List<TypeVariableName> typeParams, Map<Property, Long> versionBits, Types types) {
+    ParameterSpec viewParam = ParameterSpec.builder(ParameterizedTypeName.get(
+        ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)), "view").build();
+    FieldSpec viewAdapters = FieldSpec.builder(ParameterizedTypeName.get(
+            ClassName.get(ConcurrentMap.class), viewParam.type, superClass),
+            "viewAdapters", PRIVATE, FINAL)
+        .initializer("new $T<>()", ConcurrentHashMap.class)
+        .build();
+    MethodSpec.Builder createView = MethodSpec.methodBuilder("createView")
+        .addModifiers(PRIVATE)
+        .returns(superClass)
+        .addParameter(viewParam);
+
+    // Subviews come before the views they extend, since they extend more of the named views.
+    List<Map.Entry<ClassName, TypeMirror>> ordered = new ArrayList<>(views.entrySet());
+    Map<ClassName, Integer> extended = new LinkedHashMap<>();
+    for (Map.Entry<ClassName, TypeMirror> entry : ordered) {
+      int count = 0;
+      for (TypeMirror other : views.values()) {
+        if (isSubview(entry.getValue(), other, types)) {
+          count++;
+        }
+      }
+      extended.put(entry.getKey(), count);
+    }
+    ordered.sort((a, b) -> extended.get(b.getKey()) - extended.get(a.getKey()));
+
+    NameAllocator methodNames = new NameAllocator();
+    for (int i = 0; i < ordered.size(); i++) {
+      Map.Entry<ClassName, TypeMirror> entry = ordered.get(i);
+      List<Property> viewProperties = new ArrayList<>();
+      for (Property prop : properties) {
+        if (prop.inView(entry.getValue(), types)) {
+          viewProperties.add(prop);
+        }
+      }
+      String methodName = methodNames.newName("writeView_" + entry.getKey().simpleName());
+      classBuilder.addMethod(createWriteMethod(autoValueTypeName, viewProperties, adapters,
+          enumAdapters, jsonAdapter, typeParams, null, versionBits, false, false, methodName));
+      createView.beginControlFlow("if ($T.class.isAssignableFrom($N))", entry.getKey(),
+          viewParam);
+      // The properties of a view that also extends an unrelated named view are a union that has
+      // no write method.
+      for (Map.Entry<ClassName, TypeMirror> other : ordered.subList(i + 1, ordered.size())) {
+        if (!isSubview(entry.getValue(), other.getValue(), types)) {
+          createView.beginControlFlow("if ($T.class.isAssignableFrom($N))", other.getKey(),
+              viewParam);
+          createView.addStatement("throw new $T($N.getName() + $S)",
+              IllegalArgumentException.class, viewParam, " extends the unrelated views "
+                  + entry.getKey().canonicalName() + " and " + other.getKey().canonicalName());
+          createView.endControlFlow();
+        }
+      }
+      createView.addStatement("return $L",
+          viewAdapter(gsonTypeAdapterName, autoValueTypeName, superClass, methodName));
+      createView.endControlFlow();
+    }
+
+    // Views that extend none of the named views only write the properties without views.
+    List<Property> unviewed = new ArrayList<>();
+    for (Property prop : properties) {
+      if (prop.views.isEmpty()) {
+        unviewed.add(prop);
+      }
+    }
+    String unviewedName = methodNames.newName("writeUnviewed");
+    classBuilder.addMethod(createWriteMethod(autoValueTypeName, unviewed, adapters,
+        enumAdapters, jsonAdapter, typeParams, null, versionBits, false, false, unviewedName));
+    createView.addStatement("return $L",
+        viewAdapter(gsonTypeAdapterName, autoValueTypeName, superClass, unviewedName));
+
+    classBuilder
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(ViewAdapter.class),
+            autoValueTypeName))
+        .addField(viewAdapters)
+        .addMethod(MethodSpec.methodBuilder("view")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(superClass)
+            .addParameter(viewParam)
+            .addStatement("$T adapter = $N.get($N)", superClass, viewAdapters, viewParam)
+            .beginControlFlow("if (adapter == null)")
+            .addStatement("adapter = $N($N)", createView.build(), viewParam)
+            .addStatement("$T existing = $N.putIfAbsent($N, adapter)", superClass, viewAdapters,
+                viewParam)
+            .beginControlFlow("if (existing != null)")
+            .addStatement("adapter = existing")
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("return adapter")
+            .build())
+        .addMethod(createView.build());
+  }
+
+  private static boolean isSubview(TypeMirror view, TypeMirror other, Types types) {
+    return types.isSubtype(types.erasure(view), types.erasure(other));
+  }
+
+  /** Returns an anonymous adapter that writes with {@code writeMethod} and reads regularly. */
+  private static TypeSpec viewAdapter(ClassName gsonTypeAdapterName, TypeName autoValueTypeName,
+      TypeName superClass, String writeMethod) {
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    ParameterSpec annotatedParam = ParameterSpec.builder(autoValueTypeName, "object").build();
+    return TypeSpec.anonymousClassBuilder("")
+        .superclass(superClass)
+        .addMethod(MethodSpec.methodBuilder("write")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(jsonWriter)
+            .addParameter(annotatedParam)
+            .addException(IOException.class)
+            .addStatement("$T.this.$N($N, $N)", gsonTypeAdapterName, writeMethod, jsonWriter,
+                annotatedParam)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("read")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(autoValueTypeName)
+            .addParameter(jsonReader)
+            .addException(IOException.class)
+            .addStatement("return $T.this.read($N)", gsonTypeAdapterName, jsonReader)
+            .build())
+        .build();
+  }
+
+  /**
+   * Writes through a {@link SerializedCache}, which calls back into {@code writeUncached} for
+   * instances that aren't cached yet. The cache is created with the {@code gsonParam}, to know
+   * whether its writers are compact. Returns the {@code write} method that consults the cache,
+   * which is left to the caller to add.
+   */
+  private static MethodSpec addSerializedCache(TypeSpec.Builder classBuilder,
+      MethodSpec.Builder constructor,
+      ParameterSpec gsonParam,
+      TypeName autoValueTypeName) {
+    ParameterizedTypeName cacheType =
+        ParameterizedTypeName.get(ClassName.get(SerializedCache.class), autoValueTypeName);
+    FieldSpec cache = FieldSpec.builder(cacheType, "serializedCache", PRIVATE, FINAL).build();
+    constructor.addStatement("this.$N = new $T<>($N)", cache, SerializedCache.class, gsonParam);
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec annotatedParam = ParameterSpec.builder(autoValueTypeName, "object").build();
+    classBuilder
+        .addSuperinterface(ParameterizedTypeName.get(
+            ClassName.get(SerializedCache.Source.class), autoValueTypeName))
+        .addField(cache);
+    return MethodSpec.methodBuilder("write")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addParameter(annotatedParam)
+        .addException(IOException.class)
+        .addStatement("$N.write($N, $N, this)", cache, jsonWriter, annotatedParam)
+        .build();
+  }
+
+  /**
+   * Creates a {@link TypeAdapter} for {@code enumType} that resolves constants with a
+   * {@code switch} over the names known at compile time, honoring {@link SerializedName} the same
+   * way Gson's reflective enum adapter does.
+   */
+  private static TypeSpec createEnumAdapter(ClassName enumAdapterName, TypeElement enumType) {
+    ClassName enumClassName = ClassName.get(enumType);
+
+    // Mirror Gson's reflective adapter: alternates are registered before the name, and a later
+    // constant claiming the same name wins.
+    Map<String, String> nameToConstant = new LinkedHashMap<>();
+    Map<String, String> constantToName = new LinkedHashMap<>();
+    for (VariableElement field : fieldsIn(enumType.getEnclosedElements())) {
+      if (field.getKind() != ElementKind.ENUM_CONSTANT) {
+        continue;
+      }
+      String constant = field.getSimpleName().toString();
+      String name = constant;
+      SerializedName serializedName = field.getAnnotation(SerializedName.class);
+      if (serializedName != null) {
+        name = serializedName.value();
+        for (String alternate : serializedName.alternate()) {
+          nameToConstant.put(alternate, constant);
+        }
+      }
+      nameToConstant.put(name, constant);
+      constantToName.put(constant, name);
+    }
+
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec value = ParameterSpec.builder(enumClassName, "value").build();
+    MethodSpec.Builder writeMethod = MethodSpec.methodBuilder("write")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addParameter(value)
+        .addException(IOException.class);
+    writeMethod.beginControlFlow("if ($N == null)", value);
+    writeMethod.addStatement("$N.nullValue()", jsonWriter);
+    writeMethod.addStatement("return");
+    writeMethod.endControlFlow();
+    writeMethod.beginControlFlow("switch ($N)", value);
+    for (Map.Entry<String, String> entry : constantToName.entrySet()) {
+      writeMethod.addCode("case $N:\n$>", entry.getKey());
+      writeMethod.addStatement("$N.value($S)", jsonWriter, entry.getValue());
+      writeMethod.addStatement("break");
+      writeMethod.addCode("$<");
+    }
+    // Only reachable for constants added after this adapter was generated.
+    writeMethod.addCode("default:\n$>");
+    writeMethod.addStatement("$N.value($N.name())", jsonWriter, value);
+    writeMethod.addCode("$<");
+    writeMethod.endControlFlow();
+
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    MethodSpec.Builder readMethod = MethodSpec.methodBuilder("read")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .returns(enumClassName)
+        .addParameter(jsonReader)
+        .addException(IOException.class);
+    readMethod.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, JsonToken.class);
+    readMethod.addStatement("$N.nextNull()", jsonReader);
+    readMethod.addStatement("return null");
+    readMethod.endControlFlow();
+    readMethod.beginControlFlow("switch ($N.nextString())", jsonReader);
+    for (String constant : constantToName.keySet()) {
+      for (Map.Entry<String, String> entry : nameToConstant.entrySet()) {
+        if (entry.getValue().equals(constant)) {
+          readMethod.addCode("case $S:\n", entry.getKey());
+        }
+      }
+      readMethod.addCode("$>");
+      readMethod.addStatement("return $T.$N", enumClassName, constant);
+      readMethod.addCode("$<");
+    }
+    readMethod.addCode("default:\n$>");
+    readMethod.addStatement("return null");
+    readMethod.addCode("$<");
+    readMethod.endControlFlow();
+
+    return TypeSpec.classBuilder(enumAdapterName)
+        .addModifiers(PRIVATE, STATIC, FINAL)
+        .superclass(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), enumClassName))
+        .addMethod(writeMethod.build())
+        .addMethod(readMethod.build())
+        .build();
+  }
+
+  private static AdapterReport createReport(TypeElement type, ClassName adapterClassName,
+      List<Property> properties, TypeSpec typeAdapter) {
+    int propertyCount = 0;
+    int switchNames = 0;
+    int alternateNames = 0;
+    int comparedNames = 0;
+    List<String> boxedProperties = new ArrayList<>();
+    List<String> runtimeTypeTokens = new ArrayList<>();
+    boolean compactKeys = type.getAnnotation(GsonCompactKeys.class) != null;
+    boolean standalone = type.getAnnotation(GsonStandalone.class) != null;
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      propertyCount++;
+      if (prop.hasSerializedNameAnnotation()) {
+        switchNames += 1 + prop.serializedNameAlternate().length;
+        alternateNames += prop.serializedNameAlternate().length;
+      } else {
+        comparedNames++;
+        if (compactKeys) {
+          // and matched by its short name
+          switchNames++;
+        }
+      }
+      // PrimitiveAdapters and the ScalarAdapters of standalone types don't go through Gson's
+      if (prop.customAdapter == null && !standalone && !PRIMITIVE_ADAPTERS.containsKey(prop.type)
+          && hasBoxedValues(prop.type)) {
+        boxedProperties.add(prop.humanName);
+      }
+      if (!PRIMITIVE_ADAPTERS.containsKey(prop.type) && hasTypeVariable(prop.type)) {
+        runtimeTypeTokens.add(prop.humanName);
+      }
+    }
+
+    List<String> lazyAdapters = new ArrayList<>();
+    for (FieldSpec field : typeAdapter.fieldSpecs) {
+      if (!field.hasModifier(STATIC) && field.initializer.isEmpty()
+          && field.type instanceof ParameterizedTypeName
+          && ((ParameterizedTypeName) field.type).rawType.equals(ClassName.get(TypeAdapter.class))) {
+        lazyAdapters.add(field.name);
+      }
+    }
+
+    int readLines = 0;
+    int writeLines = 0;
+    for (MethodSpec method : typeAdapter.methodSpecs) {
+      int lines = method.code.toString().split("\n", -1).length - 1;
+      if (method.name.equals("read") && method.parameters.size() == 1) {
+        readLines = lines;
+      } else if (method.name.equals("write") || method.name.equals("writeUncached")) {
+        // the largest, as a compact or cached write delegates to it
+        writeLines = Math.max(writeLines, lines);
+      }
+    }
+
+    return AdapterReport.builder(ClassName.get(type), adapterClassName)
+        .propertyCount(propertyCount)
+        .switchNames(switchNames)
+        .alternateNames(alternateNames)
+        .comparedNames(comparedNames)
+        .readLines(readLines)
+        .writeLines(writeLines)
+        .boxedProperties(boxedProperties)
+        .lazyAdapters(lazyAdapters)
+        .runtimeTypeTokens(runtimeTypeTokens)
+        .build();
+  }
+
+  /**
+   * Returns whether Gson's adapter of {@code type} boxes primitive values, as it does for the
+   * primitives themselves and for the elements of arrays and type arguments.
+   */
+  private static boolean hasBoxedValues(TypeName type) {
+    if (type.isPrimitive() || type.isBoxedPrimitive()) {
+      return true;
+    } else if (type instanceof ArrayTypeName) {
+      return hasBoxedValues(((ArrayTypeName) type).componentType);
+    } else if (type instanceof ParameterizedTypeName) {
+      for (TypeName typeArgument : ((ParameterizedTypeName) type).typeArguments) {
+        if (hasBoxedValues(typeArgument)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the field holding the names of {@code properties} under each built-in field naming
+   * policy, translated here so that the adapter only picks a table when it's created.
+   */
+  private static FieldSpec createFieldNames(ClassName targetClass, List<Property> properties) {
+    CodeBlock.Builder initializer = CodeBlock.builder()
+        .add("new $T($T.class", FieldNames.class, targetClass)
+        .indent()
+        .indent();
+    for (String policy : FieldNames.POLICIES) {
+      initializer.add(",\nnew $T[] {", String.class);
+      for (int i = 0; i < properties.size(); i++) {
+        initializer.add(i == 0 ? "$S" : ", $S",
+            FieldNames.translate(policy, properties.get(i).humanName));
+      }
+      initializer.add("}");
+    }
+    initializer.unindent().unindent().add(")");
+    return FieldSpec.builder(FieldNames.class, "FIELD_NAMES", PRIVATE, STATIC, FINAL)
+        .initializer(initializer.build())
+        .build();
+  }
+
+  /**
+   * Adds the TypeTokens that the lazily resolved adapters of parameterized and type variable
+   * properties are looked up with, so that they're built once rather than on every lookup. Those
+   * of concrete types are static, and the others are set in the constructor from {@code typeArgs}.
+   * They're interned by {@link Util#typeToken}, so Gson finds their adapters by identity.
+   */
+  private static void addTypeTokens(TypeSpec.Builder classBuilder,
+      MethodSpec.Builder constructor,
+      List<Property> properties,
+      Map<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters,
+      List<TypeVariableName> typeParams) {
+    TypeName typeTokenType = ParameterizedTypeName.get(ClassName.get(TypeToken.class),
+        WildcardTypeName.subtypeOf(Object.class));
+    Set<String> names = new TreeSet<>();
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      FieldSpec adapterField = adapterField(adapters, prop);
+      if (!adapterField.initializer.isEmpty()
+          || prop.customAdapter == null && (enumAdapters.containsKey(prop.type)
+              || PRIMITIVE_ADAPTERS.containsKey(prop.type))
+          || !(prop.type instanceof ParameterizedTypeName
+              || prop.type instanceof TypeVariableName)) {
+        continue;
+      }
+      String name = typeTokenName(adapterField);
+      if (!names.add(name)) {
+        continue;
+      }
+      CodeBlock typeToken = makeParameterizedType(prop.type, typeParams);
+      if (hasTypeVariable(prop.type)) {
+        classBuilder.addField(FieldSpec.builder(typeTokenType, name, PRIVATE, FINAL).build());
+        constructor.addStatement("this.$N = $L", name, typeToken);
+      } else {
+        classBuilder.addField(FieldSpec.builder(typeTokenType, name, PRIVATE, STATIC, FINAL)
+            .initializer(typeToken)
+            .build());
+      }
+    }
+  }
+
+  /** Returns the name of the TypeToken field that the adapter in {@code adapterField} is for. */
+  private static String typeTokenName(FieldSpec adapterField) {
+    return adapterField.name.replaceFirst("_(typeAdapter|adapter)$", "") + "_type";
+  }
+
+  private static boolean hasTypeVariable(TypeName type) {
+    if (type instanceof TypeVariableName) {
+      return true;
+    } else if (type instanceof ParameterizedTypeName) {
+      return ((ParameterizedTypeName) type).typeArguments.stream()
+          .anyMatch(AutoValueGsonExtension::hasTypeVariable);
+    } else if (type instanceof WildcardTypeName) {
+      WildcardTypeName wildcard = (WildcardTypeName) type;
+      return wildcard.upperBounds.stream().anyMatch(AutoValueGsonExtension::hasTypeVariable)
+          || wildcard.lowerBounds.stream().anyMatch(AutoValueGsonExtension::hasTypeVariable);
+    } else if (type instanceof ArrayTypeName) {
+      return hasTypeVariable(((ArrayTypeName) type).componentType);
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the adapter of {@code prop} is known to read a JSON null itself. Those are the
+   * adapters of {@link GsonStandalone} types, including their generated enum adapters,
+   * {@link PrimitiveAdapters} and {@link GsonPropertyAdapter#nullSafe()} adapters. Adapters
+   * resolved by Gson needn't be, as ones registered with it aren't made null-safe, and so needn't
+   * the generated enum adapters of other types, which give way to those.
+   */
+  private static boolean readsNullItself(Property prop, FieldSpec adapterField) {
+    if (prop.customAdapter != null) {
+      return prop.customAdapter.nullSafe;
+    }
+    return !adapterField.initializer.isEmpty() || PRIMITIVE_ADAPTERS.containsKey(prop.type);
+  }
+
+  /** Returns the field holding the adapter of {@code prop}. */
+  private static FieldSpec adapterField(Map<TypeName, FieldSpec> adapters, Property prop) {
+    return prop.customAdapter != null ? prop.customAdapter.field : adapters.get(prop.type);
+  }
+
+  private static void addConditionalAdapterAssignment(CodeBlock.Builder block,
+                                               FieldSpec adapterField,
+                                               Property prop,
+                                               Map<TypeName, ClassName> enumAdapters,
+                                               ClassName jsonAdapter) {
+    TypeName type = prop.type.isPrimitive() ? prop.type.box() : prop.type;
+    ParameterizedTypeName adp = ParameterizedTypeName.get(jsonAdapter, type);
+    if (!adapterField.initializer.isEmpty()) {
+      // created along with the generated adapter
+      return;
+    }
+
+    block.addStatement("$T $N = this.$N", adapterField.type, adapterField, adapterField);
+    block.beginControlFlow("if ($N == null)", adapterField);
+    if (prop.customAdapter != null) {
+      CodeBlock typeToken =
+          prop.type instanceof ParameterizedTypeName || prop.type instanceof TypeVariableName
+              ? CodeBlock.of("$N", typeTokenName(adapterField))
+              : CodeBlock.of("$T.get($T.class)", TypeToken.class, type);
+      block.addStatement("this.$N = $N = ($T) new $T().create(gson, $L)$L", adapterField,
+          adapterField, adp, prop.customAdapter.className, typeToken,
+          prop.customAdapter.nullSafe ? ".nullSafe()" : "");
+    } else if (enumAdapters.containsKey(prop.type)) {
+      block.addStatement("this.$N = $N = $T.enumAdapter(gson, $T.class, new $T())", adapterField,
+          adapterField, Util.class, type, enumAdapters.get(prop.type));
+    } else if (PRIMITIVE_ADAPTERS.containsKey(prop.type)) {
+      block.addStatement("this.$N = $N = $T.$N(gson)", adapterField, adapterField,
+          PrimitiveAdapters.class, PRIMITIVE_ADAPTERS.get(prop.type));
+    } else if (prop.type instanceof ParameterizedTypeName || prop.type instanceof TypeVariableName) {
+      block.addStatement("this.$N = $N = ($T) gson.getAdapter($N)", adapterField, adapterField,
+          adp, typeTokenName(adapterField));
+    } else {
+      block.addStatement("this.$N = $N = gson.getAdapter($T.class)", adapterField, adapterField, type);
+    }
+    block.endControlFlow();
+  }
+
+  private static void addBuilderFieldSetting(Builder block,
+                                             Property prop,
+                                             CodeBlock value,
+                                             FieldSpec builder,
+                                             BuilderContext builderContext,
+                                             ProcessingEnvironment processingEnv) {
+    Set<ExecutableElement> setters = builderContext.setters().get(prop.humanName);
+    if (setters == null || setters.isEmpty()) {
+      ExecutableElement propertyBuilder = builderContext.propertyBuilders().get(prop.humanName);
+      if (propertyBuilder == null) {
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR, "No setter or builder for " + prop.humanName, prop.element);
+      } else {
+        // This duplicates AutoValue's handling of addAll and putAll, for Guava's ImmutableList and
+        // ImmutableMap (etc). We have for example `ImmutableList<String> getFoo()` but we don't
+        // have `setFoo(ImmutableList<String>)`, we only have
+        // `ImmutableList.Builder<String> fooBuilder()`. So we need to do
+        // `builder.fooBuilder().addAll(value)`.
+        Set<String> methodNames =
+            methodsIn(
+                    MoreTypes.asTypeElement(propertyBuilder.getReturnType()).getEnclosedElements())
+                .stream()
+                .map(e -> e.getSimpleName().toString())
+                .collect(Collectors.toSet());
+        String addAllPutAll =
+            methodNames.contains("addAll")
+                ? "addAll"
+                : methodNames.contains("putAll")
+                    ? "putAll"
+                    : null;
+        if (addAllPutAll == null) {
+          processingEnv
+              .getMessager()
+              .printMessage(
+                  Diagnostic.Kind.ERROR,
+                  "Don't know how to get Gson values for " + prop.humanName + " into this builder",
+                  propertyBuilder);
+          return;
+        }
+        block.addStatement(
+            "$N.$N().$N($L)",
+            builder,
+            propertyBuilder.getSimpleName(),
+            addAllPutAll,
+            value);
+      }
+      return;
+    }
+    // We're looking for a method that we can call with a parameter that is a value of the property
+    // type. The parameter type might be exactly the same, but it could also be a supertype.
+    // For example, AutoValue allows you to set a property of type ImmutableList<String> using a
+    // parameter of type List<String> (it generates a call to ImmutableList.copyOf).
+    // Similarly, it allows you to set a property of type Optional<String> with a parameter of type
+    // String (it generates a call to Optional.of). So we look for those cases.
+    // There's a further quirk, which is that the T in @AutoValue class Foo<T> is not the same as
+    // @AutoValue.Builder class Foo.Builder<T>, so if the return type of Foo.getBar() is
+    // ImmutableList<T> then that won't look the same as the parameter type of
+    // Foo.Builder.setBar(ImmutableList<T>). AutoValue has some tricky logic to juggle the types
+    // but here we just assume the types will work if their erasures do. Otherwise AutoValue would
+    // presumably reject the getter/setter combination with a helpful error message.
+    Types typeUtils = processingEnv.getTypeUtils();
+    TypeMirror propertyType = prop.element.getReturnType();
+    for (ExecutableElement setter : setters) {
+      if (typeUtils.isAssignable(
+              typeUtils.erasure(propertyType), typeUtils.erasure(setter.getParameters().get(0).asType()))) {
+        block.addStatement("$N.$N($L)", builder, setter.getSimpleName(), value);
+        return;
+      }
+    }
+    Optional<TypeMirror> optionalArgType = optionalArgType(propertyType, typeUtils);
+    if (optionalArgType.isPresent()) {
+      for (ExecutableElement setter : setters) {
         if (typeUtils.isAssignable(
             typeUtils.erasure(optionalArgType.get()), typeUtils.erasure(setter.getParameters().get(0).asType()))) {
           // The AutoValue property is `Optional<String> foo()` but we only have a setter
           // `setFoo(String)`.
-          // We'll generate `adapter.read(jsonReader).ifPresent(x$ -> builder.setFoo(x$))`.
+          // We'll generate `value.ifPresent(x$ -> builder.setFoo(x$))`.
           block.addStatement(
-              "$N.read($N).ifPresent(x$$ -> $N.$N(x$$))",
-              adapter,
-              jsonReader,
+              "$L.ifPresent(x$$ -> $N.$N(x$$))",
+              value,
               builder,
               setter.getSimpleName());
           return;
@@ -661,120 +1850,635 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       case "java.util.OptionalInt":
         return Optional.of(typeUtils.getPrimitiveType(TypeKind.INT));
       case "java.util.OptionalLong":
-        return Optional.of(typeUtils.getPrimitiveType(TypeKind.LONG));
+        return Optional.of(typeUtils.getPrimitiveType(TypeKind.LONG));
+      case "java.util.OptionalDouble":
+        return Optional.of(typeUtils.getPrimitiveType(TypeKind.DOUBLE));
+      case "java.util.Optional":
+      case "com.google.common.base.Optional":
+        DeclaredType declaredType = MoreTypes.asDeclared(typeMirror);
+        // The size check is mostly in case we're looking at a raw type here.
+        if (declaredType.getTypeArguments().size() != 1) {
+          return Optional.empty();
+        }
+        return Optional.of(declaredType.getTypeArguments().get(0));
+      default:
+        return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the empty value of well-known collection and optional types, which is the default
+   * {@link GsonOmitDefaults} omits, or else {@code null}. The empty sorted collections are in
+   * natural order, so they are only the default when their elements or keys are comparable.
+   */
+  @Nullable
+  private static CodeBlock emptyValue(TypeMirror typeMirror) {
+    if (typeMirror.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement typeElement = MoreTypes.asTypeElement(typeMirror);
+    if (SORTED_TYPES.contains(typeElement.getQualifiedName().toString())) {
+      List<? extends TypeMirror> typeArguments =
+          MoreTypes.asDeclared(typeMirror).getTypeArguments();
+      if (typeArguments.isEmpty() || !isComparable(typeArguments.get(0))) {
+        return null;
+      }
+    }
+    switch (typeElement.getQualifiedName().toString()) {
+      case "java.util.Collection":
+      case "java.util.List":
+        return CodeBlock.of("$T.emptyList()", Collections.class);
+      case "java.util.Set":
+        return CodeBlock.of("$T.emptySet()", Collections.class);
+      case "java.util.SortedSet":
+        return CodeBlock.of("$T.emptySortedSet()", Collections.class);
+      case "java.util.NavigableSet":
+        return CodeBlock.of("$T.emptyNavigableSet()", Collections.class);
+      case "java.util.Map":
+        return CodeBlock.of("$T.emptyMap()", Collections.class);
+      case "java.util.SortedMap":
+        return CodeBlock.of("$T.emptySortedMap()", Collections.class);
+      case "java.util.NavigableMap":
+        return CodeBlock.of("$T.emptyNavigableMap()", Collections.class);
+      case "com.google.common.collect.ImmutableList":
+      case "com.google.common.collect.ImmutableSet":
+      case "com.google.common.collect.ImmutableSortedSet":
+      case "com.google.common.collect.ImmutableMap":
+      case "com.google.common.collect.ImmutableSortedMap":
+        return CodeBlock.of("$T.of()", ClassName.get(typeElement));
+      case "java.util.Optional":
+      case "java.util.OptionalInt":
+      case "java.util.OptionalLong":
       case "java.util.OptionalDouble":
-        return Optional.of(typeUtils.getPrimitiveType(TypeKind.DOUBLE));
-      case "java.util.Optional":
+        return CodeBlock.of("$T.empty()", ClassName.get(typeElement));
       case "com.google.common.base.Optional":
-        DeclaredType declaredType = MoreTypes.asDeclared(typeMirror);
-        // The size check is mostly in case we're looking at a raw type here.
-        if (declaredType.getTypeArguments().size() != 1) {
-          return Optional.empty();
+        return CodeBlock.of("$T.absent()", ClassName.get(typeElement));
+      default:
+        return null;
+    }
+  }
+
+  /** Returns whether {@code type} implements {@link Comparable}, for a natural order. */
+  private static boolean isComparable(TypeMirror type) {
+    switch (type.getKind()) {
+      case TYPEVAR:
+        return isComparable(MoreTypes.asTypeVariable(type).getUpperBound());
+      case INTERSECTION:
+        for (TypeMirror bound : MoreTypes.asIntersection(type).getBounds()) {
+          if (isComparable(bound)) {
+            return true;
+          }
         }
-        return Optional.of(declaredType.getTypeArguments().get(0));
+        return false;
+      case WILDCARD:
+        TypeMirror extendsBound = MoreTypes.asWildcard(type).getExtendsBound();
+        return extendsBound != null && isComparable(extendsBound);
+      case DECLARED:
+        TypeElement element = MoreTypes.asTypeElement(type);
+        if (element.getQualifiedName().contentEquals(Comparable.class.getName())) {
+          return true;
+        }
+        for (TypeMirror supertype : element.getInterfaces()) {
+          if (isComparable(supertype)) {
+            return true;
+          }
+        }
+        return isComparable(element.getSuperclass());
       default:
-        return Optional.empty();
+        return false;
+    }
+  }
+
+  /**
+   * Returns the condition under which {@code value} differs from the default of {@code prop}, for
+   * properties that {@link Property#omitsDefault() omit their default}.
+   */
+  private static CodeBlock nonDefaultCheck(Property prop, String value) {
+    if (prop.nullable()) {
+      return CodeBlock.of("$N != null", value);
+    }
+    TypeName type = prop.type;
+    if (type.equals(TypeName.BOOLEAN)) {
+      return CodeBlock.of("$N", value);
+    } else if (type.equals(TypeName.FLOAT)) {
+      // Compare bits so that -0.0f, which isn't restored as 0.0f, is still written.
+      return CodeBlock.of("$T.floatToRawIntBits($N) != 0", Float.class, value);
+    } else if (type.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of("$T.doubleToRawLongBits($N) != 0L", Double.class, value);
+    } else if (type.isPrimitive()) {
+      return CodeBlock.of("$N != 0", value);
+    } else if (prop.optional) {
+      return CodeBlock.of("$N.isPresent()", value);
+    } else if (prop.sorted) {
+      // An empty collection with a comparator isn't the natural-order default restored on read.
+      return CodeBlock.of("!$1N.isEmpty() || $1N.comparator() != null", value);
+    } else {
+      return CodeBlock.of("!$N.isEmpty()", value);
+    }
+  }
+
+  /**
+   * Skips a JSON null, leaving the property at its default or setting it to {@code clear} when
+   * there is one. Needed for primitives, which cannot hold the null read by their boxed adapter,
+   * for builders, whose setters may reject null or already hold a default, for properties that
+   * start out at a base value or restored default, and for adapters not known to be null-safe.
+   */
+  private static void addNullSkipping(CodeBlock.Builder block, ParameterSpec jsonReader,
+      @Nullable CodeBlock clear) {
+    block.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, JsonToken.class);
+    block.addStatement("$N.nextNull()", jsonReader);
+    if (clear != null) {
+      block.add(clear);
     }
+    block.addStatement("continue");
+    block.endControlFlow();
   }
 
   private static void addFieldSetting(CodeBlock.Builder block,
                                       Property prop,
                                       Map<Property, FieldSpec> fields,
-                                      FieldSpec adapter,
-                                      ParameterSpec jsonReader) {
-    block.addStatement("$N = $N.read($N)", fields.get(prop), adapter, jsonReader);
+                                      CodeBlock value) {
+    block.addStatement("$N = $L", fields.get(prop), value);
+  }
+
+  /**
+   * Returns the read or write {@code method} with its body timed, recording the duration and
+   * whether it threw to the adapter's {@code METRICS}, and to a JFR event of its {@code EVENTS}
+   * while they're enabled.
+   */
+  private MethodSpec instrumented(MethodSpec method, boolean read) {
+    MethodSpec.Builder wrapped = MethodSpec.methodBuilder(method.name)
+        .addJavadoc(method.javadoc)
+        .addAnnotations(method.annotations)
+        .addModifiers(method.modifiers)
+        .addTypeVariables(method.typeVariables)
+        .returns(method.returnType)
+        .addParameters(method.parameters)
+        .addExceptions(method.exceptions);
+    if (metrics) {
+      wrapped.addStatement("long _start = $T.nanoTime()", System.class);
+    }
+    if (jfr) {
+      wrapped.addStatement("$T _span = EVENTS.isEnabled() ? EVENTS.$N() : null",
+          AdapterEvents.Span.class, read ? "beginRead" : "beginWrite");
+    }
+    wrapped.addStatement("boolean _failed = false");
+    wrapped.beginControlFlow("try");
+    wrapped.addCode(method.code);
+    // Errors like a StackOverflowError on deep nesting fail the call too. The precise rethrow
+    // keeps the method's throws clause.
+    wrapped.nextControlFlow("catch ($T e)", Throwable.class);
+    wrapped.addStatement("_failed = true");
+    wrapped.addStatement("throw e");
+    wrapped.nextControlFlow("finally");
+    if (metrics) {
+      wrapped.addStatement("METRICS.$N($T.nanoTime() - _start, _failed)",
+          read ? "recordRead" : "recordWrite", System.class);
+    }
+    if (jfr) {
+      wrapped.beginControlFlow("if (_span != null)")
+          .addStatement("_span.finish(_failed)")
+          .endControlFlow();
+    }
+    wrapped.endControlFlow();
+    return wrapped.build();
   }
 
   private MethodSpec createWriteMethod(TypeName autoValueClassName,
       List<Property> properties,
       ImmutableMap<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters,
       ClassName jsonAdapter,
-      List<TypeVariableName> typeParams) {
+      List<TypeVariableName> typeParams,
+      @Nullable Map<String, String> shortNames,
+      Map<Property, Long> versionBits,
+      boolean cacheSerialized,
+      boolean propertiesOnly,
+      @Nullable String viewMethodName) {
     ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
     ParameterSpec annotatedParam = ParameterSpec.builder(autoValueClassName, "object").build();
-    MethodSpec.Builder writeMethod = MethodSpec.methodBuilder("write")
-        .addAnnotation(Override.class)
+    String methodName = viewMethodName != null ? viewMethodName
+        : propertiesOnly ? "writeProperties"
+        : cacheSerialized && shortNames == null ? "writeUncached" : "write";
+    MethodSpec.Builder writeMethod = MethodSpec.methodBuilder(methodName)
         .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
             .addMember("value", "\"unchecked\"")
             .build())
-        .addModifiers(PUBLIC)
         .addParameter(jsonWriter)
         .addParameter(annotatedParam)
         .addException(IOException.class);
+    if (viewMethodName != null) {
+      // called by the adapter returned for the view
+      writeMethod.addModifiers(PRIVATE);
+    } else if (shortNames != null) {
+      // called by the public write method and by the compact adapter
+      writeMethod.addModifiers(PRIVATE)
+          .addParameter(TypeName.BOOLEAN, "compact");
+    } else {
+      writeMethod.addAnnotation(Override.class)
+          .addModifiers(PUBLIC);
+    }
 
-    writeMethod.beginControlFlow("if ($N == null)", annotatedParam);
-    writeMethod.addStatement("$N.nullValue()", jsonWriter);
-    writeMethod.addStatement("return");
-    writeMethod.endControlFlow();
+    if (!propertiesOnly) {
+      writeMethod.beginControlFlow("if ($N == null)", annotatedParam);
+      writeMethod.addStatement("$N.nullValue()", jsonWriter);
+      writeMethod.addStatement("return");
+      writeMethod.endControlFlow();
+    }
+
+    // Nullable values are read into a local once. Reserve the names already in scope.
+    NameAllocator valueNames = new NameAllocator();
+    valueNames.newName(jsonWriter.name);
+    valueNames.newName(annotatedParam.name);
+    valueNames.newName("compact");
+    for (FieldSpec adapterField : adapters.values()) {
+      valueNames.newName(adapterField.name);
+    }
+    for (Property prop : properties) {
+      if (prop.customAdapter != null) {
+        valueNames.newName(prop.customAdapter.field.name);
+      }
+    }
 
-    writeMethod.addStatement("$N.beginObject()", jsonWriter);
+    if (!propertiesOnly) {
+      writeMethod.addStatement("$N.beginObject()", jsonWriter);
+    }
     for (Property prop : properties) {
       if (prop.isTransient()) {
         continue;
       }
-      if (prop.hasSerializedNameAnnotation()) {
-        writeMethod.addStatement("$N.name($S)", jsonWriter, prop.serializedName());
-      } else if (useFieldNamePolicy) {
-        writeMethod.addStatement("$N.name(realFieldNames.get($S))", jsonWriter, prop.humanName);
-      } else {
-        writeMethod.addStatement("$N.name($S)", jsonWriter, prop.humanName);
+      Long versionBit = versionBits.get(prop);
+      if (versionBit != null) {
+        writeMethod.beginControlFlow("if ((versionMask & $L) != 0)", maskLiteral(versionBit));
       }
-      // for adapters handling non-primitive values, initialize the
-      // adapter only when the value is actually present (non-null),
-      // otherwise use a generic method of writing the null value
-      FieldSpec adapterField = adapters.get(prop.type);
+      FieldSpec adapterField = adapterField(adapters, prop);
       CodeBlock.Builder block = CodeBlock.builder();
-      if (!prop.type.isPrimitive()) {
-          writeMethod.beginControlFlow("if ($N.$N() == null)", annotatedParam, prop.methodName);
-          writeMethod.addStatement("$N.nullValue()", jsonWriter);
-          writeMethod.nextControlFlow("else");
-          addConditionalAdapterAssignment(block, adapterField, prop, jsonAdapter, typeParams);
-          writeMethod.addCode(block.build());
-          writeMethod.addStatement("$N.write($N, $N.$N())", adapterField, jsonWriter, annotatedParam, prop.methodName);
-          writeMethod.endControlFlow();
+      if (prop.omitsDefault()) {
+        // leave out the name as well, so the reader restores the default
+        String value = valueNames.newName(prop.humanName);
+        writeMethod.addStatement("$T $N = $N.$N()", prop.type, value, annotatedParam,
+            prop.methodName);
+        writeMethod.beginControlFlow("if ($L)", nonDefaultCheck(prop, value));
+        addName(writeMethod, jsonWriter, prop, shortNames);
+        addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+        writeMethod.addCode(block.build());
+        writeMethod.addStatement("$N.write($N, $N)", adapterField, jsonWriter, value);
+        writeMethod.endControlFlow();
+      } else if (prop.nullable() && !prop.type.isPrimitive()) {
+        // for nullable values, initialize the adapter only when the value
+        // is actually present (non-null), otherwise use a generic method of
+        // writing the null value. AutoValue already rejects null for the rest.
+        addName(writeMethod, jsonWriter, prop, shortNames);
+        String value = valueNames.newName(prop.humanName);
+        writeMethod.addStatement("$T $N = $N.$N()", prop.type, value, annotatedParam,
+            prop.methodName);
+        writeMethod.beginControlFlow("if ($N == null)", value);
+        writeMethod.addStatement("$N.nullValue()", jsonWriter);
+        writeMethod.nextControlFlow("else");
+        addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+        writeMethod.addCode(block.build());
+        writeMethod.addStatement("$N.write($N, $N)", adapterField, jsonWriter, value);
+        writeMethod.endControlFlow();
       } else {
+        addName(writeMethod, jsonWriter, prop, shortNames);
         block.add("{\n");
         block.indent();
-        addConditionalAdapterAssignment(block, adapterField, prop, jsonAdapter, typeParams);
+        addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
         block.addStatement("$N.write($N, $N.$N())", adapterField, jsonWriter, annotatedParam, prop.methodName);
         block.unindent();
         block.add("}\n");
         writeMethod.addCode(block.build());
       }
+      if (versionBit != null) {
+        writeMethod.endControlFlow();
+      }
+    }
+    if (!propertiesOnly) {
+      writeMethod.addStatement("$N.endObject()", jsonWriter);
     }
-    writeMethod.addStatement("$N.endObject()", jsonWriter);
 
     return writeMethod.build();
   }
 
+  private void addName(MethodSpec.Builder writeMethod, ParameterSpec jsonWriter, Property prop,
+      @Nullable Map<String, String> shortNames) {
+    CodeBlock name = nameOf(prop);
+    if (shortNames != null) {
+      name = CodeBlock.of("compact ? $S : $L", shortNames.get(prop.humanName), name);
+    }
+    writeMethod.addStatement("$N.name($L)", jsonWriter, name);
+  }
+
+  /** Returns an expression for the name {@code prop} is written with. */
+  private CodeBlock nameOf(Property prop) {
+    if (prop.hasSerializedNameAnnotation()) {
+      return CodeBlock.of("$S", prop.serializedName());
+    } else if (useFieldNamePolicy) {
+      return CodeBlock.of("realFieldNames.get($S)", prop.humanName);
+    } else {
+      return CodeBlock.of("$S", prop.humanName);
+    }
+  }
+
+  /**
+   * Implements {@link ColumnarAdapter} with a {@code ColumnarListAdapter} that writes and reads
+   * the rows of a list positionally. The rows are written by {@code writeColumnarRow} and read by
+   * the given {@code readColumnarRow}, which are members of the adapter itself so that they share
+   * its lazily assigned adapter fields.
+   */
+  private void addColumnarMethod(TypeSpec.Builder classBuilder,
+      TypeName autoValueTypeName,
+      List<Property> properties,
+      ImmutableMap<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters,
+      ClassName jsonAdapter,
+      List<TypeVariableName> typeParams,
+      MethodSpec readColumnarRow) {
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec annotatedParam = ParameterSpec.builder(autoValueTypeName, "object").build();
+    ParameterSpec name = ParameterSpec.builder(String.class, "_name").build();
+
+    MethodSpec.Builder writeHeader = MethodSpec.methodBuilder("writeHeader")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addException(IOException.class);
+    MethodSpec.Builder writeRow = MethodSpec.methodBuilder("writeColumnarRow")
+        .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+            .addMember("value", "\"unchecked\"")
+            .build())
+        .addModifiers(PRIVATE)
+        .addParameter(jsonWriter)
+        .addParameter(annotatedParam)
+        .addException(IOException.class);
+    MethodSpec.Builder column = MethodSpec.methodBuilder("column")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .returns(TypeName.INT)
+        .addParameter(name);
+
+    writeRow.beginControlFlow("if ($N == null)", annotatedParam);
+    writeRow.addStatement("$N.nullValue()", jsonWriter);
+    writeRow.addStatement("return");
+    writeRow.endControlFlow();
+
+    NameAllocator valueNames = new NameAllocator();
+    valueNames.newName(jsonWriter.name);
+    valueNames.newName(annotatedParam.name);
+    for (FieldSpec adapterField : adapters.values()) {
+      valueNames.newName(adapterField.name);
+    }
+    for (Property prop : properties) {
+      if (prop.customAdapter != null) {
+        valueNames.newName(prop.customAdapter.field.name);
+      }
+    }
+
+    writeHeader.addStatement("$N.beginArray()", jsonWriter);
+    writeRow.addStatement("$N.beginArray()", jsonWriter);
+    column.beginControlFlow("switch ($N)", name);
+    CodeBlock.Builder otherNames = CodeBlock.builder();
+    for (int i = 0; i < properties.size(); i++) {
+      Property prop = properties.get(i);
+      if (prop.isTransient()) {
+        continue;
+      }
+      writeHeader.addStatement("$N.value($L)", jsonWriter, nameOf(prop));
+
+      // Values are positional, so nulls are always written.
+      FieldSpec adapterField = adapterField(adapters, prop);
+      CodeBlock.Builder block = CodeBlock.builder();
+      if (prop.nullable() && !prop.type.isPrimitive()) {
+        String value = valueNames.newName(prop.humanName);
+        writeRow.addStatement("$T $N = $N.$N()", prop.type, value, annotatedParam,
+            prop.methodName);
+        writeRow.beginControlFlow("if ($N == null)", value);
+        writeRow.addStatement("$N.nullValue()", jsonWriter);
+        writeRow.nextControlFlow("else");
+        addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+        writeRow.addCode(block.build());
+        writeRow.addStatement("$N.write($N, $N)", adapterField, jsonWriter, value);
+        writeRow.endControlFlow();
+      } else {
+        block.add("{\n");
+        block.indent();
+        addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+        block.addStatement("$N.write($N, $N.$N())", adapterField, jsonWriter, annotatedParam, prop.methodName);
+        block.unindent();
+        block.add("}\n");
+        writeRow.addCode(block.build());
+      }
+
+      if (prop.hasSerializedNameAnnotation()) {
+        for (String alternate : prop.serializedNameAlternate()) {
+          column.addCode("case $S:\n", alternate);
+        }
+        column.addCode("case $S:\n", prop.serializedName());
+        column.addStatement("return $L", i);
+      } else {
+        otherNames.beginControlFlow("if ($L.equals($N))", nameOf(prop), name);
+        otherNames.addStatement("return $L", i);
+        otherNames.endControlFlow();
+      }
+    }
+    writeHeader.addStatement("$N.endArray()", jsonWriter);
+    writeRow.addStatement("$N.endArray()", jsonWriter);
+    column.beginControlFlow("default:");
+    column.addCode(otherNames.build());
+    column.addStatement("return -1");
+    column.endControlFlow();
+    column.endControlFlow();
+
+    ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
+    ParameterSpec columns = ParameterSpec.builder(int[].class, "_columns").build();
+    TypeSpec listAdapter = TypeSpec.anonymousClassBuilder("")
+        .superclass(ParameterizedTypeName.get(
+            ClassName.get(ColumnarListAdapter.class), autoValueTypeName))
+        .addMethod(writeHeader.build())
+        .addMethod(MethodSpec.methodBuilder("writeRow")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(jsonWriter)
+            .addParameter(annotatedParam)
+            .addException(IOException.class)
+            .addStatement("$N($N, $N)", writeRow.build(), jsonWriter, annotatedParam)
+            .build())
+        .addMethod(column.build())
+        .addMethod(MethodSpec.methodBuilder("readRow")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(autoValueTypeName)
+            .addParameter(jsonReader)
+            .addParameter(columns)
+            .addException(IOException.class)
+            .addStatement("return $N($N, $N)", readColumnarRow, jsonReader, columns)
+            .build())
+        .build();
+    // created once, so that calls to columnar() don't allocate
+    FieldSpec listAdapterField = FieldSpec.builder(ParameterizedTypeName.get(
+            ClassName.get(ColumnarListAdapter.class), autoValueTypeName),
+            "columnarAdapter", PRIVATE, FINAL)
+        .initializer("$L", listAdapter)
+        .build();
+    classBuilder
+        .addMethod(writeRow.build())
+        .addMethod(readColumnarRow)
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(ColumnarAdapter.class),
+            autoValueTypeName))
+        .addField(listAdapterField)
+        .addMethod(MethodSpec.methodBuilder("columnar")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class),
+                ParameterizedTypeName.get(ClassName.get(List.class), autoValueTypeName)))
+            .addStatement("return $N", listAdapterField)
+            .build());
+  }
+
+  /**
+   * Implements {@link DeltaAdapter}, with a {@code writeDelta} method that writes the properties
+   * that aren't equal to those of the base value, and the given {@code readDelta} method.
+   */
+  private void addDeltaMethods(TypeSpec.Builder classBuilder,
+      TypeName autoValueTypeName,
+      List<Property> properties,
+      ImmutableMap<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters,
+      ClassName jsonAdapter,
+      List<TypeVariableName> typeParams,
+      @Nullable BuilderContext builderContext,
+      Messager messager,
+      MethodSpec readDelta) {
+    ParameterSpec jsonWriter = ParameterSpec.builder(JsonWriter.class, "jsonWriter").build();
+    ParameterSpec base = ParameterSpec.builder(autoValueTypeName, "_base").build();
+    ParameterSpec annotatedParam = ParameterSpec.builder(autoValueTypeName, "object").build();
+    MethodSpec.Builder writeDelta = MethodSpec.methodBuilder("writeDelta")
+        .addAnnotation(Override.class)
+        .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+            .addMember("value", "\"unchecked\"")
+            .build())
+        .addModifiers(PUBLIC)
+        .addParameter(jsonWriter)
+        .addParameter(base)
+        .addParameter(annotatedParam)
+        .addException(IOException.class);
+
+    writeDelta.beginControlFlow("if ($N == null || $N == null)", base, annotatedParam);
+    writeDelta.addStatement("write($N, $N)", jsonWriter, annotatedParam);
+    writeDelta.addStatement("return");
+    writeDelta.endControlFlow();
+
+    writeDelta.addStatement("$N.beginObject()", jsonWriter);
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      if (builderContext != null) {
+        Set<ExecutableElement> setters = builderContext.setters().get(prop.humanName);
+        if (setters == null || setters.isEmpty()) {
+          messager.printMessage(Diagnostic.Kind.ERROR,
+              "@GsonDelta requires a setter for " + prop.humanName, prop.element);
+        }
+      }
+      CodeBlock baseValue = CodeBlock.of("$N.$N()", base, prop.methodName);
+      CodeBlock value = CodeBlock.of("$N.$N()", annotatedParam, prop.methodName);
+      if (prop.type.equals(TypeName.FLOAT)) {
+        writeDelta.beginControlFlow("if ($1T.floatToIntBits($2L) != $1T.floatToIntBits($3L))",
+            Float.class, baseValue, value);
+      } else if (prop.type.equals(TypeName.DOUBLE)) {
+        writeDelta.beginControlFlow(
+            "if ($1T.doubleToLongBits($2L) != $1T.doubleToLongBits($3L))",
+            Double.class, baseValue, value);
+      } else if (prop.type.isPrimitive()) {
+        writeDelta.beginControlFlow("if ($L != $L)", baseValue, value);
+      } else if (prop.type instanceof ArrayTypeName) {
+        writeDelta.beginControlFlow("if (!$T.equals($L, $L))", Arrays.class, baseValue, value);
+      } else {
+        writeDelta.beginControlFlow("if (!$T.equals($L, $L))", Objects.class, baseValue, value);
+      }
+      // A null clears the base value, so it's written whatever the writer's setting. Other
+      // values are written with the writer's setting.
+      boolean nullable = prop.nullable() && !prop.type.isPrimitive();
+      if (nullable) {
+        writeDelta.beginControlFlow("if ($L == null)", value);
+        writeDelta.addStatement("$T.writeNullMember($N, $L)", Util.class, jsonWriter,
+            nameOf(prop));
+        writeDelta.nextControlFlow("else");
+      }
+      writeDelta.addStatement("$N.name($L)", jsonWriter, nameOf(prop));
+      FieldSpec adapterField = adapterField(adapters, prop);
+      CodeBlock.Builder block = CodeBlock.builder();
+      addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+      writeDelta.addCode(block.build());
+      if (prop.deltaType) {
+        writeDelta.addStatement("$T.writeDelta($N, $N, $L, $L)", Util.class, adapterField,
+            jsonWriter, baseValue, value);
+      } else {
+        writeDelta.addStatement("$N.write($N, $L)", adapterField, jsonWriter, value);
+      }
+      if (nullable) {
+        writeDelta.endControlFlow();
+      }
+      writeDelta.endControlFlow();
+    }
+    writeDelta.addStatement("$N.endObject()", jsonWriter);
+
+    classBuilder
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(DeltaAdapter.class),
+            autoValueTypeName))
+        .addMethod(writeDelta.build())
+        .addMethod(readDelta);
+  }
+
   private MethodSpec createReadMethod(ClassName className,
       ClassName autoValueClassName,
       TypeName autoValueTypeName,
       List<Property> properties,
       ImmutableMap<TypeName, FieldSpec> adapters,
+      Map<TypeName, ClassName> enumAdapters,
       ClassName jsonAdapter,
       List<TypeVariableName> typeParams,
       @Nullable BuilderContext builderContext,
-      ProcessingEnvironment processingEnvironment) {
+      ProcessingEnvironment processingEnvironment,
+      @Nullable Map<String, String> shortNames,
+      Map<Property, Long> versionBits,
+      ReadMode mode) {
+    boolean columnar = mode == ReadMode.ROW;
+    boolean delta = mode == ReadMode.DELTA;
     ParameterSpec jsonReader = ParameterSpec.builder(JsonReader.class, "jsonReader").build();
-    MethodSpec.Builder readMethod = MethodSpec.methodBuilder("read")
-        .addAnnotation(Override.class)
+    // For a columnar row, the indices of the properties its values belong to.
+    ParameterSpec columns = ParameterSpec.builder(int[].class, "_columns").build();
+    // For a delta, the value it applies to.
+    ParameterSpec base = ParameterSpec.builder(autoValueTypeName, "_base").build();
+    MethodSpec.Builder readMethod = MethodSpec.methodBuilder(mode.methodName);
+    if (!columnar) {
+      readMethod.addAnnotation(Override.class);
+    }
+    readMethod
         .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
             .addMember("value", "\"unchecked\"")
             .build())
-        .addModifiers(PUBLIC)
+        .addModifiers(columnar ? PRIVATE : PUBLIC)
         .returns(autoValueTypeName)
         .addParameter(jsonReader)
         .addException(IOException.class);
+    if (columnar) {
+      readMethod.addParameter(columns);
+    } else if (delta) {
+      readMethod.addParameter(base);
+    }
 
-    // Validate the builderContext if there is one.
+    // Validate the builderContext if there is one. The other read methods use the same builder,
+    // so only the regular read method reports errors.
     if (builderContext != null) {
       if (!builderContext.buildMethod().isPresent()) {
-        processingEnvironment.getMessager()
-            .printMessage(
-                Diagnostic.Kind.ERROR,
-                "Could not determine the build method. Make sure it is named \"build\".",
-                builderContext.builderType());
+        if (mode == ReadMode.OBJECT) {
+          processingEnvironment.getMessager()
+              .printMessage(
+                  Diagnostic.Kind.ERROR,
+                  "Could not determine the build method. Make sure it is named \"build\".",
+                  builderContext.builderType());
+        }
         return readMethod.build();
       }
 
@@ -786,21 +2490,25 @@ public class AutoValueGsonExtension extends AutoValueExtension {
             .collect(Collectors.toSet());
 
         if (annotatedMethods.size() > 1) {
-          processingEnvironment.getMessager()
-              .printMessage(
-                  Diagnostic.Kind.ERROR,
-                  "Too many @AutoValueGsonBuilder annotated builder methods.",
-                  annotatedMethods.stream().findAny().get()
-              );
+          if (mode == ReadMode.OBJECT) {
+            processingEnvironment.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Too many @AutoValueGsonBuilder annotated builder methods.",
+                    annotatedMethods.stream().findAny().get()
+                );
+          }
           return readMethod.build();
         }
 
         if (annotatedMethods.isEmpty()) {
-          processingEnvironment.getMessager().printMessage(
-              Diagnostic.Kind.ERROR,
-              "Too many builder methods. Annotate builder method with @AutoValueGsonBuilder.",
-              builderMethods.stream().findAny().get()
-          );
+          if (mode == ReadMode.OBJECT) {
+            processingEnvironment.getMessager().printMessage(
+                Diagnostic.Kind.ERROR,
+                "Too many builder methods. Annotate builder method with @AutoValueGsonBuilder.",
+                builderMethods.stream().findAny().get()
+            );
+          }
           return readMethod.build();
         }
       }
@@ -808,12 +2516,21 @@ public class AutoValueGsonExtension extends AutoValueExtension {
 
     ClassName token = ClassName.get(JsonToken.NULL.getDeclaringClass());
 
-    readMethod.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, token);
-    readMethod.addStatement("$N.nextNull()", jsonReader);
-    readMethod.addStatement("return null");
-    readMethod.endControlFlow();
+    if (delta) {
+      readMethod.beginControlFlow("if ($N == null)", base);
+      readMethod.addStatement("return read($N)", jsonReader);
+      readMethod.endControlFlow();
+    }
+
+    // The object of readProperties is already open.
+    if (mode != ReadMode.PROPERTIES) {
+      readMethod.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, token);
+      readMethod.addStatement("$N.nextNull()", jsonReader);
+      readMethod.addStatement("return null");
+      readMethod.endControlFlow();
 
-    readMethod.addStatement("$N.beginObject()", jsonReader);
+      readMethod.addStatement(columnar ? "$N.beginArray()" : "$N.beginObject()", jsonReader);
+    }
 
     // Will be empty if using a AutoValue builder
     Map<Property, FieldSpec> fields = new LinkedHashMap<>(properties.size());
@@ -851,6 +2568,34 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         readMethod.addStatement("$T $N = $T.$N()", builderField.get().type, builderField.get(),
             autoValueClassName, builderMethod.getSimpleName());
       }
+
+      if (delta) {
+        // Start out from the base value, including its transient properties.
+        for (Property prop : properties) {
+          CodeBlock.Builder block = CodeBlock.builder();
+          addBuilderFieldSetting(block, prop, CodeBlock.of("$N.$N()", base, prop.methodName),
+              builderField.get(), builderContext, processingEnvironment);
+          readMethod.addCode(block.build());
+        }
+      }
+
+      // Restore omitted defaults up front. Unset nullable and Optional properties, as well as
+      // property builders, already start out at their defaults.
+      for (Property prop : properties) {
+        if (delta || prop.isTransient() || !prop.omitsDefault() || prop.nullable() || prop.optional) {
+          continue;
+        }
+        Set<ExecutableElement> setters = builderContext.setters().get(prop.humanName);
+        if (setters == null || setters.isEmpty()) {
+          continue;
+        }
+        CodeBlock.Builder block = CodeBlock.builder();
+        CodeBlock defaultValue =
+            getDefaultValue(prop, FieldSpec.builder(prop.type, prop.humanName).build());
+        addBuilderFieldSetting(block, prop, defaultValue, builderField.get(), builderContext,
+            processingEnvironment);
+        readMethod.addCode(block.build());
+      }
     } else {
       // add the properties
       for (Property prop : properties) {
@@ -858,7 +2603,9 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         FieldSpec field = FieldSpec.builder(fieldType, prop.humanName).build();
         fields.put(prop, field);
 
-        CodeBlock defaultValue = getDefaultValue(prop, field);
+        CodeBlock defaultValue = delta
+            ? CodeBlock.of("$N.$N()", base, prop.methodName)
+            : getDefaultValue(prop, field);
         readMethod.addCode("$[$T $N = ", field.type, field);
         if (defaultValue != null) {
           readMethod.addCode(defaultValue);
@@ -869,67 +2616,133 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       }
     }
 
+    // Reads the value of each property, wherever its name is matched below.
+    Map<Property, CodeBlock> propertyReads = new LinkedHashMap<>();
+    for (Property prop : properties) {
+      if (prop.isTransient()) {
+        continue;
+      }
+      FieldSpec adapterField = adapterField(adapters, prop);
+      CodeBlock.Builder block = CodeBlock.builder();
+      Long versionBit = versionBits.get(prop);
+      if (versionBit != null) {
+        // excluded by the version, like an unknown name
+        block.beginControlFlow("if ((versionMask & $L) == 0)", maskLiteral(versionBit));
+        block.addStatement("$N.skipValue()", jsonReader);
+        block.addStatement("continue");
+        block.endControlFlow();
+      }
+      // A null in a delta clears the base value of a nullable property, so it can't be skipped.
+      boolean clearsOnNull = delta && prop.nullable() && !prop.type.isPrimitive();
+      if (prop.type.isPrimitive() || builderField.isPresent() && !clearsOnNull) {
+        addNullSkipping(block, jsonReader, null);
+      } else if (!readsNullItself(prop, adapterField)
+          // a null read by the adapter would replace the base value or restored default
+          || (delta ? !prop.nullable() || prop.deltaType
+              : getDefaultValue(prop, fields.get(prop)) != null)) {
+        CodeBlock clear = null;
+        if (clearsOnNull) {
+          CodeBlock.Builder clearBlock = CodeBlock.builder();
+          if (builderField.isPresent()) {
+            addBuilderFieldSetting(clearBlock, prop, CodeBlock.of("($T) null", prop.type),
+                builderField.get(), builderContext, processingEnvironment);
+          } else {
+            addFieldSetting(clearBlock, prop, fields, CodeBlock.of("null"));
+          }
+          clear = clearBlock.build();
+        }
+        addNullSkipping(block, jsonReader, clear);
+      }
+      addConditionalAdapterAssignment(block, adapterField, prop, enumAdapters, jsonAdapter);
+      CodeBlock value = delta && prop.deltaType
+          ? CodeBlock.of("$T.readDelta($N, $N, $N.$N())", Util.class, adapterField, jsonReader,
+              base, prop.methodName)
+          : CodeBlock.of("$N.read($N)", adapterField, jsonReader);
+      if (builderField.isPresent()) {
+        addBuilderFieldSetting(block, prop, value, builderField.get(), builderContext,
+            processingEnvironment);
+      } else {
+        addFieldSetting(block, prop, fields, value);
+      }
+      propertyReads.put(prop, block.build());
+    }
+
+    if (columnar) {
+      readMethod.beginControlFlow("for (int _i = 0; $N.hasNext(); _i++)", jsonReader);
+      readMethod.beginControlFlow("switch (_i < $1N.length ? $1N[_i] : -1)", columns);
+      for (Property prop : propertyReads.keySet()) {
+        readMethod.beginControlFlow("case $L:", properties.indexOf(prop));
+        readMethod.addCode(propertyReads.get(prop));
+        readMethod.addStatement("break");
+        readMethod.endControlFlow();
+      }
+      readMethod.beginControlFlow("default:");
+      readMethod.addStatement("$N.skipValue()", jsonReader);
+      readMethod.endControlFlow();
+      readMethod.endControlFlow(); // switch
+      readMethod.endControlFlow(); // for
+      readMethod.addStatement("$N.endArray()", jsonReader);
+      addReadResult(readMethod, className, autoValueTypeName, fields, builderField,
+          builderContext);
+      return readMethod.build();
+    }
+
     readMethod.beginControlFlow("while ($N.hasNext())", jsonReader);
 
     FieldSpec name = FieldSpec.builder(String.class, "_name").build();
     readMethod.addStatement("$T $N = $N.nextName()", name.type, name, jsonReader);
 
-    readMethod.beginControlFlow("if ($N.peek() == $T.NULL)", jsonReader, token);
-    readMethod.addStatement("$N.nextNull()", jsonReader);
-    readMethod.addStatement("continue");
-    readMethod.endControlFlow();
-
     readMethod.beginControlFlow("switch ($N)", name);
-    for (Property prop : properties) {
-      if (prop.isTransient()) {
-        continue;
-      }
+    for (Property prop : propertyReads.keySet()) {
       if (prop.hasSerializedNameAnnotation()) {
+        String shortName = shortNames != null ? shortNames.get(prop.humanName) : null;
+        if (shortName != null && !shortName.equals(prop.serializedName())
+            && !Arrays.asList(prop.serializedNameAlternate()).contains(shortName)) {
+          readMethod.addCode("case $S:\n", shortName);
+        }
         for (String alternate : prop.serializedNameAlternate()) {
           readMethod.addCode("case $S:\n", alternate);
         }
         readMethod.beginControlFlow("case $S:", prop.serializedName());
-        FieldSpec adapterField = adapters.get(prop.type);
-        CodeBlock.Builder block = CodeBlock.builder();
-        addConditionalAdapterAssignment(block, adapterField, prop, jsonAdapter, typeParams);
-        if (builderField.isPresent()) {
-          addBuilderFieldSetting(
-              block, prop, adapterField, jsonReader, builderField.get(), builderContext, processingEnvironment);
-        } else {
-          addFieldSetting(block, prop, fields, adapterField, jsonReader);
+        if (nameStats && prop.serializedNameAlternate().length > 0) {
+          readMethod.beginControlFlow("if (!$S.equals($N))", prop.serializedName(), name)
+              .addStatement("NAME_STATS.alternate($N)", name)
+              .endControlFlow();
         }
-        readMethod.addCode(block.build());
+        readMethod.addCode(propertyReads.get(prop));
         readMethod.addStatement("break");
         readMethod.endControlFlow();
       }
     }
+    if (shortNames != null) {
+      // The remaining names depend on the field naming policy, but their short keys don't.
+      for (Property prop : propertyReads.keySet()) {
+        if (!prop.hasSerializedNameAnnotation()) {
+          readMethod.beginControlFlow("case $S:", shortNames.get(prop.humanName));
+          readMethod.addCode(propertyReads.get(prop));
+          readMethod.addStatement("break");
+          readMethod.endControlFlow();
+        }
+      }
+    }
 
     // skip value if field is not serialized...
     readMethod.beginControlFlow("default:");
-    for (Property prop : properties) {
-      if (prop.isTransient()) {
-        continue;
-      }
+    for (Property prop : propertyReads.keySet()) {
       if (!prop.hasSerializedNameAnnotation()) {
         if (useFieldNamePolicy) {
           readMethod.beginControlFlow("if (realFieldNames.get($S).equals(_name))", prop.humanName);
         } else {
           readMethod.beginControlFlow("if ($S.equals(_name))", prop.humanName);
         }
-        FieldSpec adapterField = adapters.get(prop.type);
-        CodeBlock.Builder block = CodeBlock.builder();
-        addConditionalAdapterAssignment(block, adapterField, prop, jsonAdapter, typeParams);
-        if (builderField.isPresent()) {
-          addBuilderFieldSetting(
-              block, prop, adapterField, jsonReader, builderField.get(), builderContext, processingEnvironment);
-        } else {
-          addFieldSetting(block, prop, fields, adapterField, jsonReader);
-        }
-        readMethod.addCode(block.build());
+        readMethod.addCode(propertyReads.get(prop));
         readMethod.addStatement("continue");
         readMethod.endControlFlow();
       }
     }
+    if (nameStats) {
+      readMethod.addStatement("NAME_STATS.unknown($N)", name);
+    }
     readMethod.addStatement("$N.skipValue()", jsonReader);
     readMethod.endControlFlow(); // default case
 
@@ -937,7 +2750,17 @@ public class AutoValueGsonExtension extends AutoValueExtension {
     readMethod.endControlFlow(); // while
 
     readMethod.addStatement("$N.endObject()", jsonReader);
+    addReadResult(readMethod, className, autoValueTypeName, fields, builderField, builderContext);
+
+    return readMethod.build();
+  }
 
+  private static void addReadResult(MethodSpec.Builder readMethod,
+      ClassName className,
+      TypeName autoValueTypeName,
+      Map<Property, FieldSpec> fields,
+      Optional<FieldSpec> builderField,
+      @Nullable BuilderContext builderContext) {
     if (builderField.isPresent()) {
       readMethod.addStatement("return $N.$L()", builderField.get(), builderContext.buildMethod().get().getSimpleName());
     } else {
@@ -957,8 +2780,6 @@ public class AutoValueGsonExtension extends AutoValueExtension {
       format.append(")");
       readMethod.addStatement(format.toString(), fields.values().toArray());
     }
-
-    return readMethod.build();
   }
 
   /**
@@ -973,19 +2794,11 @@ public class AutoValueGsonExtension extends AutoValueExtension {
         return CodeBlock.of("$T.valueOf(null)", field.type);
       }
     }
-    if (prop.nullable()) {
-      return null;
-    }
-    TypeMirror type = prop.element.getReturnType();
-    if (type.getKind() != TypeKind.DECLARED) {
-      return null;
-    }
-    TypeElement typeElement = MoreTypes.asTypeElement(type);
-    if (typeElement == null) {
+    if (prop.nullable() || !prop.omitDefaults) {
       return null;
     }
-
-    return null;
+    // Restores the empty value omitted on write.
+    return prop.emptyValue;
   }
 
   /**
@@ -1029,14 +2842,15 @@ public class AutoValueGsonExtension extends AutoValueExtension {
   private static CodeBlock makeParameterizedType(TypeName typeName, List<TypeVariableName> typeParams) {
     CodeBlock.Builder block = CodeBlock.builder();
     if (typeName instanceof TypeVariableName) {
-      block.add("$T.get(typeArgs[$L])", TypeToken.class, typeParams.indexOf(typeName));
+      block.add("$T.typeToken(typeArgs[$L])", Util.class, typeParams.indexOf(typeName));
     } else{
       ParameterizedTypeName paramType = (ParameterizedTypeName) typeName;
-      block.add("$T.getParameterized($T.class", TypeToken.class, paramType.rawType);
+      block.add("$T.typeToken($T.parameterizedType($T.class", Util.class, Util.class,
+          paramType.rawType);
       for (TypeName type : paramType.typeArguments) {
         buildParameterizedTypeArguments(block, type, typeParams);
       }
-      block.add(")");
+      block.add("))");
     }
     return block.build();
   }
@@ -1046,11 +2860,11 @@ public class AutoValueGsonExtension extends AutoValueExtension {
     block.add(", ");
     if (typeArg instanceof ParameterizedTypeName) { // type argument itself can be parameterized
       ParameterizedTypeName paramTypeArg = (ParameterizedTypeName) typeArg;
-      block.add("$T.getParameterized($T.class", TypeToken.class, paramTypeArg.rawType);
+      block.add("$T.parameterizedType($T.class", Util.class, paramTypeArg.rawType);
       for (TypeName type : paramTypeArg.typeArguments) {
         buildParameterizedTypeArguments(block, type, typeParams);
       }
-      block.add(").getType()");
+      block.add(")");
     } else if (typeArg instanceof TypeVariableName) {
       block.add("typeArgs[$L]", typeParams.indexOf(typeArg));
     } else if (typeArg instanceof WildcardTypeName) {
@@ -80,6 +80,12 @@ abstract class ProguardConfig {
     out.append("    <init>(")
         .append(constructorArgs)
         .append(");\n");
+    if (adapterConstructorParams().isEmpty()) {
+      // and the singleton of a GsonStandalone adapter, which GenerateTypeAdapter.FACTORY returns
+      out.append("    public static ")
+          .append(adapterCanonicalName)
+          .append(" INSTANCE;\n");
+    }
     out.append("}\n");
   }
 }
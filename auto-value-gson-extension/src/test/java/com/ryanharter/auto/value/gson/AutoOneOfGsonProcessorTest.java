@@ -0,0 +1,226 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.auto.value.processor.AutoOneOfProcessor;
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+@RunWith(JUnit4.class)
+public class AutoOneOfGsonProcessorTest {
+  private static final String GENERATED =
+      SourceVersion.latestSupported().compareTo(SourceVersion.RELEASE_8) > 0
+          ? "javax.annotation.processing.Generated"
+          : "javax.annotation.Generated";
+
+  @Test public void wrapperObject() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Pet", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoOneOf;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "@GenerateTypeAdapter\n"
+        + "@AutoOneOf(Pet.Kind.class)\n"
+        + "abstract class Pet {\n"
+        + "  enum Kind { DOG, NONE }\n"
+        + "  abstract Kind getKind();\n"
+        + "  @SerializedName(value = \"doggo\", alternate = \"pupper\") abstract String dog();\n"
+        + "  abstract void none();\n"
+        + "}\n"
+    );
+
+    JavaFileObject expected = JavaFileObjects.forSourceString("test/Pet_GsonTypeAdapter", ""
+        + "package test;\n"
+        + "\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.JsonParseException;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.google.gson.stream.JsonReader;\n"
+        + "import com.google.gson.stream.JsonToken;\n"
+        + "import com.google.gson.stream.JsonWriter;\n"
+        + "import java.io.IOException;\n"
+        + "import " + GENERATED + ";\n"
+        + "\n"
+        + "@Generated(\n"
+        + "    value = \"com.ryanharter.auto.value.gson.AutoOneOfGsonProcessor\",\n"
+        + "    comments = \"https://github.com/rharter/auto-value-gson\"\n"
+        + ")\n"
+        + "final class Pet_GsonTypeAdapter extends TypeAdapter<Pet> {\n"
+        + "  private volatile TypeAdapter<String> dog_adapter;\n"
+        + "\n"
+        + "  private final Gson gson;\n"
+        + "\n"
+        + "  Pet_GsonTypeAdapter(Gson gson) {\n"
+        + "    this.gson = gson;\n"
+        + "  }\n"
+        + "\n"
+        + "  @Override\n"
+        + "  public void write(JsonWriter jsonWriter, Pet object) throws IOException {\n"
+        + "    if (object == null) {\n"
+        + "      jsonWriter.nullValue();\n"
+        + "      return;\n"
+        + "    }\n"
+        + "    jsonWriter.beginObject();\n"
+        + "    switch (object.getKind()) {\n"
+        + "      case DOG: {\n"
+        + "        jsonWriter.name(\"doggo\");\n"
+        + "        TypeAdapter<String> dog_adapter = this.dog_adapter;\n"
+        + "        if (dog_adapter == null) {\n"
+        + "          this.dog_adapter = dog_adapter = gson.getAdapter(String.class);\n"
+        + "        }\n"
+        + "        dog_adapter.write(jsonWriter, object.dog());\n"
+        + "        break;\n"
+        + "      }\n"
+        + "      case NONE: {\n"
+        + "        jsonWriter.name(\"none\");\n"
+        + "        jsonWriter.beginObject();\n"
+        + "        jsonWriter.endObject();\n"
+        + "        break;\n"
+        + "      }\n"
+        + "    }\n"
+        + "    jsonWriter.endObject();\n"
+        + "  }\n"
+        + "\n"
+        + "  @Override\n"
+        + "  public Pet read(JsonReader jsonReader) throws IOException {\n"
+        + "    if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "      jsonReader.nextNull();\n"
+        + "      return null;\n"
+        + "    }\n"
+        + "    jsonReader.beginObject();\n"
+        + "    if (!jsonReader.hasNext()) {\n"
+        + "      throw new JsonParseException(\"Missing kind of Pet at \" + jsonReader.getPath());\n"
+        + "    }\n"
+        + "    Pet value = readValue(jsonReader.nextName(), jsonReader);\n"
+        + "    jsonReader.endObject();\n"
+        + "    return value;\n"
+        + "  }\n"
+        + "\n"
+        + "  private Pet readValue(String kind, JsonReader jsonReader) throws IOException {\n"
+        + "    switch (kind) {\n"
+        + "      case \"pupper\":\n"
+        + "      case \"doggo\": {\n"
+        + "        TypeAdapter<String> dog_adapter = this.dog_adapter;\n"
+        + "        if (dog_adapter == null) {\n"
+        + "          this.dog_adapter = dog_adapter = gson.getAdapter(String.class);\n"
+        + "        }\n"
+        + "        String value = dog_adapter.read(jsonReader);\n"
+        + "        if (value == null) {\n"
+        + "          throw new JsonParseException(\"Missing value of kind \\\"doggo\\\" of Pet at \" "
+        + "+ jsonReader.getPath());\n"
+        + "        }\n"
+        + "        return AutoOneOf_Pet.dog(value);\n"
+        + "      }\n"
+        + "      case \"none\": {\n"
+        + "        jsonReader.skipValue();\n"
+        + "        return AutoOneOf_Pet.none();\n"
+        + "      }\n"
+        + "      default: {\n"
+        + "        throw new JsonParseException(\"Unknown kind \\\"\" + kind + \"\\\" of Pet at \""
+        + " + jsonReader.getPath());\n"
+        + "      }\n"
+        + "    }\n"
+        + "  }\n"
+        + "\n"
+        + "  @Override\n"
+        + "  public String toString() {\n"
+        + "    return new StringBuilder().append(\"TypeAdapter(\").append(\"Pet\").append(\")\").toString();\n"
+        + "  }\n"
+        + "}\n"
+    );
+
+    assertAbout(javaSources())
+        .that(ImmutableList.of(source))
+        .processedWith(new AutoOneOfProcessor(), new AutoOneOfGsonProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void discriminator() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Shape", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoOneOf;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonOneOf;\n"
+        + "import java.util.List;\n"
+        + "@GenerateTypeAdapter\n"
+        + "@GsonOneOf(style = GsonOneOf.Style.DISCRIMINATOR, property = \"shape\")\n"
+        + "@AutoOneOf(Shape.Kind.class)\n"
+        + "abstract class Shape {\n"
+        + "  enum Kind { CIRCLE, POLYGON }\n"
+        + "  abstract Kind getKind();\n"
+        + "  abstract double getCircle();\n"
+        + "  abstract List<Double> getPolygon();\n"
+        + "}\n"
+    );
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoOneOfProcessor(), new AutoOneOfGsonProcessor())
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.Shape_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("case CIRCLE: {\n"
+            + "        jsonWriter.name(\"shape\").value(\"circle\");\n"
+            + "        jsonWriter.name(\"value\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.Shape_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("gson.getAdapter(new TypeToken<List<Double>>() {});");
+    assertThat(compilation)
+        .generatedSourceFile("test.Shape_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("if (\"shape\".equals(_name)) {\n"
+            + "        kind = jsonReader.nextString();\n"
+            + "      } else if (\"value\".equals(_name) && kind == null) {\n"
+            + "        buffered = Util.bufferValue(jsonReader);\n"
+            + "      } else if (\"value\".equals(_name)) {\n"
+            + "        value = readValue(kind, jsonReader);\n"
+            + "      } else {\n"
+            + "        jsonReader.skipValue();\n"
+            + "      }");
+    assertThat(compilation)
+        .generatedSourceFile("test.Shape_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("Double value = circle_adapter.read(jsonReader);\n"
+            + "        if (value == null) {\n"
+            + "          throw new JsonParseException(\"Missing value of kind \\\"circle\\\" of Shape at \" "
+            + "+ jsonReader.getPath());\n"
+            + "        }\n"
+            + "        return AutoOneOf_Shape.circle(value);");
+  }
+
+  @Test public void genericType_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Either", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoOneOf;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "@GenerateTypeAdapter\n"
+        + "@AutoOneOf(Either.Kind.class)\n"
+        + "abstract class Either<L, R> {\n"
+        + "  enum Kind { LEFT, RIGHT }\n"
+        + "  abstract Kind getKind();\n"
+        + "  abstract L left();\n"
+        + "  abstract R right();\n"
+        + "}\n"
+    );
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoOneOfProcessor(), new AutoOneOfGsonProcessor())
+        .compile(source);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining("@GenerateTypeAdapter doesn't support generic @AutoOneOf types.");
+  }
+}
@@ -34,6 +34,7 @@ import static com.google.testing.compile.Compiler.javac;
 import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
 import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
 import static javax.tools.JavaFileObject.Kind.OTHER;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
 
 @RunWith(JUnit4.class)
 public class AutoValueGsonExtensionTest {
@@ -140,6 +141,8 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
         + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
+        + "import com.ryanharter.auto.value.gson.internal.PrimitiveAdapters;\n"
         + "import com.ryanharter.auto.value.gson.internal.Util;\n"
         + "import com.ryanharter.auto.value.gson.internal.WildcardUtil;\n"
         + "import java.io.IOException;\n"
@@ -149,7 +152,6 @@ public class AutoValueGsonExtensionTest {
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.List;\n"
         + "import java.util.Map;\n"
         + "import java.util.Set;\n"
@@ -170,6 +172,32 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final TypeToken<?> immutableMap__string_number_type = "
+        + "Util.typeToken(Util.parameterizedType(ImmutableMap.class, String.class, "
+        + "Number.class));\n"
+        + "    private static final TypeToken<?> set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Set.class, String.class));\n"
+        + "    private static final TypeToken<?> map__string_set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Set.class, String.class)));\n"
+        + "    private static final TypeToken<?> list__wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(List.class, "
+        + "WildcardUtil.subtypeOf(String.class)));\n"
+        + "    private static final TypeToken<?> "
+        + "map__string_map__string_map__string_map__string_map__string_wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "WildcardUtil.subtypeOf(String.class)))))));\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\"},\n"
+        + "        new String[] {\"A\", \"B\", \"C\", \"D\", \"E\", \"F\", \"G\", \"H\", \"I\", \"J\", \"O\"},\n"
+        + "        new String[] {\"A\", \"B\", \"C\", \"D\", \"E\", \"F\", \"G\", \"H\", \"I\", \"J\", \"O\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\"});\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private volatile TypeAdapter<int[]> array__int_adapter;\n"
         + "    private volatile TypeAdapter<Integer> int__adapter;\n"
@@ -186,21 +214,8 @@ public class AutoValueGsonExtensionTest {
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"a\");\n"
-        + "      fields.add(\"b\");\n"
-        + "      fields.add(\"c\");\n"
-        + "      fields.add(\"d\");\n"
-        + "      fields.add(\"e\");\n"
-        + "      fields.add(\"f\");\n"
-        + "      fields.add(\"g\");\n"
-        + "      fields.add(\"h\");\n"
-        + "      fields.add(\"i\");\n"
-        + "      fields.add(\"j\");\n"
-        + "      fields.add(\"o\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -211,9 +226,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"a\"));\n"
-        + "      if (object.a() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -221,12 +234,11 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.a());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"b\"));\n"
-        + "      if (object.b() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "        if (array__int_adapter == null) {\n"
-        + "          this.array__int_adapter = array__int_adapter = gson.getAdapter(int[].class);\n"
+        + "          this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "        }\n"
         + "        array__int_adapter.write(jsonWriter, object.b());\n"
         + "      }\n"
@@ -239,9 +251,7 @@ public class AutoValueGsonExtensionTest {
         + "        int__adapter.write(jsonWriter, object.c());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_D\");\n"
-        + "      if (object.d() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -249,57 +259,47 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.d());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"e\"));\n"
-        + "      if (object.e() == null) {\n"
+        + "      String e = object.e();\n"
+        + "      if (e == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
         + "        }\n"
-        + "        string_adapter.write(jsonWriter, object.e());\n"
+        + "        string_adapter.write(jsonWriter, e);\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"f\"));\n"
-        + "      if (object.f() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<ImmutableMap<String, Number>> immutableMap__string_number_adapter "
         + "= this.immutableMap__string_number_adapter;\n"
         + "        if (immutableMap__string_number_adapter == null) {\n"
         + "          this.immutableMap__string_number_adapter = "
-        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class)"
-        + ");\n"
+        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "        }\n"
         + "        immutableMap__string_number_adapter.write(jsonWriter, object.f());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"g\"));\n"
-        + "      if (object.g() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "        if (set__string_adapter == null) {\n"
         + "          this.set__string_adapter = set__string_adapter = (TypeAdapter<Set<String>>) "
-        + "gson.getAdapter(TypeToken.getParameterized(Set.class, String.class));\n"
+        + "gson.getAdapter(set__string_type);\n"
         + "        }\n"
         + "        set__string_adapter.write(jsonWriter, object.g());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"h\"));\n"
-        + "      if (object.h() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = this"
         + ".map__string_set__string_adapter;\n"
         + "        if (map__string_set__string_adapter == null) {\n"
         + "          this.map__string_set__string_adapter = map__string_set__string_adapter = "
-        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Set.class, String.class).getType()));\n"
+        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "        }\n"
         + "        map__string_set__string_adapter.write(jsonWriter, object.h());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_I\");\n"
-        + "      if (object.i() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -307,22 +307,20 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.i());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"j\"));\n"
-        + "      if (object.j() == null) {\n"
+        + "      List<? extends String> j = object.j();\n"
+        + "      if (j == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<List<? extends String>> list__wildcard__string_adapter = this"
         + ".list__wildcard__string_adapter;\n"
         + "        if (list__wildcard__string_adapter == null) {\n"
         + "          this.list__wildcard__string_adapter = list__wildcard__string_adapter = "
-        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List"
-        + ".class, WildcardUtil.subtypeOf(String.class)));\n"
+        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "        }\n"
-        + "        list__wildcard__string_adapter.write(jsonWriter, object.j());\n"
+        + "        list__wildcard__string_adapter.write(jsonWriter, j);\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"o\"));\n"
-        + "      if (object.o() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? "
         + "extends String>>>>>> "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter ="
@@ -335,11 +333,7 @@ public class AutoValueGsonExtensionTest {
         + ".map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter "
         + "= map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + " = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends "
-        + "String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, "
-        + "TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken"
-        + ".getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class))"
-        + ".getType()).getType()).getType()).getType()));\n"
+        + "String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "        }\n"
         + "        "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
@@ -369,12 +363,12 @@ public class AutoValueGsonExtensionTest {
         + "String>>>>> o = null;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          case \"_D\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -385,6 +379,10 @@ public class AutoValueGsonExtensionTest {
         + "          case \"_I_1\":\n"
         + "          case \"_I_2\":\n"
         + "          case \"_I\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -394,6 +392,10 @@ public class AutoValueGsonExtensionTest {
         + "          }\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"a\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -404,13 +406,17 @@ public class AutoValueGsonExtensionTest {
         + "            if (realFieldNames.get(\"b\").equals(_name)) {\n"
         + "              TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "              if (array__int_adapter == null) {\n"
-        + "                this.array__int_adapter = array__int_adapter = gson.getAdapter(int[]"
-        + ".class);\n"
+        + "                this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "              }\n"
         + "              b = array__int_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"c\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Integer> int__adapter = this.int__adapter;\n"
         + "              if (int__adapter == null) {\n"
         + "                this.int__adapter = int__adapter = gson.getAdapter(Integer.class);\n"
@@ -419,6 +425,10 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"e\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -427,51 +437,65 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"f\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<ImmutableMap<String, Number>> "
         + "immutableMap__string_number_adapter = this.immutableMap__string_number_adapter;\n"
         + "              if (immutableMap__string_number_adapter == null) {\n"
         + "                this.immutableMap__string_number_adapter = "
-        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class)"
-        + ");\n"
+        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "              }\n"
         + "              f = immutableMap__string_number_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"g\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "              if (set__string_adapter == null) {\n"
         + "                this.set__string_adapter = set__string_adapter = "
-        + "(TypeAdapter<Set<String>>) gson.getAdapter(TypeToken.getParameterized(Set.class, "
-        + "String.class));\n"
+        + "(TypeAdapter<Set<String>>) gson.getAdapter(set__string_type);\n"
         + "              }\n"
         + "              g = set__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"h\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = "
         + "this.map__string_set__string_adapter;\n"
         + "              if (map__string_set__string_adapter == null) {\n"
         + "                this.map__string_set__string_adapter = map__string_set__string_adapter"
-        + " = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized"
-        + "(Map.class, String.class, TypeToken.getParameterized(Set.class, String.class).getType"
-        + "()));\n"
+        + " = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "              }\n"
         + "              h = map__string_set__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"j\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<List<? extends String>> list__wildcard__string_adapter = "
         + "this.list__wildcard__string_adapter;\n"
         + "              if (list__wildcard__string_adapter == null) {\n"
         + "                this.list__wildcard__string_adapter = list__wildcard__string_adapter ="
-        + " (TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List"
-        + ".class, WildcardUtil.subtypeOf(String.class)));\n"
+        + " (TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "              }\n"
         + "              j = list__wildcard__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"o\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, "
         + "? extends String>>>>>> "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter ="
@@ -484,11 +508,7 @@ public class AutoValueGsonExtensionTest {
         + ".map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter "
         + "= map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + " = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends "
-        + "String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, "
-        + "TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken"
-        + ".getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class))"
-        + ".getType()).getType()).getType()).getType()));\n"
+        + "String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "              }\n"
         + "              o = "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
@@ -567,9 +587,7 @@ public class AutoValueGsonExtensionTest {
         + "    }\n"
         + "    jsonWriter.beginObject();\n"
         + "    jsonWriter.name(\"a\");\n"
-        + "    if (object.a() == null) {\n"
-        + "      jsonWriter.nullValue();\n"
-        + "    } else {\n"
+        + "    {\n"
         + "      TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "      if (string_adapter == null) {\n"
         + "        this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -590,13 +608,13 @@ public class AutoValueGsonExtensionTest {
         + "    String a = null;\n"
         + "    while (jsonReader.hasNext()) {\n"
         + "      String _name = jsonReader.nextName();\n"
-        + "      if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "        jsonReader.nextNull();\n"
-        + "        continue;\n"
-        + "      }\n"
         + "      switch (_name) {\n"
         + "        default: {\n"
         + "          if (\"a\".equals(_name)) {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -660,6 +678,7 @@ public class AutoValueGsonExtensionTest {
             + "import com.google.gson.stream.JsonReader;\n"
             + "import com.google.gson.stream.JsonToken;\n"
             + "import com.google.gson.stream.JsonWriter;\n"
+            + "import com.ryanharter.auto.value.gson.internal.Util;\n"
             + "import java.io.IOException;\n"
             + "import java.lang.reflect.Type;\n"
             + "import " + GENERATED + ";\n"
@@ -671,6 +690,8 @@ public class AutoValueGsonExtensionTest {
             + "final class Test_GsonTypeAdapter<T> extends TypeAdapter<Test<T>> {\n"
             + "  private volatile TypeAdapter<T> T_adapter;\n"
             + "\n"
+            + "  private final TypeToken<?> T_type;\n"
+            + "\n"
             + "  private final Gson gson;\n"
             + "\n"
             + "  private final Type[] typeArgs;\n"
@@ -678,6 +699,7 @@ public class AutoValueGsonExtensionTest {
             + "  Test_GsonTypeAdapter(Gson gson, Type[] types) {\n"
             + "    typeArgs = types;\n"
             + "    this.gson = gson;\n"
+            + "    this.T_type = Util.typeToken(typeArgs[0]);\n"
             + "  }\n"
             + "\n"
             + "  @Override\n"
@@ -689,13 +711,10 @@ public class AutoValueGsonExtensionTest {
             + "    }\n"
             + "    jsonWriter.beginObject();\n"
             + "    jsonWriter.name(\"a\");\n"
-            + "    if (object.a() == null) {\n"
-            + "      jsonWriter.nullValue();\n"
-            + "    } else {\n"
+            + "    {\n"
             + "      TypeAdapter<T> T_adapter = this.T_adapter;\n"
             + "      if (T_adapter == null) {\n"
-            + "        this.T_adapter = T_adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken"
-            + ".get(typeArgs[0]));\n"
+            + "        this.T_adapter = T_adapter = (TypeAdapter<T>) gson.getAdapter(T_type);\n"
             + "      }\n"
             + "      T_adapter.write(jsonWriter, object.a());\n"
             + "    }\n"
@@ -713,16 +732,16 @@ public class AutoValueGsonExtensionTest {
             + "    T a = null;\n"
             + "    while (jsonReader.hasNext()) {\n"
             + "      String _name = jsonReader.nextName();\n"
-            + "      if (jsonReader.peek() == JsonToken.NULL) {\n"
-            + "        jsonReader.nextNull();\n"
-            + "        continue;\n"
-            + "      }\n"
             + "      switch (_name) {\n"
             + "        default: {\n"
             + "          if (\"a\".equals(_name)) {\n"
+            + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+            + "              jsonReader.nextNull();\n"
+            + "              continue;\n"
+            + "            }\n"
             + "            TypeAdapter<T> T_adapter = this.T_adapter;\n"
             + "            if (T_adapter == null) {\n"
-            + "              this.T_adapter = T_adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(typeArgs[0]));\n"
+            + "              this.T_adapter = T_adapter = (TypeAdapter<T>) gson.getAdapter(T_type);\n"
             + "            }\n"
             + "            a = T_adapter.read(jsonReader);\n"
             + "            continue;\n"
@@ -830,6 +849,8 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
         + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "import com.ryanharter.auto.value.gson.internal.PrimitiveAdapters;\n"
+        + "import com.ryanharter.auto.value.gson.internal.Util;\n"
         + "import com.ryanharter.auto.value.gson.internal.WildcardUtil;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Integer;\n"
@@ -858,6 +879,25 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final TypeToken<?> immutableMap__string_number_type = "
+        + "Util.typeToken(Util.parameterizedType(ImmutableMap.class, String.class, "
+        + "Number.class));\n"
+        + "    private static final TypeToken<?> set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Set.class, String.class));\n"
+        + "    private static final TypeToken<?> map__string_set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Set.class, String.class)));\n"
+        + "    private static final TypeToken<?> list__wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(List.class, "
+        + "WildcardUtil.subtypeOf(String.class)));\n"
+        + "    private static final TypeToken<?> "
+        + "map__string_map__string_map__string_map__string_map__string_wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "WildcardUtil.subtypeOf(String.class)))))));\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private volatile TypeAdapter<int[]> array__int_adapter;\n"
         + "    private volatile TypeAdapter<Integer> int__adapter;\n"
@@ -884,9 +924,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(\"a\");\n"
-        + "      if (object.a() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -894,12 +932,11 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.a());\n"
         + "      }\n"
         + "      jsonWriter.name(\"b\");\n"
-        + "      if (object.b() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "        if (array__int_adapter == null) {\n"
-        + "          this.array__int_adapter = array__int_adapter = gson.getAdapter(int[].class);\n"
+        + "          this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "        }\n"
         + "        array__int_adapter.write(jsonWriter, object.b());\n"
         + "      }\n"
@@ -912,9 +949,7 @@ public class AutoValueGsonExtensionTest {
         + "        int__adapter.write(jsonWriter, object.c());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_D\");\n"
-        + "      if (object.d() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -922,57 +957,47 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.d());\n"
         + "      }\n"
         + "      jsonWriter.name(\"e\");\n"
-        + "      if (object.e() == null) {\n"
+        + "      String e = object.e();\n"
+        + "      if (e == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
         + "        }\n"
-        + "        string_adapter.write(jsonWriter, object.e());\n"
+        + "        string_adapter.write(jsonWriter, e);\n"
         + "      }\n"
         + "      jsonWriter.name(\"f\");\n"
-        + "      if (object.f() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<ImmutableMap<String, Number>> immutableMap__string_number_adapter "
         + "= this.immutableMap__string_number_adapter;\n"
         + "        if (immutableMap__string_number_adapter == null) {\n"
         + "          this.immutableMap__string_number_adapter = "
-            + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class)"
-        + ");\n"
+            + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "        }\n"
         + "        immutableMap__string_number_adapter.write(jsonWriter, object.f());\n"
         + "      }\n"
         + "      jsonWriter.name(\"g\");\n"
-        + "      if (object.g() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "        if (set__string_adapter == null) {\n"
         + "          this.set__string_adapter = set__string_adapter = (TypeAdapter<Set<String>>) "
-            + "gson.getAdapter(TypeToken.getParameterized(Set.class, String.class));\n"
+            + "gson.getAdapter(set__string_type);\n"
         + "        }\n"
         + "        set__string_adapter.write(jsonWriter, object.g());\n"
         + "      }\n"
         + "      jsonWriter.name(\"h\");\n"
-        + "      if (object.h() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = this"
         + ".map__string_set__string_adapter;\n"
         + "        if (map__string_set__string_adapter == null) {\n"
         + "          this.map__string_set__string_adapter = map__string_set__string_adapter = "
-        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Set.class, String.class).getType()));\n"
+        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "        }\n"
         + "        map__string_set__string_adapter.write(jsonWriter, object.h());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_I\");\n"
-        + "      if (object.i() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -980,22 +1005,20 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.i());\n"
         + "      }\n"
         + "      jsonWriter.name(\"j\");\n"
-        + "      if (object.j() == null) {\n"
+        + "      List<? extends String> j = object.j();\n"
+        + "      if (j == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<List<? extends String>> list__wildcard__string_adapter = this"
         + ".list__wildcard__string_adapter;\n"
         + "        if (list__wildcard__string_adapter == null) {\n"
         + "          this.list__wildcard__string_adapter = list__wildcard__string_adapter = "
-        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List"
-        + ".class, WildcardUtil.subtypeOf(String.class)));\n"
+        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "        }\n"
-        + "        list__wildcard__string_adapter.write(jsonWriter, object.j());\n"
+        + "        list__wildcard__string_adapter.write(jsonWriter, j);\n"
         + "      }\n"
         + "      jsonWriter.name(\"o\");\n"
-        + "      if (object.o() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? "
         + "extends String>>>>>> "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter ="
@@ -1008,11 +1031,7 @@ public class AutoValueGsonExtensionTest {
         + ".map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter "
         + "= map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + " = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends "
-        + "String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, "
-        + "TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken"
-        + ".getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class))"
-        + ".getType()).getType()).getType()).getType()));\n"
+        + "String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "        }\n"
         + "        "
  + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
@@ -1042,12 +1061,12 @@ public class AutoValueGsonExtensionTest {
         + "String>>>>> o = null;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          case \"_D\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1058,6 +1077,10 @@ public class AutoValueGsonExtensionTest {
         + "          case \"_I_1\":\n"
         + "          case \"_I_2\":\n"
         + "          case \"_I\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1067,6 +1090,10 @@ public class AutoValueGsonExtensionTest {
         + "          }\n"
         + "          default: {\n"
         + "            if (\"a\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1077,13 +1104,17 @@ public class AutoValueGsonExtensionTest {
         + "            if (\"b\".equals(_name)) {\n"
         + "              TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "              if (array__int_adapter == null) {\n"
-        + "                this.array__int_adapter = array__int_adapter = gson.getAdapter(int[]"
-        + ".class);\n"
+        + "                this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "              }\n"
         + "              b = array__int_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (\"c\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Integer> int__adapter = this.int__adapter;\n"
         + "              if (int__adapter == null) {\n"
         + "                this.int__adapter = int__adapter = gson.getAdapter(Integer.class);\n"
@@ -1092,6 +1123,10 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (\"e\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1100,51 +1135,65 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (\"f\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<ImmutableMap<String, Number>> "
         + "immutableMap__string_number_adapter = this.immutableMap__string_number_adapter;\n"
         + "              if (immutableMap__string_number_adapter == null) {\n"
         + "                this.immutableMap__string_number_adapter = "
-        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class)"
-        + ");\n"
+        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "              }\n"
         + "              f = immutableMap__string_number_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (\"g\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "              if (set__string_adapter == null) {\n"
         + "                this.set__string_adapter = set__string_adapter = "
-        + "(TypeAdapter<Set<String>>) gson.getAdapter(TypeToken.getParameterized(Set.class, "
-        + "String.class));\n"
+        + "(TypeAdapter<Set<String>>) gson.getAdapter(set__string_type);\n"
         + "              }\n"
         + "              g = set__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (\"h\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = "
         + "this.map__string_set__string_adapter;\n"
         + "              if (map__string_set__string_adapter == null) {\n"
         + "                this.map__string_set__string_adapter = map__string_set__string_adapter"
-            + " = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized"
-        + "(Map.class, String.class, TypeToken.getParameterized(Set.class, String.class).getType"
-        + "()));\n"
+            + " = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "              }\n"
         + "              h = map__string_set__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (\"j\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<List<? extends String>> list__wildcard__string_adapter = "
         + "this.list__wildcard__string_adapter;\n"
         + "              if (list__wildcard__string_adapter == null) {\n"
         + "                this.list__wildcard__string_adapter = list__wildcard__string_adapter ="
-        + " (TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List"
-        + ".class, WildcardUtil.subtypeOf(String.class)));\n"
+        + " (TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "              }\n"
         + "              j = list__wildcard__string_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (\"o\".equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, "
         + "? extends String>>>>>> "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter ="
@@ -1157,11 +1206,7 @@ public class AutoValueGsonExtensionTest {
         + ".map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter "
         + "= map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + " = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends "
-        + "String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, "
-        + "TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken"
-        + ".getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class))"
-        + ".getType()).getType()).getType()).getType()));\n"
+        + "String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "              }\n"
         + "              o = "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
@@ -1359,6 +1404,8 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
         + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
+        + "import com.ryanharter.auto.value.gson.internal.PrimitiveAdapters;\n"
         + "import com.ryanharter.auto.value.gson.internal.Util;\n"
         + "import com.ryanharter.auto.value.gson.internal.WildcardUtil;\n"
         + "import java.io.IOException;\n"
@@ -1368,7 +1415,6 @@ public class AutoValueGsonExtensionTest {
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.List;\n"
         + "import java.util.Map;\n"
         + "import java.util.Optional;\n"
@@ -1390,6 +1436,36 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final TypeToken<?> immutableMap__string_number_type = "
+        + "Util.typeToken(Util.parameterizedType(ImmutableMap.class, String.class, "
+        + "Number.class));\n"
+        + "    private static final TypeToken<?> set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Set.class, String.class));\n"
+        + "    private static final TypeToken<?> map__string_set__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Set.class, String.class)));\n"
+        + "    private static final TypeToken<?> list__wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(List.class, "
+        + "WildcardUtil.subtypeOf(String.class)));\n"
+        + "    private static final TypeToken<?> "
+        + "map__string_map__string_map__string_map__string_map__string_wildcard__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "Util.parameterizedType(Map.class, String.class, "
+        + "WildcardUtil.subtypeOf(String.class)))))));\n"
+        + "    private static final TypeToken<?> optional__string_type = "
+        + "Util.typeToken(Util.parameterizedType(Optional.class, String.class));\n"
+        + "    private static final TypeToken<?> immutableList__string_type = "
+        + "Util.typeToken(Util.parameterizedType(ImmutableList.class, String.class));\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\", \"p\", \"q\", \"r\"},\n"
+        + "        new String[] {\"A\", \"B\", \"C\", \"D\", \"E\", \"F\", \"G\", \"H\", \"I\", \"J\", \"O\", \"P\", \"Q\", \"R\"},\n"
+        + "        new String[] {\"A\", \"B\", \"C\", \"D\", \"E\", \"F\", \"G\", \"H\", \"I\", \"J\", \"O\", \"P\", \"Q\", \"R\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\", \"p\", \"q\", \"r\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\", \"p\", \"q\", \"r\"},\n"
+        + "        new String[] {\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\", \"h\", \"i\", \"j\", \"o\", \"p\", \"q\", \"r\"});\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private volatile TypeAdapter<int[]> array__int_adapter;\n"
         + "    private volatile TypeAdapter<Integer> int__adapter;\n"
@@ -1408,24 +1484,8 @@ public class AutoValueGsonExtensionTest {
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"a\");\n"
-        + "      fields.add(\"b\");\n"
-        + "      fields.add(\"c\");\n"
-        + "      fields.add(\"d\");\n"
-        + "      fields.add(\"e\");\n"
-        + "      fields.add(\"f\");\n"
-        + "      fields.add(\"g\");\n"
-        + "      fields.add(\"h\");\n"
-        + "      fields.add(\"i\");\n"
-        + "      fields.add(\"j\");\n"
-        + "      fields.add(\"o\");\n"
-        + "      fields.add(\"p\");\n"
-        + "      fields.add(\"q\");\n"
-        + "      fields.add(\"r\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -1436,9 +1496,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"a\"));\n"
-        + "      if (object.a() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1446,12 +1504,11 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.a());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"b\"));\n"
-        + "      if (object.b() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "        if (array__int_adapter == null) {\n"
-        + "          this.array__int_adapter = array__int_adapter = gson.getAdapter(int[].class);\n"
+        + "          this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "        }\n"
         + "        array__int_adapter.write(jsonWriter, object.b());\n"
         + "      }\n"
@@ -1464,9 +1521,7 @@ public class AutoValueGsonExtensionTest {
         + "        int__adapter.write(jsonWriter, object.c());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_D\");\n"
-        + "      if (object.d() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1474,57 +1529,47 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.d());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"e\"));\n"
-        + "      if (object.e() == null) {\n"
+        + "      String e = object.e();\n"
+        + "      if (e == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
         + "        }\n"
-        + "        string_adapter.write(jsonWriter, object.e());\n"
+        + "        string_adapter.write(jsonWriter, e);\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"f\"));\n"
-        + "      if (object.f() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<ImmutableMap<String, Number>> immutableMap__string_number_adapter "
         + "= this.immutableMap__string_number_adapter;\n"
         + "        if (immutableMap__string_number_adapter == null) {\n"
         + "          this.immutableMap__string_number_adapter = "
-        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class)"
-        + ");\n"
+        + "immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "        }\n"
         + "        immutableMap__string_number_adapter.write(jsonWriter, object.f());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"g\"));\n"
-        + "      if (object.g() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "        if (set__string_adapter == null) {\n"
         + "          this.set__string_adapter = set__string_adapter = (TypeAdapter<Set<String>>) "
-        + "gson.getAdapter(TypeToken.getParameterized(Set.class, String.class));\n"
+        + "gson.getAdapter(set__string_type);\n"
         + "        }\n"
         + "        set__string_adapter.write(jsonWriter, object.g());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"h\"));\n"
-        + "      if (object.h() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = this"
         + ".map__string_set__string_adapter;\n"
         + "        if (map__string_set__string_adapter == null) {\n"
         + "          this.map__string_set__string_adapter = map__string_set__string_adapter = "
-        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Set.class, String.class).getType()));\n"
+        + "(TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "        }\n"
         + "        map__string_set__string_adapter.write(jsonWriter, object.h());\n"
         + "      }\n"
         + "      jsonWriter.name(\"_I\");\n"
-        + "      if (object.i() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1532,22 +1577,20 @@ public class AutoValueGsonExtensionTest {
         + "        string_adapter.write(jsonWriter, object.i());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"j\"));\n"
-        + "      if (object.j() == null) {\n"
+        + "      List<? extends String> j = object.j();\n"
+        + "      if (j == null) {\n"
         + "        jsonWriter.nullValue();\n"
         + "      } else {\n"
         + "        TypeAdapter<List<? extends String>> list__wildcard__string_adapter = this"
         + ".list__wildcard__string_adapter;\n"
         + "        if (list__wildcard__string_adapter == null) {\n"
         + "          this.list__wildcard__string_adapter = list__wildcard__string_adapter = "
-        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List"
-        + ".class, WildcardUtil.subtypeOf(String.class)));\n"
+        + "(TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "        }\n"
-        + "        list__wildcard__string_adapter.write(jsonWriter, object.j());\n"
+        + "        list__wildcard__string_adapter.write(jsonWriter, j);\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"o\"));\n"
-        + "      if (object.o() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? "
         + "extends String>>>>>> "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter ="
@@ -1560,43 +1603,33 @@ public class AutoValueGsonExtensionTest {
         + ".map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter "
         + "= map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + " = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends "
-        + "String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, "
-        + "TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken"
-        + ".getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class))"
-        + ".getType()).getType()).getType()).getType()));\n"
+        + "String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "        }\n"
         + "        "
         + "map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter"
         + ".write(jsonWriter, object.o());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"p\"));\n"
-        + "      if (object.p() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "       } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Optional<String>> optional__string_adapter = this.optional__string_adapter;\n"
         + "        if (optional__string_adapter == null) {\n"
-        + "          this.optional__string_adapter = optional__string_adapter = (TypeAdapter<Optional<String>>) gson.getAdapter(TypeToken.getParameterized(Optional.class, String.class));\n"
+        + "          this.optional__string_adapter = optional__string_adapter = (TypeAdapter<Optional<String>>) gson.getAdapter(optional__string_type);\n"
         + "        }\n"
         + "        optional__string_adapter.write(jsonWriter, object.p());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"q\"));\n"
-        + "      if (object.q() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<ImmutableList<String>> immutableList__string_adapter = this.immutableList__string_adapter;\n"
         + "        if (immutableList__string_adapter == null) {\n"
-        + "          this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>) gson.getAdapter(TypeToken.getParameterized(ImmutableList.class, String.class));\n"
+        + "          this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>) gson.getAdapter(immutableList__string_type);\n"
         + "        }\n"
         + "        immutableList__string_adapter.write(jsonWriter, object.q());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"r\"));\n"
-        + "      if (object.r() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<ImmutableList<String>> immutableList__string_adapter = this.immutableList__string_adapter;\n"
         + "        if (immutableList__string_adapter == null) {\n"
-        + "          this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>) gson.getAdapter(TypeToken.getParameterized(ImmutableList.class, String.class));\n"
+        + "          this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>) gson.getAdapter(immutableList__string_type);\n"
         + "        }\n"
         + "        immutableList__string_adapter.write(jsonWriter, object.r());\n"
         + "      }\n"
@@ -1613,12 +1646,12 @@ public class AutoValueGsonExtensionTest {
         + "      Test.Builder builder = new AutoValue_Test.Builder();\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          case \"_D\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1629,6 +1662,10 @@ public class AutoValueGsonExtensionTest {
         + "          case \"_I_1\":\n"
         + "          case \"_I_2\":\n"
         + "          case \"_I\": {\n"
+        + "            if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "              jsonReader.nextNull();\n"
+        + "              continue;\n"
+        + "            }\n"
         + "            TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "            if (string_adapter == null) {\n"
         + "              this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1638,6 +1675,10 @@ public class AutoValueGsonExtensionTest {
         + "          }\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"a\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1646,14 +1687,23 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"b\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<int[]> array__int_adapter = this.array__int_adapter;\n"
         + "              if (array__int_adapter == null) {\n"
-        + "                this.array__int_adapter = array__int_adapter = gson.getAdapter(int[].class);\n"
+        + "                this.array__int_adapter = array__int_adapter = "
+        + "PrimitiveAdapters.intArrayAdapter(gson);\n"
         + "              }\n"
         + "              builder.b(array__int_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"c\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Integer> int__adapter = this.int__adapter;\n"
         + "              if (int__adapter == null) {\n"
         + "                this.int__adapter = int__adapter = gson.getAdapter(Integer.class);\n"
@@ -1662,6 +1712,10 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"e\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1670,65 +1724,97 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"f\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<ImmutableMap<String, Number>> immutableMap__string_number_adapter = this.immutableMap__string_number_adapter;\n"
         + "              if (immutableMap__string_number_adapter == null) {\n"
-        + "                this.immutableMap__string_number_adapter = immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(TypeToken.getParameterized(ImmutableMap.class, String.class, Number.class));\n"
+        + "                this.immutableMap__string_number_adapter = immutableMap__string_number_adapter = (TypeAdapter<ImmutableMap<String, Number>>) gson.getAdapter(immutableMap__string_number_type);\n"
         + "              }\n"
         + "              builder.f(immutableMap__string_number_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"g\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Set<String>> set__string_adapter = this.set__string_adapter;\n"
         + "              if (set__string_adapter == null) {\n"
-        + "                this.set__string_adapter = set__string_adapter = (TypeAdapter<Set<String>>) gson.getAdapter(TypeToken.getParameterized(Set.class, String.class));\n"
+        + "                this.set__string_adapter = set__string_adapter = (TypeAdapter<Set<String>>) gson.getAdapter(set__string_type);\n"
         + "              }\n"
         + "              builder.g(set__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"h\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Set<String>>> map__string_set__string_adapter = this.map__string_set__string_adapter;\n"
         + "              if (map__string_set__string_adapter == null) {\n"
-        + "                this.map__string_set__string_adapter = map__string_set__string_adapter = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Set.class, String.class).getType()));\n"
+        + "                this.map__string_set__string_adapter = map__string_set__string_adapter = (TypeAdapter<Map<String, Set<String>>>) gson.getAdapter(map__string_set__string_type);\n"
         + "              }\n"
         + "              builder.h(map__string_set__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"j\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<List<? extends String>> list__wildcard__string_adapter = this.list__wildcard__string_adapter;\n"
         + "              if (list__wildcard__string_adapter == null) {\n"
-        + "                this.list__wildcard__string_adapter = list__wildcard__string_adapter = (TypeAdapter<List<? extends String>>) gson.getAdapter(TypeToken.getParameterized(List.class, WildcardUtil.subtypeOf(String.class)));\n"
+        + "                this.list__wildcard__string_adapter = list__wildcard__string_adapter = (TypeAdapter<List<? extends String>>) gson.getAdapter(list__wildcard__string_type);\n"
         + "              }\n"
         + "              builder.j(list__wildcard__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"o\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends String>>>>>> map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter = this.map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter;\n"
         + "              if (map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter == null) {\n"
-        + "                this.map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter = map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends String>>>>>>) gson.getAdapter(TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map.class, String.class, TypeToken.getParameterized(Map.class, String.class, WildcardUtil.subtypeOf(String.class)).getType()).getType()).getType()).getType()));\n"
+        + "                this.map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter = map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter = (TypeAdapter<Map<String, Map<String, Map<String, Map<String, Map<String, ? extends String>>>>>>) gson.getAdapter(map__string_map__string_map__string_map__string_map__string_wildcard__string_type);\n"
         + "              }\n"
         + "              builder.o(map__string_map__string_map__string_map__string_map__string_wildcard__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"p\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Optional<String>> optional__string_adapter = this.optional__string_adapter;\n"
         + "              if (optional__string_adapter == null) {\n"
-        + "                this.optional__string_adapter = optional__string_adapter = (TypeAdapter<Optional<String>>)gson.getAdapter(TypeToken.getParameterized(Optional.class, String.class));\n"
+        + "                this.optional__string_adapter = optional__string_adapter = (TypeAdapter<Optional<String>>)gson.getAdapter(optional__string_type);\n"
         + "              }\n"
         + "              optional__string_adapter.read(jsonReader).ifPresent(x$ -> builder.p(x$));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"q\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<ImmutableList<String>> immutableList__string_adapter = this.immutableList__string_adapter;\n"
         + "              if (immutableList__string_adapter == null) {\n"
-        + "                this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>)gson.getAdapter(TypeToken.getParameterized(ImmutableList.class, String.class));\n"
+        + "                this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>)gson.getAdapter(immutableList__string_type);\n"
         + "              }\n"
         + "              builder.q(immutableList__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"r\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<ImmutableList<String>> immutableList__string_adapter = this.immutableList__string_adapter;\n"
         + "              if (immutableList__string_adapter == null) {\n"
-        + "                this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>)gson.getAdapter(TypeToken.getParameterized(ImmutableList.class, String.class));\n"
+        + "                this.immutableList__string_adapter = immutableList__string_adapter = (TypeAdapter<ImmutableList<String>>)gson.getAdapter(immutableList__string_type);\n"
         + "              }\n"
         + "              builder.rBuilder().addAll(immutableList__string_adapter.read(jsonReader));\n"
         + "              continue;\n"
@@ -1780,14 +1866,13 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonReader;\n"
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
-        + "import com.ryanharter.auto.value.gson.internal.Util;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Boolean;\n"
         + "import java.lang.Override;\n"
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.Map;\n"
         + "import " + GENERATED + ";\n"
         + "\n"
@@ -1801,17 +1886,20 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"Name\", \"Awesome\"},\n"
+        + "        new String[] {\"Name\", \"Awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"});\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private volatile TypeAdapter<Boolean> boolean__adapter;\n"
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"name\");\n"
-        + "      fields.add(\"awesome\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -1822,9 +1910,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"name\"));\n"
-        + "      if (object.getName() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1853,13 +1939,13 @@ public class AutoValueGsonExtensionTest {
         + "      boolean awesome = false;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"name\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1868,6 +1954,10 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"awesome\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Boolean> boolean__adapter = this.boolean__adapter;\n"
         + "              if (boolean__adapter == null) {\n"
         + "                this.boolean__adapter = boolean__adapter = gson.getAdapter(Boolean"
@@ -1921,14 +2011,13 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonReader;\n"
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
-        + "import com.ryanharter.auto.value.gson.internal.Util;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Boolean;\n"
         + "import java.lang.Override;\n"
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.Map;\n"
         + "import " + GENERATED + ";\n"
         + "\n"
@@ -1942,17 +2031,20 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"Name\", \"Awesome\"},\n"
+        + "        new String[] {\"Name\", \"Awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"},\n"
+        + "        new String[] {\"name\", \"awesome\"});\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private volatile TypeAdapter<Boolean> boolean__adapter;\n"
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"name\");\n"
-        + "      fields.add(\"awesome\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -1963,9 +2055,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"name\"));\n"
-        + "      if (object.getName() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -1994,13 +2084,13 @@ public class AutoValueGsonExtensionTest {
         + "      boolean awesome = false;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"name\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -2009,6 +2099,10 @@ public class AutoValueGsonExtensionTest {
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"awesome\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Boolean> boolean__adapter = this.boolean__adapter;\n"
         + "              if (boolean__adapter == null) {\n"
         + "                this.boolean__adapter = boolean__adapter = gson.getAdapter(Boolean"
@@ -2218,14 +2312,13 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonReader;\n"
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
-        + "import com.ryanharter.auto.value.gson.internal.Util;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Character;\n"
         + "import java.lang.Override;\n"
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.Map;\n"
         + "import " + GENERATED + ";\n"
         + "\n"
@@ -2239,15 +2332,19 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"c\"},\n"
+        + "        new String[] {\"C\"},\n"
+        + "        new String[] {\"C\"},\n"
+        + "        new String[] {\"c\"},\n"
+        + "        new String[] {\"c\"},\n"
+        + "        new String[] {\"c\"});\n"
         + "    private volatile TypeAdapter<Character> char__adapter;\n"
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"c\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -2278,13 +2375,13 @@ public class AutoValueGsonExtensionTest {
         + "      char c = '\u0000';\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"c\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Character> char__adapter = this.char__adapter;\n"
         + "              if (char__adapter == null) {\n"
         + "                this.char__adapter = char__adapter = gson.getAdapter(Character.class);\n"
@@ -2348,6 +2445,7 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonReader;\n"
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
         + "import com.ryanharter.auto.value.gson.internal.Util;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Override;\n"
@@ -2355,7 +2453,6 @@ public class AutoValueGsonExtensionTest {
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
         + "import java.lang.reflect.Type;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.List;\n"
         + "import java.util.Map;\n"
         + "import " + GENERATED + ";\n"
@@ -2371,27 +2468,38 @@ public class AutoValueGsonExtensionTest {
         + "\n"
         + "  static final class GsonTypeAdapter<A, B, C> extends TypeAdapter<Foo<A, B, C>>"
         + " {\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Foo.class,\n"
+        + "        new String[] {\"c\", \"a\", \"b\", \"list\", \"map\", \"d\"},\n"
+        + "        new String[] {\"C\", \"A\", \"B\", \"List\", \"Map\", \"D\"},\n"
+        + "        new String[] {\"C\", \"A\", \"B\", \"List\", \"Map\", \"D\"},\n"
+        + "        new String[] {\"c\", \"a\", \"b\", \"list\", \"map\", \"d\"},\n"
+        + "        new String[] {\"c\", \"a\", \"b\", \"list\", \"map\", \"d\"},\n"
+        + "        new String[] {\"c\", \"a\", \"b\", \"list\", \"map\", \"d\"});\n"
         + "    private volatile TypeAdapter<C> C_adapter;\n"
         + "    private volatile TypeAdapter<A> A_adapter;\n"
         + "    private volatile TypeAdapter<B> B_adapter;\n"
         + "    private volatile TypeAdapter<List<A>> list__A_adapter;\n"
         + "    private volatile TypeAdapter<Map<String, List<C>>> map__string_list__C_adapter;\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
+        + "    private final TypeToken<?> C_type;\n"
+        + "    private final TypeToken<?> A_type;\n"
+        + "    private final TypeToken<?> B_type;\n"
+        + "    private final TypeToken<?> list__A_type;\n"
+        + "    private final TypeToken<?> map__string_list__C_type;\n"
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    private final Type[] typeArgs;\n"
         + "    GsonTypeAdapter(Gson gson, Type[] types) {\n"
         + "      typeArgs = types;\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"c\");\n"
-        + "      fields.add(\"a\");\n"
-        + "      fields.add(\"b\");\n"
-        + "      fields.add(\"list\");\n"
-        + "      fields.add(\"map\");\n"
-        + "      fields.add(\"d\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Foo.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
+        + "      this.C_type = Util.typeToken(typeArgs[2]);\n"
+        + "      this.A_type = Util.typeToken(typeArgs[0]);\n"
+        + "      this.B_type = Util.typeToken(typeArgs[1]);\n"
+        + "      this.list__A_type = Util.typeToken(Util.parameterizedType(List.class, "
+        + "typeArgs[0]));\n"
+        + "      this.map__string_list__C_type = Util.typeToken(Util.parameterizedType(Map.class, "
+        + "String.class, Util.parameterizedType(List.class, typeArgs[2])));\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -2402,66 +2510,49 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"c\"));\n"
-        + "      if (object.c() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<C> C_adapter = this.C_adapter;\n"
         + "        if (C_adapter == null) {\n"
-        + "          this.C_adapter = C_adapter = (TypeAdapter<C>) gson.getAdapter(TypeToken.get"
-        + "(typeArgs[2]));\n"
+        + "          this.C_adapter = C_adapter = (TypeAdapter<C>) gson.getAdapter(C_type);\n"
         + "        }\n"
         + "        C_adapter.write(jsonWriter, object.c());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"a\"));\n"
-        + "      if (object.a() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<A> A_adapter = this.A_adapter;\n"
         + "        if (A_adapter == null) {\n"
-        + "          this.A_adapter = A_adapter = (TypeAdapter<A>) gson.getAdapter(TypeToken.get"
-        + "(typeArgs[0]));\n"
+        + "          this.A_adapter = A_adapter = (TypeAdapter<A>) gson.getAdapter(A_type);\n"
         + "        }\n"
         + "        A_adapter.write(jsonWriter, object.a());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"b\"));\n"
-        + "      if (object.b() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<B> B_adapter = this.B_adapter;\n"
         + "        if (B_adapter == null) {\n"
-        + "          this.B_adapter = B_adapter = (TypeAdapter<B>) gson.getAdapter(TypeToken.get"
-        + "(typeArgs[1]));\n"
+        + "          this.B_adapter = B_adapter = (TypeAdapter<B>) gson.getAdapter(B_type);\n"
         + "        }\n"
         + "        B_adapter.write(jsonWriter, object.b());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"list\"));\n"
-        + "      if (object.list() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<List<A>> list__A_adapter = this.list__A_adapter;\n"
         + "        if (list__A_adapter == null) {\n"
-        + "          this.list__A_adapter = list__A_adapter = (TypeAdapter<List<A>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(List.class, typeArgs[0]));\n"
+        + "          this.list__A_adapter = list__A_adapter = (TypeAdapter<List<A>>) gson.getAdapter(list__A_type);\n"
         + "        }\n"
         + "        list__A_adapter.write(jsonWriter, object.list());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"map\"));\n"
-        + "      if (object.map() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<Map<String, List<C>>> map__string_list__C_adapter = this"
         + ".map__string_list__C_adapter;\n"
         + "        if (map__string_list__C_adapter == null) {\n"
         + "          this.map__string_list__C_adapter = map__string_list__C_adapter = "
-        + "(TypeAdapter<Map<String, List<C>>>) gson.getAdapter(TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(List.class, typeArgs[2]).getType()));\n"
+        + "(TypeAdapter<Map<String, List<C>>>) gson.getAdapter(map__string_list__C_type);\n"
         + "        }\n"
         + "        map__string_list__C_adapter.write(jsonWriter, object.map());\n"
         + "      }\n"
         + "      jsonWriter.name(realFieldNames.get(\"d\"));\n"
-        + "      if (object.d() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -2486,60 +2577,75 @@ public class AutoValueGsonExtensionTest {
         + "      String d = null;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"c\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<C> C_adapter = this.C_adapter;\n"
         + "              if (C_adapter == null) {\n"
-        + "                this.C_adapter = C_adapter = (TypeAdapter<C>) gson.getAdapter"
-        + "(TypeToken.get(typeArgs[2]));\n"
+        + "                this.C_adapter = C_adapter = (TypeAdapter<C>) gson.getAdapter(C_type);\n"
         + "              }\n"
         + "              c = C_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"a\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<A> A_adapter = this.A_adapter;\n"
         + "              if (A_adapter == null) {\n"
-        + "                this.A_adapter = A_adapter = (TypeAdapter<A>) gson.getAdapter"
-        + "(TypeToken.get(typeArgs[0]));\n"
+        + "                this.A_adapter = A_adapter = (TypeAdapter<A>) gson.getAdapter(A_type);\n"
         + "              }\n"
         + "              a = A_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"b\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<B> B_adapter = this.B_adapter;\n"
         + "              if (B_adapter == null) {\n"
-        + "                this.B_adapter = B_adapter = (TypeAdapter<B>) gson.getAdapter"
-        + "(TypeToken.get(typeArgs[1]));\n"
+        + "                this.B_adapter = B_adapter = (TypeAdapter<B>) gson.getAdapter(B_type);\n"
         + "              }\n"
         + "              b = B_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"list\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<List<A>> list__A_adapter = this.list__A_adapter;\n"
         + "              if (list__A_adapter == null) {\n"
-        + "                this.list__A_adapter = list__A_adapter = (TypeAdapter<List<A>>) gson"
-        + ".getAdapter(TypeToken.getParameterized(List.class, typeArgs[0]));\n"
+        + "                this.list__A_adapter = list__A_adapter = (TypeAdapter<List<A>>) gson.getAdapter(list__A_type);\n"
         + "              }\n"
         + "              list = list__A_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"map\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<Map<String, List<C>>> map__string_list__C_adapter = this"
         + ".map__string_list__C_adapter;\n"
         + "              if (map__string_list__C_adapter == null) {\n"
         + "                this.map__string_list__C_adapter = map__string_list__C_adapter = "
-        + "(TypeAdapter<Map<String, List<C>>>) gson.getAdapter(TypeToken.getParameterized(Map"
-        + ".class, String.class, TypeToken.getParameterized(List.class, typeArgs[2]).getType()));\n"
+        + "(TypeAdapter<Map<String, List<C>>>) gson.getAdapter(map__string_list__C_type);\n"
         + "              }\n"
         + "              map = map__string_list__C_adapter.read(jsonReader);\n"
         + "              continue;\n"
         + "            }\n"
         + "            if (realFieldNames.get(\"d\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -2598,13 +2704,12 @@ public class AutoValueGsonExtensionTest {
         + "import com.google.gson.stream.JsonToken;\n"
         + "import com.google.gson.stream.JsonWriter;\n"
         + "import com.ryanharter.auto.value.gson.Nullable;\n"
-        + "import com.ryanharter.auto.value.gson.internal.Util;\n"
+        + "import com.ryanharter.auto.value.gson.internal.FieldNames;\n"
         + "import java.io.IOException;\n"
         + "import java.lang.Override;\n"
         + "import java.lang.String;\n"
         + "import java.lang.StringBuilder;\n"
         + "import java.lang.SuppressWarnings;\n"
-        + "import java.util.ArrayList;\n"
         + "import java.util.Map;\n"
         + "import " + GENERATED + ";\n"
         + "\n"
@@ -2618,16 +2723,19 @@ public class AutoValueGsonExtensionTest {
         + "  }\n"
         + "\n"
         + "  static final class GsonTypeAdapter extends TypeAdapter<Test> {\n"
+        + "    private static final FieldNames FIELD_NAMES = new FieldNames($AutoValue_Test.class,\n"
+        + "        new String[] {\"a\", \"transientProperty\"},\n"
+        + "        new String[] {\"A\", \"TransientProperty\"},\n"
+        + "        new String[] {\"A\", \"Transient Property\"},\n"
+        + "        new String[] {\"a\", \"transient_property\"},\n"
+        + "        new String[] {\"a\", \"transient-property\"},\n"
+        + "        new String[] {\"a\", \"transient.property\"});\n"
         + "    private volatile TypeAdapter<String> string_adapter;\n"
         + "    private final Map<String, String> realFieldNames;\n"
         + "    private final Gson gson;\n"
         + "    GsonTypeAdapter(Gson gson) {\n"
-        + "      ArrayList<String> fields = new ArrayList<String>();\n"
-        + "      fields.add(\"a\");\n"
-        + "      fields.add(\"transientProperty\");\n"
         + "      this.gson = gson;\n"
-        + "      this.realFieldNames = Util.renameFields($AutoValue_Test.class, fields, gson"
-        + ".fieldNamingStrategy());\n"
+        + "      this.realFieldNames = FIELD_NAMES.get(gson.fieldNamingStrategy());\n"
         + "    }\n"
         + "    @Override\n"
         + "    @SuppressWarnings(\"unchecked\")\n"
@@ -2638,9 +2746,7 @@ public class AutoValueGsonExtensionTest {
         + "      }\n"
         + "      jsonWriter.beginObject();\n"
         + "      jsonWriter.name(realFieldNames.get(\"a\"));\n"
-        + "      if (object.a() == null) {\n"
-        + "        jsonWriter.nullValue();\n"
-        + "      } else {\n"
+        + "      {\n"
         + "        TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "        if (string_adapter == null) {\n"
         + "          this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -2661,13 +2767,13 @@ public class AutoValueGsonExtensionTest {
         + "      String transientProperty = null;\n"
         + "      while (jsonReader.hasNext()) {\n"
         + "        String _name = jsonReader.nextName();\n"
-        + "        if (jsonReader.peek() == JsonToken.NULL) {\n"
-        + "          jsonReader.nextNull();\n"
-        + "          continue;\n"
-        + "        }\n"
         + "        switch (_name) {\n"
         + "          default: {\n"
         + "            if (realFieldNames.get(\"a\").equals(_name)) {\n"
+        + "              if (jsonReader.peek() == JsonToken.NULL) {\n"
+        + "                jsonReader.nextNull();\n"
+        + "                continue;\n"
+        + "              }\n"
         + "              TypeAdapter<String> string_adapter = this.string_adapter;\n"
         + "              if (string_adapter == null) {\n"
         + "                this.string_adapter = string_adapter = gson.getAdapter(String.class);\n"
@@ -2731,6 +2837,982 @@ public class AutoValueGsonExtensionTest {
         .withErrorContaining("Required property cannot be transient!");
   }
 
+  @Test public void generatesEnumAdapters() {
+    JavaFileObject status = JavaFileObjects.forSourceString("test.Status", ""
+        + "package test;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "enum Status {\n"
+        + "  @SerializedName(\"new\") NEW,\n"
+        + "  @SerializedName(value = \"done\", alternate = {\"finished\"}) DONE\n"
+        + "}");
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract Status status();\n"
+        + "  public abstract Status previous();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .withOptions("-Aautovaluegson.enumAdapters")
+        .compile(status, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private static final class Status_EnumAdapter extends TypeAdapter<Status>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("this.status_adapter = status_adapter = "
+            + "Util.enumAdapter(gson, Status.class, new Status_EnumAdapter());");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("case \"finished\":");
+    // an adapter registered with Gson may be used instead, which needn't read a JSON null
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .containsMatch("continue;\\s+}\\s+TypeAdapter<Status>");
+  }
+
+  @Test public void resolvesEnumAdaptersWithGsonByDefault() {
+    JavaFileObject status = JavaFileObjects.forSourceString("test.Status", ""
+        + "package test;\n"
+        + "enum Status { NEW, DONE }");
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract Status status();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(status, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("this.status_adapter = status_adapter = gson.getAdapter(Status.class);");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .doesNotContain("Status_EnumAdapter");
+  }
+
+  @Test public void omitsDefaults() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonOmitDefaults;\n"
+        + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "import java.util.List;\n"
+        + "@GsonOmitDefaults @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract int count();\n"
+        + "  public abstract List<String> tags();\n"
+        + "  @Nullable public abstract String note();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(nullable, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (count != 0) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (!tags.isEmpty()) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (note != null) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("List<String> tags = Collections.emptyList();");
+  }
+
+  @Test public void omitDefaultsWithoutRestorableDefault_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonOmitDefaults;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  @GsonOmitDefaults public abstract String name();\n"
+        + "}");
+
+    assertAbout(javaSources())
+        .that(Arrays.asList(nullable, source))
+        .processedWith(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .failsToCompile()
+        .withErrorContaining("@GsonOmitDefaults property has no default value");
+  }
+
+  @Test public void omitDefaultsOfSortedSetWithoutComparableElements_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonOmitDefaults;\n"
+        + "import java.util.SortedSet;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  @GsonOmitDefaults public abstract SortedSet<Object> values();\n"
+        + "}");
+
+    assertAbout(javaSources())
+        .that(Arrays.asList(nullable, source))
+        .processedWith(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .failsToCompile()
+        .withErrorContaining("@GsonOmitDefaults property has no default value");
+  }
+
+  @Test public void compactKeys() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "import com.ryanharter.auto.value.gson.GsonCompactKeys;\n"
+        + "import com.ryanharter.auto.value.gson.GsonShortName;\n"
+        + "@GsonCompactKeys @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract int count();\n"
+        + "  @SerializedName(\"Name\") public abstract String name();\n"
+        + "  @GsonShortName(\"t\") public abstract String type();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("implements CompactKeysAdapter<Test>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private final TypeAdapter<Test> compactAdapter = new TypeAdapter<Test>() {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("return compactAdapter;");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("jsonWriter.name(compact ? \"0\" : \"count\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("jsonWriter.name(compact ? \"1\" : \"Name\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("case \"t\": {");
+  }
+
+  @Test public void compactKeysCollision_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonCompactKeys;\n"
+        + "import com.ryanharter.auto.value.gson.GsonShortName;\n"
+        + "@GsonCompactKeys @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "  @GsonShortName(\"name\") public abstract String type();\n"
+        + "}");
+
+    assertAbout(javaSources())
+        .that(Arrays.asList(source))
+        .processedWith(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .failsToCompile()
+        .withErrorContaining("Short key \"name\" of type collides with a name of name.");
+  }
+
+  @Test public void columnar() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "import com.ryanharter.auto.value.gson.GsonColumnar;\n"
+        + "@GsonColumnar @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract int count();\n"
+        + "  @SerializedName(value = \"Name\", alternate = \"n\") public abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("implements ColumnarAdapter<Test>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private final ColumnarListAdapter<Test> columnarAdapter = "
+            + "new ColumnarListAdapter<Test>() {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("return columnarAdapter;");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("switch (_i < _columns.length ? _columns[_i] : -1) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("return readColumnarRow(jsonReader, _columns);");
+  }
+
+  @Test public void columnarRowsShareAdapterFields() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonColumnar;\n"
+        + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "import java.util.List;\n"
+        + "@GsonColumnar @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "  @Nullable public abstract String nickname();\n"
+        + "  public abstract List<String> tags();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private void writeColumnarRow(JsonWriter jsonWriter, Test object)");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private Test readColumnarRow(JsonReader jsonReader, int[] _columns)");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("writeColumnarRow(jsonWriter, object);");
+  }
+
+  @Test public void cacheSerialized() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonCacheSerialized;\n"
+        + "@GsonCacheSerialized @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("serializedCache.write(jsonWriter, object, this);");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("public void writeUncached(JsonWriter jsonWriter, Test object)");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("this.serializedCache = new SerializedCache<>(gson);");
+  }
+
+  @Test public void cacheSerializedMetrics() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonCacheSerialized;\n"
+        + "@GsonCacheSerialized @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.metrics")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    // cache hits are timed too
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("public void write(JsonWriter jsonWriter, Test object) throws IOException {\n"
+            + "      long _start = System.nanoTime();\n"
+            + "      boolean _failed = false;\n"
+            + "      try {\n"
+            + "        serializedCache.write(jsonWriter, object, this);\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("public void writeUncached(JsonWriter jsonWriter, Test object) "
+            + "throws IOException {\n"
+            + "      if (object == null) {\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .doesNotContainMatch("recordWrite[\\s\\S]*recordWrite");
+  }
+
+  @Test public void standaloneCacheSerialized_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonCacheSerialized;\n"
+        + "import com.ryanharter.auto.value.gson.GsonStandalone;\n"
+        + "@GsonCacheSerialized @GsonStandalone @GenerateTypeAdapter @AutoValue\n"
+        + "abstract class Test {\n"
+        + "  abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorContaining(
+        "@GsonStandalone types can't be @GsonCacheSerialized.");
+  }
+
+  @Test public void delta() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonDelta;\n"
+        + "import com.ryanharter.auto.value.gson.Nullable;\n"
+        + "@GsonDelta @AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract double ratio();\n"
+        + "  public abstract String name();\n"
+        + "  @Nullable public abstract String nickname();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("implements DeltaAdapter<Test>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (Double.doubleToLongBits(_base.ratio()) != "
+            + "Double.doubleToLongBits(object.ratio())) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (!Objects.equals(_base.name(), object.name())) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("String name = _base.name();");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("nickname = null;");
+    // only the clearing null is forced, changed values keep the writer's setting
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("Util.writeNullMember(jsonWriter, \"nickname\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .doesNotContain("setSerializeNulls(true)");
+  }
+
+  @Test public void views() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonView;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public interface Public {}\n"
+        + "  public interface Internal extends Public {}\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "  @GsonView(Public.class) public abstract String avatar();\n"
+        + "  @GsonView(Internal.class) public abstract String email();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("implements ViewAdapter<Test>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (Test.Public.class.isAssignableFrom(view)) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("TypeAdapter<Test> existing = viewAdapters.putIfAbsent(view, adapter);");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private void writeView_Public(JsonWriter jsonWriter, Test object)");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private void writeView_Internal(JsonWriter jsonWriter, Test object)");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private void writeUnviewed(JsonWriter jsonWriter, Test object)");
+  }
+
+  @Test public void versions() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonSince;\n"
+        + "import com.ryanharter.auto.value.gson.GsonUntil;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "  @GsonUntil(2.0) public abstract String login();\n"
+        + "  @GsonSince(2.0) public abstract String email();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if (!Util.hasVersion(gson)) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("@Since(2.0)\n"
+            + "    private static final class VersionBound0 {\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("} else if (Util.versionExcludes(gson, VersionBound0.class)) {\n"
+            + "        this.versionMask = 0x1L;\n"
+            + "      } else {\n"
+            + "        this.versionMask = 0x2L;\n"
+            + "      }");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if ((versionMask & 0x2L) != 0) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("if ((versionMask & 0x2L) == 0) {");
+  }
+
+  @Test public void propertyAdapters() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.google.gson.TypeAdapterFactory;\n"
+        + "import com.google.gson.reflect.TypeToken;\n"
+        + "import com.google.gson.stream.JsonReader;\n"
+        + "import com.google.gson.stream.JsonWriter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonPropertyAdapter;\n"
+        + "import java.io.IOException;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static class Upper extends TypeAdapter<String> {\n"
+        + "    @Override public void write(JsonWriter out, String value) throws IOException {\n"
+        + "      out.value(value.toUpperCase());\n"
+        + "    }\n"
+        + "    @Override public String read(JsonReader in) throws IOException {\n"
+        + "      return in.nextString();\n"
+        + "    }\n"
+        + "  }\n"
+        + "  public static class Counting extends Upper {\n"
+        + "    int count;\n"
+        + "  }\n"
+        + "  public static class Factory implements TypeAdapterFactory {\n"
+        + "    @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n"
+        + "      return gson.getAdapter(type);\n"
+        + "    }\n"
+        + "  }\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  @GsonPropertyAdapter(Upper.class) public abstract String a();\n"
+        + "  @GsonPropertyAdapter(value = Counting.class, nullSafe = false) public abstract String b();\n"
+        + "  @GsonPropertyAdapter(Factory.class) public abstract String c();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private static final TypeAdapter<String> a_typeAdapter = "
+            + "new Test.Upper().nullSafe();");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("private final TypeAdapter<String> b_typeAdapter = new Test.Counting();");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("this.c_typeAdapter = c_typeAdapter = (TypeAdapter<String>) "
+            + "new Test.Factory().create(gson, TypeToken.get(String.class)).nullSafe();");
+    // only the adapter that isn't null-safe has a JSON null skipped for it
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .containsMatch("jsonReader\\.nextNull\\(\\);\\s+continue;\\s+}\\s+"
+            + "b = b_typeAdapter\\.read\\(jsonReader\\);");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .doesNotContainMatch("continue;\\s+}\\s+a = a_typeAdapter\\.read\\(jsonReader\\);");
+  }
+
+  @Test public void propertyAdapterNotAnAdapter_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonPropertyAdapter;\n"
+        + "@AutoValue public abstract class Test {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  @GsonPropertyAdapter(String.class) public abstract String a();\n"
+        + "}");
+
+    assertAbout(javaSources())
+        .that(Arrays.asList(source))
+        .processedWith(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .failsToCompile()
+        .withErrorContaining("@GsonPropertyAdapter requires a TypeAdapter or TypeAdapterFactory");
+  }
+
+  @Test public void subtypes() {
+    JavaFileObject base = JavaFileObjects.forSourceString("test.Event", ""
+        + "package test;\n"
+        + "import com.ryanharter.auto.value.gson.GsonSubtypes;\n"
+        + "@GsonSubtypes(@GsonSubtypes.Type(value = Test.class, name = \"test\"))\n"
+        + "public abstract class Event {\n"
+        + "}");
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.Gson;\n"
+        + "import com.google.gson.TypeAdapter;\n"
+        + "@AutoValue public abstract class Test extends Event {\n"
+        + "  public static TypeAdapter<Test> typeAdapter(Gson gson) {\n"
+        + "    return new AutoValue_Test.GsonTypeAdapter(gson);\n"
+        + "  }\n"
+        + "  public abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(base, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("implements PropertiesAdapter<Test>");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("public void writeProperties(JsonWriter jsonWriter, Test object) "
+            + "throws IOException {\n"
+            + "      jsonWriter.name(\"name\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.AutoValue_Test")
+        .contentsAsUtf8String()
+        .contains("public Test readProperties(JsonReader jsonReader) throws IOException {\n"
+            + "      String name = null;");
+  }
+
+  @Test public void standalone() {
+    JavaFileObject point = JavaFileObjects.forSourceString("test.Point", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonStandalone;\n"
+        + "@GsonStandalone @GenerateTypeAdapter @AutoValue abstract class Point {\n"
+        + "  abstract int x();\n"
+        + "  abstract int y();\n"
+        + "}");
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonStandalone;\n"
+        + "@GsonStandalone @GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  enum Kind { A, B }\n"
+        + "  abstract String name();\n"
+        + "  abstract Kind kind();\n"
+        + "  abstract Point point();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(point, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("public final class Test_GsonTypeAdapter extends TypeAdapter<Test> {\n"
+            + "  public static final Test_GsonTypeAdapter INSTANCE = new Test_GsonTypeAdapter();\n"
+            + "\n"
+            + "  private static final TypeAdapter<String> string_adapter = ScalarAdapters.STRING;\n"
+            + "\n"
+            + "  private static final TypeAdapter<Test.Kind> kind_adapter = "
+            + "new Test_Kind_EnumAdapter();\n"
+            + "\n"
+            + "  private static final TypeAdapter<Point> point_adapter = "
+            + "Point_GsonTypeAdapter.INSTANCE;\n"
+            + "\n"
+            + "  private Test_GsonTypeAdapter() {\n"
+            + "  }");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("jsonWriter.name(\"point\");\n"
+            + "    {\n"
+            + "      point_adapter.write(jsonWriter, object.point());\n"
+            + "    }");
+    assertThat(compilation)
+        .generatedSourceFile("test.Point_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("private static final TypeAdapter<Integer> int__adapter = "
+            + "ScalarAdapters.INTEGER;");
+    assertThat(compilation)
+        .generatedFile(CLASS_OUTPUT, "META-INF/proguard/avg-test.Test.pro")
+        .contentsAsUtf8String()
+        .contains("    <init>();\n"
+            + "    public static test.Test_GsonTypeAdapter INSTANCE;\n");
+  }
+
+  @Test public void standaloneWithGsonProperty_shouldFail() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonStandalone;\n"
+        + "import java.util.List;\n"
+        + "@GsonStandalone @GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  abstract List<String> names();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorContaining(
+        "@GsonStandalone properties must be primitives, strings, enums or @GsonStandalone types.");
+  }
+
+  @Test public void metrics() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "@GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.metrics")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("private static final AdapterMetrics.TypeMetrics METRICS = "
+            + "AdapterMetrics.get().forType(Test.class);");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("public void write(JsonWriter jsonWriter, Test object) throws IOException {\n"
+            + "    long _start = System.nanoTime();\n"
+            + "    boolean _failed = false;\n"
+            + "    try {\n"
+            + "      if (object == null) {\n"
+            + "        jsonWriter.nullValue();\n"
+            + "        return;\n"
+            + "      }");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("    } catch (Throwable e) {\n"
+            + "      _failed = true;\n"
+            + "      throw e;\n"
+            + "    } finally {\n"
+            + "      METRICS.recordRead(System.nanoTime() - _start, _failed);\n"
+            + "    }");
+
+    Compilation unmetered = javac()
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(unmetered).succeeded();
+    assertThat(unmetered)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .doesNotContain("METRICS");
+  }
+
+  @Test public void jfrEvents() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "@GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  abstract String name();\n"
+        + "  abstract int count();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.jfr")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("private static final AdapterEvents EVENTS = "
+            + "AdapterEvents.forType(Test.class, 2);");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("public Test read(JsonReader jsonReader) throws IOException {\n"
+            + "    AdapterEvents.Span _span = EVENTS.isEnabled() ? EVENTS.beginRead() : null;\n"
+            + "    boolean _failed = false;\n"
+            + "    try {\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("    } finally {\n"
+            + "      if (_span != null) {\n"
+            + "        _span.finish(_failed);\n"
+            + "      }\n"
+            + "    }");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .doesNotContain("METRICS");
+  }
+
+  @Test public void nameStats() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "@GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  @SerializedName(value = \"name\", alternate = {\"title\", \"label\"})\n"
+        + "  abstract String name();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.nameStats")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("private static final NameStats NAME_STATS = "
+            + "NameStats.forType(Test.class, \"title\", \"label\");");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("        case \"title\":\n"
+            + "        case \"label\":\n"
+            + "        case \"name\": {\n"
+            + "          if (!\"name\".equals(_name)) {\n"
+            + "            NAME_STATS.alternate(_name);\n"
+            + "          }\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.Test_GsonTypeAdapter")
+        .contentsAsUtf8String()
+        .contains("        default: {\n"
+            + "          NAME_STATS.unknown(_name);\n"
+            + "          jsonReader.skipValue();\n"
+            + "        }");
+  }
+
+  @Test public void report() {
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.google.gson.annotations.SerializedName;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import java.util.List;\n"
+        + "@GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  @SerializedName(value = \"name\", alternate = \"title\")\n"
+        + "  abstract String name();\n"
+        + "  abstract int count();\n"
+        + "  abstract List<String> tags();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.report")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedFile(CLASS_OUTPUT, "META-INF/auto-value-gson/avg-test.Test.json")
+        .contentsAsUtf8String()
+        .contains("{\n"
+            + "  \"type\": \"test.Test\",\n"
+            + "  \"adapter\": \"test.Test_GsonTypeAdapter\",\n"
+            + "  \"propertyCount\": 3,\n"
+            + "  \"switchNames\": 2,\n"
+            + "  \"alternateNames\": 1,\n"
+            + "  \"comparedNames\": 2,\n");
+    assertThat(compilation)
+        .generatedFile(CLASS_OUTPUT, "META-INF/auto-value-gson/avg-test.Test.json")
+        .contentsAsUtf8String()
+        .contains("  \"boxedProperties\": [\n"
+            + "    \"count\"\n"
+            + "  ],\n"
+            + "  \"lazyAdapters\": [\n"
+            + "    \"string_adapter\",\n"
+            + "    \"int__adapter\",\n"
+            + "    \"list__string_adapter\"\n"
+            + "  ],\n"
+            + "  \"runtimeTypeTokens\": []\n"
+            + "}\n");
+  }
+
+  @Test public void reportSkipsPrimitiveAndScalarAdapters() {
+    JavaFileObject point = JavaFileObjects.forSourceString("test.Point", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import com.ryanharter.auto.value.gson.GsonStandalone;\n"
+        + "@GsonStandalone @GenerateTypeAdapter @AutoValue abstract class Point {\n"
+        + "  abstract int x();\n"
+        + "  abstract int y();\n"
+        + "}");
+    JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+        + "package test;\n"
+        + "import com.google.auto.value.AutoValue;\n"
+        + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+        + "import java.util.List;\n"
+        + "import java.util.Set;\n"
+        + "@GenerateTypeAdapter @AutoValue abstract class Test {\n"
+        + "  abstract int count();\n"
+        + "  abstract int[] ids();\n"
+        + "  abstract List<Long> times();\n"
+        + "  abstract float[] weights();\n"
+        + "  abstract Set<Integer> codes();\n"
+        + "  abstract Point point();\n"
+        + "}");
+
+    Compilation compilation = javac()
+        .withOptions("-Aautovaluegson.report")
+        .withProcessors(new AutoValueProcessor(Lists.newArrayList(new AutoValueGsonExtension())))
+        .compile(point, source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedFile(CLASS_OUTPUT, "META-INF/auto-value-gson/avg-test.Test.json")
+        .contentsAsUtf8String()
+        .contains("  \"boxedProperties\": [\n"
+            + "    \"count\",\n"
+            + "    \"weights\",\n"
+            + "    \"codes\"\n"
+            + "  ],\n");
+    assertThat(compilation)
+        .generatedFile(CLASS_OUTPUT, "META-INF/auto-value-gson/avg-test.Point.json")
+        .contentsAsUtf8String()
+        .contains("  \"boxedProperties\": [],\n");
+  }
+
   @Test public void proguardRulesShouldUseReflectionName() {
     JavaFileObject source = JavaFileObjects.forSourceString("test.Test", "package test;\n"
         + "import com.google.auto.value.AutoValue;\n"
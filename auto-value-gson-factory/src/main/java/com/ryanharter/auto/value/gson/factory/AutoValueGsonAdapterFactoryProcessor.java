@@ -22,7 +22,9 @@ import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -117,6 +119,12 @@ public class AutoValueGsonAdapterFactoryProcessor extends AbstractProcessor {
       return false;
     }
 
+    // Looked up once per round, as every factory checks every element.
+    Map<TypeElement, ExecutableElement> typeAdapterMethods = new HashMap<>();
+    for (TypeElement element : elements) {
+      typeAdapterMethods.put(element, getTypeAdapterMethod(element));
+    }
+
     for (Element element : adapterFactories) {
       if (!element.getModifiers().contains(ABSTRACT)) {
         error(element, "Must be abstract!");
@@ -144,7 +152,7 @@ public class AutoValueGsonAdapterFactoryProcessor extends AbstractProcessor {
                 break;
             }
             // If we got here, the class is visible. Now check the typeAdapter method
-            ExecutableElement adapterMethod = getTypeAdapterMethod(e);
+            ExecutableElement adapterMethod = typeAdapterMethods.get(e);
             if (adapterMethod == null) {
               return false;
             }
@@ -165,8 +173,8 @@ public class AutoValueGsonAdapterFactoryProcessor extends AbstractProcessor {
           .collect(toList());
 
 
-      TypeSpec typeAdapterFactory = createTypeAdapterFactory(type, applicableElements, packageName,
-              adapterName, qualifiedName);
+      TypeSpec typeAdapterFactory = createTypeAdapterFactory(type, applicableElements,
+          typeAdapterMethods, packageName, adapterName, qualifiedName);
       JavaFile file = JavaFile.builder(packageName, typeAdapterFactory).build();
       try {
         file.writeTo(processingEnv.getFiler());
@@ -189,6 +197,7 @@ public class AutoValueGsonAdapterFactoryProcessor extends AbstractProcessor {
   private TypeSpec createTypeAdapterFactory(
       TypeElement sourceElement,
       List<TypeElement> elements,
+      Map<TypeElement, ExecutableElement> typeAdapterMethods,
       String packageName,
       String adapterName,
       String qualifiedName) {
@@ -223,7 +232,7 @@ public class AutoValueGsonAdapterFactoryProcessor extends AbstractProcessor {
 
     List<Pair<TypeElement, ExecutableElement>> properties = elements.stream()
         .peek(factory::addOriginatingElement)
-        .map(e -> Pair.create(e, getTypeAdapterMethod(e)))
+        .map(e -> Pair.create(e, typeAdapterMethods.get(e)))
         .filter(entry -> entry.second != null)
         .collect(Collectors.toList());
 
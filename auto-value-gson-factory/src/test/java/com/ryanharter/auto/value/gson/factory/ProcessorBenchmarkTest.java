@@ -0,0 +1,189 @@
+package com.ryanharter.auto.value.gson.factory;
+
+import com.google.auto.value.processor.AutoValueProcessor;
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import com.ryanharter.auto.value.gson.AutoValueGsonExtension;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures how much the processors add to the compilation of a large model codebase: thousands of
+ * synthetic {@code @AutoValue} types, with a mix of builders, generics, {@code SerializedName}
+ * alternates and {@code @GenerateTypeAdapter}, compiled with AutoValue alone, with
+ * {@link AutoValueGsonExtension}, and with {@link AutoValueGsonAdapterFactoryProcessor} too.
+ *
+ * <p>Only runs with {@code -Pbenchmark}, as it takes minutes:
+ * <pre>
+ * ./gradlew :auto-value-gson-factory:test -Pbenchmark --tests '*ProcessorBenchmarkTest'
+ * </pre>
+ * The number of types and iterations can be set by passing the
+ * {@code autovaluegson.benchmark.types} and {@code autovaluegson.benchmark.iterations} system
+ * properties to Gradle with {@code -D}.
+ */
+@RunWith(JUnit4.class)
+public class ProcessorBenchmarkTest {
+
+  private enum Setup {
+    AUTO_VALUE("AutoValue") {
+      @Override List<Processor> processors() {
+        return ImmutableList.of(new AutoValueProcessor(Collections.emptyList()));
+      }
+    },
+    EXTENSION("+ AutoValueGsonExtension") {
+      @Override List<Processor> processors() {
+        return ImmutableList.of(
+            new AutoValueProcessor(ImmutableList.of(new AutoValueGsonExtension())));
+      }
+    },
+    FACTORY("+ AutoValueGsonAdapterFactoryProcessor") {
+      @Override List<Processor> processors() {
+        return ImmutableList.of(
+            new AutoValueProcessor(ImmutableList.of(new AutoValueGsonExtension())),
+            new AutoValueGsonAdapterFactoryProcessor());
+      }
+    };
+
+    final String label;
+
+    Setup(String label) {
+      this.label = label;
+    }
+
+    abstract List<Processor> processors();
+  }
+
+  @Test public void compileLargeModel() {
+    assumeTrue(Boolean.getBoolean("autovaluegson.benchmark"));
+    int types = Integer.getInteger("autovaluegson.benchmark.types", 2000);
+    int iterations = Integer.getInteger("autovaluegson.benchmark.iterations", 3);
+    List<JavaFileObject> sources = createSources(types);
+
+    Setup[] setups = Setup.values();
+    long[] bestNanos = new long[setups.length];
+    long[] bestBytes = new long[setups.length];
+    // the first round warms up javac, and isn't counted
+    for (int round = 0; round <= iterations; round++) {
+      for (Setup setup : setups) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        Compilation compilation = javac().withProcessors(setup.processors()).compile(sources);
+        long nanos = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+        assertThat(compilation).succeeded();
+        if (round > 0) {
+          int i = setup.ordinal();
+          bestNanos[i] = round == 1 ? nanos : Math.min(bestNanos[i], nanos);
+          bestBytes[i] = round == 1 ? bytes : Math.min(bestBytes[i], bytes);
+        }
+      }
+    }
+
+    System.out.printf("Compiled %d types, best of %d:%n", types, iterations);
+    for (Setup setup : setups) {
+      int i = setup.ordinal();
+      System.out.printf("%-40s %8d ms %8d MB allocated%n", setup.label,
+          bestNanos[i] / 1_000_000, bestBytes[i] >> 20);
+    }
+  }
+
+  /** Returns the bytes allocated by this thread, which runs javac, or 0 if it isn't supported. */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static List<JavaFileObject> createSources(int types) {
+    List<JavaFileObject> sources = new ArrayList<>(types + 1);
+    for (int i = 0; i < types; i++) {
+      String name = "Model" + i;
+      String source;
+      switch (i % 4) {
+        case 0:
+          source = ""
+              + "@GenerateTypeAdapter @AutoValue public abstract class " + name + " {\n"
+              + "  @SerializedName(value = \"id\", alternate = {\"identifier\", \"key\"})\n"
+              + "  public abstract long id();\n"
+              + "  public abstract String name();\n"
+              + "  public abstract List<String> tags();\n"
+              + "}";
+          break;
+        case 1:
+          source = ""
+              + "@AutoValue public abstract class " + name + " {\n"
+              + "  public abstract String name();\n"
+              + "  @SerializedName(value = \"count\", alternate = \"total\")\n"
+              + "  public abstract int count();\n"
+              + "  public abstract Map<String, Integer> scores();\n"
+              + "  public static Builder builder() {\n"
+              + "    return new AutoValue_" + name + ".Builder();\n"
+              + "  }\n"
+              + "  public static TypeAdapter<" + name + "> typeAdapter(Gson gson) {\n"
+              + "    return null;\n"
+              + "  }\n"
+              + "  @AutoValue.Builder public abstract static class Builder {\n"
+              + "    public abstract Builder name(String name);\n"
+              + "    public abstract Builder count(int count);\n"
+              + "    public abstract Builder scores(Map<String, Integer> scores);\n"
+              + "    public abstract " + name + " build();\n"
+              + "  }\n"
+              + "}";
+          break;
+        case 2:
+          source = ""
+              + "@GenerateTypeAdapter @AutoValue public abstract class " + name + "<T> {\n"
+              + "  public abstract T value();\n"
+              + "  public abstract List<T> values();\n"
+              + "  @SerializedName(value = \"label\", alternate = \"title\")\n"
+              + "  public abstract String label();\n"
+              + "}";
+          break;
+        default:
+          source = ""
+              + "@AutoValue public abstract class " + name + " {\n"
+              + "  public abstract Model" + (i - 3) + " child();\n"
+              + "  public abstract double weight();\n"
+              + "  public static TypeAdapter<" + name + "> typeAdapter(Gson gson) {\n"
+              + "    return null;\n"
+              + "  }\n"
+              + "}";
+          break;
+      }
+      sources.add(JavaFileObjects.forSourceString("bench." + name, ""
+          + "package bench;\n"
+          + "import com.google.auto.value.AutoValue;\n"
+          + "import com.google.gson.Gson;\n"
+          + "import com.google.gson.TypeAdapter;\n"
+          + "import com.google.gson.annotations.SerializedName;\n"
+          + "import com.ryanharter.auto.value.gson.GenerateTypeAdapter;\n"
+          + "import java.util.List;\n"
+          + "import java.util.Map;\n"
+          + source));
+    }
+    sources.add(JavaFileObjects.forSourceString("bench.BenchFactory", ""
+        + "package bench;\n"
+        + "import com.google.gson.TypeAdapterFactory;\n"
+        + "import com.ryanharter.auto.value.gson.GsonTypeAdapterFactory;\n"
+        + "@GsonTypeAdapterFactory\n"
+        + "public abstract class BenchFactory implements TypeAdapterFactory {\n"
+        + "}"));
+    return sources;
+  }
+}
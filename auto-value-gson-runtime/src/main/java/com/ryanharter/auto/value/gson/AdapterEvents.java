@@ -0,0 +1,72 @@
+package com.ryanharter.auto.value.gson;
+
+import java.lang.reflect.Constructor;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Emits a Java Flight Recorder event for each read and write of a generated TypeAdapter, when
+ * compiled with the {@code autovaluegson.jfr} processor option. Events are named
+ * {@code com.ryanharter.auto.value.gson.Adapter}, and carry the AutoValue type, its property count,
+ * the operation, the duration and whether it failed.
+ *
+ * <p>Adapters only create events while a recording has them enabled, and on JVMs without JFR they
+ * never do. JFR is part of JDK 11 and later, and of JDK 8 from update 262. The classes that use it
+ * are only loaded reflectively, once {@code jdk.jfr} is found, so other JVMs never link them.
+ */
+public abstract class AdapterEvents {
+  private static final AdapterEvents DISABLED = new AdapterEvents() {
+    @Override public boolean isEnabled() {
+      return false;
+    }
+
+    @Override public Span beginRead() {
+      return null;
+    }
+
+    @Override public Span beginWrite() {
+      return null;
+    }
+  };
+
+  @Nullable private static final Constructor<? extends AdapterEvents> JFR_EVENTS = jfrEvents();
+
+  /** Returns the events of the generated adapter of {@code type}. */
+  public static AdapterEvents forType(Class<?> type, int propertyCount) {
+    if (JFR_EVENTS == null) {
+      return DISABLED;
+    }
+    try {
+      return JFR_EVENTS.newInstance(type, propertyCount);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return DISABLED;
+    }
+  }
+
+  @Nullable private static Constructor<? extends AdapterEvents> jfrEvents() {
+    ClassLoader loader = AdapterEvents.class.getClassLoader();
+    try {
+      Class.forName("jdk.jfr.Event", false, loader);
+      return Class.forName("com.ryanharter.auto.value.gson.internal.JfrAdapterEvents", true, loader)
+          .asSubclass(AdapterEvents.class)
+          .getConstructor(Class.class, int.class);
+    } catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+      // no JFR in this runtime, or it can't be used
+      return null;
+    }
+  }
+
+  /** Returns true if a recording is running with adapter events enabled. */
+  public abstract boolean isEnabled();
+
+  /** Starts the event of a read, which must only be called if {@link #isEnabled()}. */
+  public abstract Span beginRead();
+
+  /** Starts the event of a write, which must only be called if {@link #isEnabled()}. */
+  public abstract Span beginWrite();
+
+  /** An event that has begun. */
+  public interface Span {
+    /** Ends the event, and commits it if it passes the recording's threshold. */
+    void finish(boolean failed);
+  }
+}
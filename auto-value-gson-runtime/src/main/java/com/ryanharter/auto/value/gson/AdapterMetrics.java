@@ -0,0 +1,45 @@
+package com.ryanharter.auto.value.gson;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Records the reads and writes of generated TypeAdapters. Adapters only call it when compiled with
+ * the {@code autovaluegson.metrics} processor option, and contain no metrics code otherwise.
+ *
+ * <p>The implementation is the first one registered as a {@link ServiceLoader} service, in a
+ * {@code META-INF/services/com.ryanharter.auto.value.gson.AdapterMetrics} file, or else an
+ * {@link InMemoryAdapterMetrics}.
+ */
+public abstract class AdapterMetrics {
+
+  /** Returns the implementation that generated adapters record to. */
+  public static AdapterMetrics get() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Returns the recorder for the generated adapter of {@code type}. Called once, when the adapter
+   * class is initialized.
+   */
+  public abstract TypeMetrics forType(Class<?> type);
+
+  /** Records the calls of the generated adapter of one type, from any thread. */
+  public interface TypeMetrics {
+    /** Records a read that took {@code nanos}, and threw if {@code failed}. */
+    void recordRead(long nanos, boolean failed);
+
+    /** Records a write that took {@code nanos}, and threw if {@code failed}. */
+    void recordWrite(long nanos, boolean failed);
+  }
+
+  private static final class Holder {
+    static final AdapterMetrics INSTANCE = load();
+
+    private static AdapterMetrics load() {
+      Iterator<AdapterMetrics> implementations =
+          ServiceLoader.load(AdapterMetrics.class, AdapterMetrics.class.getClassLoader()).iterator();
+      return implementations.hasNext() ? implementations.next() : new InMemoryAdapterMetrics();
+    }
+  }
+}
@@ -0,0 +1,708 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A {@link JsonReader} that reads <a href="https://www.rfc-editor.org/rfc/rfc8949">CBOR</a>
+ * instead of JSON text, so that generated TypeAdapters and Gson's own adapters can read the binary
+ * format unchanged:
+ *
+ * <pre>{@code
+ * try (CborReader reader = new CborReader(inputStream)) {
+ *   Foo foo = gson.fromJson(reader, Foo.class);
+ * }
+ * }</pre>
+ *
+ * <p>Maps must have text keys. Byte strings and tags other than the one they wrap aren't
+ * interpreted; byte strings are rejected. Gson's own {@code Map} adapter relies on the internals of
+ * {@code JsonReader}, so register {@link #FACTORY} to read {@code Map}s.
+ */
+public class CborReader extends JsonReader {
+
+  /**
+   * Reads {@code Map}s from a {@link CborReader} through a {@link JsonElement}, and delegates
+   * everything else to the adapter Gson would otherwise use.
+   */
+  public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (!Map.class.isAssignableFrom(type.getRawType())) {
+        return null;
+      }
+      final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+      final TypeAdapter<JsonElement> elementAdapter = gson.getAdapter(JsonElement.class);
+      return new TypeAdapter<T>() {
+        @Override public void write(JsonWriter out, T value) throws IOException {
+          delegate.write(out, value);
+        }
+
+        @Override public T read(JsonReader in) throws IOException {
+          if (in instanceof CborReader) {
+            return delegate.fromJsonTree(elementAdapter.read(in));
+          }
+          return delegate.read(in);
+        }
+      };
+    }
+  };
+
+  private static final Reader UNREADABLE = new Reader() {
+    @Override public int read(char[] buffer, int offset, int count) {
+      throw new UnsupportedOperationException("CborReader reads from its InputStream");
+    }
+
+    @Override public void close() {
+    }
+  };
+
+  private static final int DOCUMENT = 0;
+  private static final int ARRAY = 1;
+  /** An object whose next item is a name. */
+  private static final int OBJECT_NAME = 2;
+  /** An object whose next item is a value. */
+  private static final int OBJECT_VALUE = 3;
+
+  private static final int MAJOR_UNSIGNED = 0;
+  private static final int MAJOR_NEGATIVE = 1;
+  private static final int MAJOR_BYTES = 2;
+  private static final int MAJOR_TEXT = 3;
+  private static final int MAJOR_ARRAY = 4;
+  private static final int MAJOR_MAP = 5;
+  private static final int MAJOR_TAG = 6;
+  private static final int MAJOR_SIMPLE = 7;
+  private static final int INDEFINITE = 31;
+  private static final int BREAK = 0xff;
+  private static final int NESTING_LIMIT = 255;
+  private static final int NONE = -1;
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[8192];
+  private int position;
+  private int limit;
+
+  /** The initial byte of the next data item, once peeked. */
+  private int peeked = NONE;
+
+  private int[] stack = new int[32];
+  /** Items left in each definite-length container, or -1 if it has an indefinite length. */
+  private long[] remaining = new long[32];
+  private String[] pathNames = new String[32];
+  private int[] pathIndices = new int[32];
+  private int stackSize = 1;
+
+  public CborReader(InputStream in) {
+    super(UNREADABLE);
+    if (in == null) {
+      throw new NullPointerException("in == null");
+    }
+    this.in = in;
+    stack[0] = DOCUMENT;
+    remaining[0] = -1;
+  }
+
+  @Override public void beginArray() throws IOException {
+    expect(JsonToken.BEGIN_ARRAY);
+    push(ARRAY, readContainerLength());
+    pathIndices[stackSize - 1] = 0;
+  }
+
+  @Override public void endArray() throws IOException {
+    expect(JsonToken.END_ARRAY);
+    pop();
+  }
+
+  @Override public void beginObject() throws IOException {
+    expect(JsonToken.BEGIN_OBJECT);
+    push(OBJECT_NAME, readContainerLength());
+  }
+
+  @Override public void endObject() throws IOException {
+    expect(JsonToken.END_OBJECT);
+    pop();
+  }
+
+  @Override public boolean hasNext() throws IOException {
+    JsonToken token = peek();
+    return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+        && token != JsonToken.END_DOCUMENT;
+  }
+
+  @Override public JsonToken peek() throws IOException {
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonReader is closed");
+    }
+    int scope = stack[stackSize - 1];
+    if (remaining[stackSize - 1] == 0) {
+      return scope == ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+    }
+    int initial = peekInitial();
+    if (initial == NONE) {
+      if (scope != DOCUMENT) {
+        throw new EOFException("End of input" + locationString());
+      }
+      return JsonToken.END_DOCUMENT;
+    }
+    if (initial == BREAK) {
+      if (scope == DOCUMENT || remaining[stackSize - 1] != -1 || scope == OBJECT_VALUE) {
+        throw syntaxError("Unexpected break");
+      }
+      return scope == ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+    }
+    int majorType = initial >>> 5;
+    if (scope == OBJECT_NAME) {
+      if (majorType != MAJOR_TEXT) {
+        throw syntaxError("Expected a text key");
+      }
+      return JsonToken.NAME;
+    }
+    switch (majorType) {
+      case MAJOR_UNSIGNED:
+      case MAJOR_NEGATIVE:
+        return JsonToken.NUMBER;
+      case MAJOR_BYTES:
+        throw syntaxError("Byte strings are not supported");
+      case MAJOR_TEXT:
+        return JsonToken.STRING;
+      case MAJOR_ARRAY:
+        return JsonToken.BEGIN_ARRAY;
+      case MAJOR_MAP:
+        return JsonToken.BEGIN_OBJECT;
+      case MAJOR_TAG:
+        // read the tagged item as is
+        peeked = NONE;
+        readArgument(initial);
+        return peek();
+      default:
+        switch (initial & 0x1f) {
+          case 20:
+          case 21:
+            return JsonToken.BOOLEAN;
+          case 22:
+          case 23:
+            return JsonToken.NULL;
+          case 25:
+          case 26:
+          case 27:
+            return JsonToken.NUMBER;
+          default:
+            throw syntaxError("Unsupported simple value " + (initial & 0x1f));
+        }
+    }
+  }
+
+  @Override public String nextName() throws IOException {
+    expect(JsonToken.NAME);
+    String name = readText();
+    stack[stackSize - 1] = OBJECT_VALUE;
+    pathNames[stackSize - 1] = name;
+    return name;
+  }
+
+  @Override public String nextString() throws IOException {
+    JsonToken token = peek();
+    String result;
+    if (token == JsonToken.STRING) {
+      result = readText();
+    } else if (token == JsonToken.NUMBER) {
+      int initial = peeked;
+      if (initial >>> 5 == MAJOR_SIMPLE) {
+        result = Double.toString(readFloat());
+      } else {
+        long argument = readArgument(takeInitial());
+        if (initial >>> 5 == MAJOR_UNSIGNED) {
+          result = argument >= 0 ? Long.toString(argument) : unsigned(argument).toString();
+        } else {
+          result = argument >= 0
+              ? Long.toString(-1 - argument)
+              : BigInteger.valueOf(-1).subtract(unsigned(argument)).toString();
+        }
+      }
+    } else {
+      throw unexpected("a string", token);
+    }
+    afterValue();
+    return result;
+  }
+
+  @Override public boolean nextBoolean() throws IOException {
+    expect(JsonToken.BOOLEAN);
+    boolean result = takeInitial() == 0xf5;
+    afterValue();
+    return result;
+  }
+
+  @Override public void nextNull() throws IOException {
+    expect(JsonToken.NULL);
+    takeInitial();
+    afterValue();
+  }
+
+  @Override public double nextDouble() throws IOException {
+    JsonToken token = peek();
+    double result;
+    if (token == JsonToken.NUMBER) {
+      int initial = peeked;
+      if (initial >>> 5 == MAJOR_SIMPLE) {
+        result = readFloat();
+      } else {
+        long argument = readArgument(takeInitial());
+        double magnitude = argument >= 0 ? argument : unsigned(argument).doubleValue();
+        result = initial >>> 5 == MAJOR_UNSIGNED ? magnitude : -1 - magnitude;
+      }
+    } else if (token == JsonToken.STRING) {
+      result = Double.parseDouble(readText());
+    } else {
+      throw unexpected("a double", token);
+    }
+    if (!isLenient() && (Double.isNaN(result) || Double.isInfinite(result))) {
+      throw new MalformedJsonException("JSON forbids NaN and infinities: " + result
+          + locationString());
+    }
+    afterValue();
+    return result;
+  }
+
+  @Override public long nextLong() throws IOException {
+    return nextIntegral(Long.MIN_VALUE, Long.MAX_VALUE, "a long");
+  }
+
+  @Override public int nextInt() throws IOException {
+    return (int) nextIntegral(Integer.MIN_VALUE, Integer.MAX_VALUE, "an int");
+  }
+
+  /**
+   * Reads an integral number between {@code min} and {@code max}. Like a JsonReader, it stays on
+   * a number item that isn't one: the item is buffered before it's read, and read again from its
+   * start after the number is rejected.
+   */
+  private long nextIntegral(long min, long max, String expected) throws IOException {
+    JsonToken token = peek();
+    long result;
+    if (token == JsonToken.NUMBER) {
+      int initial = peeked;
+      require(argumentSize(initial));
+      int start = position;
+      String rejected = null;
+      if (initial >>> 5 == MAJOR_SIMPLE) {
+        double value = readFloat();
+        result = (long) value;
+        if (result != value || result < min || result > max) {
+          rejected = Double.toString(value);
+        }
+      } else {
+        long argument = readArgument(takeInitial());
+        if (argument < 0) {
+          result = 0;
+          rejected = (initial >>> 5 == MAJOR_UNSIGNED
+              ? unsigned(argument)
+              : BigInteger.valueOf(-1).subtract(unsigned(argument))).toString();
+        } else {
+          result = initial >>> 5 == MAJOR_UNSIGNED ? argument : -1 - argument;
+          if (result < min || result > max) {
+            rejected = Long.toString(result);
+          }
+        }
+      }
+      if (rejected != null) {
+        position = start;
+        peeked = initial;
+        throw new NumberFormatException("Expected " + expected + " but was " + rejected
+            + locationString());
+      }
+    } else if (token == JsonToken.STRING) {
+      String text = readText();
+      try {
+        result = Long.parseLong(text);
+      } catch (NumberFormatException e) {
+        double value = Double.parseDouble(text);
+        result = (long) value;
+        if (result != value) {
+          throw new NumberFormatException("Expected " + expected + " but was " + text
+              + locationString());
+        }
+      }
+      if (result < min || result > max) {
+        throw new NumberFormatException("Expected " + expected + " but was " + text
+            + locationString());
+      }
+    } else {
+      throw unexpected(expected, token);
+    }
+    afterValue();
+    return result;
+  }
+
+  @Override public void skipValue() throws IOException {
+    JsonToken token = peek();
+    switch (token) {
+      case NAME:
+        nextName();
+        pathNames[stackSize - 1] = "<skipped>";
+        return;
+      case END_ARRAY:
+      case END_OBJECT:
+      case END_DOCUMENT:
+        throw unexpected("a value", token);
+      default:
+        skipItem(takeInitial(), 0);
+        afterValue();
+    }
+  }
+
+  @Override public void close() throws IOException {
+    peeked = NONE;
+    stackSize = 0;
+    in.close();
+  }
+
+  @Override public String getPath() {
+    StringBuilder result = new StringBuilder().append('$');
+    for (int i = 1; i < stackSize; i++) {
+      if (stack[i] == ARRAY) {
+        result.append('[').append(pathIndices[i]).append(']');
+      } else {
+        result.append('.');
+        if (pathNames[i] != null) {
+          result.append(pathNames[i]);
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  @Override public String toString() {
+    return getClass().getSimpleName() + locationString();
+  }
+
+  private String locationString() {
+    return " at path " + getPath();
+  }
+
+  private void expect(JsonToken expected) throws IOException {
+    JsonToken token = peek();
+    if (token != expected) {
+      throw unexpected(expected.toString(), token);
+    }
+  }
+
+  private IllegalStateException unexpected(String expected, JsonToken token) {
+    return new IllegalStateException("Expected " + expected + " but was " + token
+        + locationString());
+  }
+
+  private MalformedJsonException syntaxError(String message) {
+    return new MalformedJsonException(message + locationString());
+  }
+
+  private void push(int scope, long length) throws IOException {
+    if (stackSize == NESTING_LIMIT) {
+      throw syntaxError("Nesting limit " + NESTING_LIMIT + " reached");
+    }
+    if (stackSize == stack.length) {
+      int newLength = stackSize * 2;
+      stack = Arrays.copyOf(stack, newLength);
+      remaining = Arrays.copyOf(remaining, newLength);
+      pathNames = Arrays.copyOf(pathNames, newLength);
+      pathIndices = Arrays.copyOf(pathIndices, newLength);
+    }
+    stack[stackSize] = scope;
+    remaining[stackSize] = length;
+    pathNames[stackSize] = null;
+    stackSize++;
+  }
+
+  private void pop() throws IOException {
+    if (remaining[stackSize - 1] == -1) {
+      takeInitial(); // the break
+    }
+    stackSize--;
+    afterValue();
+  }
+
+  /** Updates the enclosing scope once a value has been read. */
+  private void afterValue() {
+    int index = stackSize - 1;
+    switch (stack[index]) {
+      case ARRAY:
+        pathIndices[index]++;
+        if (remaining[index] > 0) {
+          remaining[index]--;
+        }
+        break;
+      case OBJECT_VALUE:
+        stack[index] = OBJECT_NAME;
+        if (remaining[index] > 0) {
+          remaining[index]--;
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** Reads the length of the container at the head of the input, or -1 for indefinite. */
+  private long readContainerLength() throws IOException {
+    int initial = takeInitial();
+    if ((initial & 0x1f) == INDEFINITE) {
+      return -1;
+    }
+    long length = readArgument(initial);
+    if (length < 0) {
+      throw syntaxError("Container too large");
+    }
+    return length;
+  }
+
+  private String readText() throws IOException {
+    int initial = takeInitial();
+    if ((initial & 0x1f) != INDEFINITE) {
+      return readUtf8(readArgument(initial));
+    }
+    // concatenated definite-length chunks
+    StringBuilder result = new StringBuilder();
+    for (int chunk = readByte(); chunk != BREAK; chunk = readByte()) {
+      if (chunk >>> 5 != MAJOR_TEXT || (chunk & 0x1f) == INDEFINITE) {
+        throw syntaxError("Malformed text chunk");
+      }
+      result.append(readUtf8(readArgument(chunk)));
+    }
+    return result.toString();
+  }
+
+  private String readUtf8(long length) throws IOException {
+    if (length < 0 || length > Integer.MAX_VALUE) {
+      throw syntaxError("String too long");
+    }
+    int count = (int) length;
+    if (count <= buffer.length) {
+      require(count);
+      String result = new String(buffer, position, count, StandardCharsets.UTF_8);
+      position += count;
+      return result;
+    }
+    byte[] bytes = new byte[count];
+    int copied = 0;
+    while (copied < count) {
+      if (position == limit) {
+        fill();
+      }
+      int n = Math.min(count - copied, limit - position);
+      System.arraycopy(buffer, position, bytes, copied, n);
+      position += n;
+      copied += n;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private double readFloat() throws IOException {
+    int initial = takeInitial();
+    switch (initial & 0x1f) {
+      case 25:
+        return halfToDouble((int) readUnsigned(2));
+      case 26:
+        return Float.intBitsToFloat((int) readUnsigned(4));
+      default:
+        return Double.longBitsToDouble(readUnsigned(8));
+    }
+  }
+
+  private static double halfToDouble(int bits) {
+    int exponent = bits >> 10 & 0x1f;
+    int mantissa = bits & 0x3ff;
+    double value;
+    if (exponent == 0) {
+      value = mantissa * Math.pow(2, -24);
+    } else if (exponent == 31) {
+      value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+    } else {
+      value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+    }
+    return (bits & 0x8000) != 0 ? -value : value;
+  }
+
+  /** Skips a data item whose initial byte was consumed, including any nested items. */
+  private void skipItem(int initial, int depth) throws IOException {
+    if (depth == NESTING_LIMIT) {
+      throw syntaxError("Nesting limit " + NESTING_LIMIT + " reached");
+    }
+    int majorType = initial >>> 5;
+    boolean indefinite = (initial & 0x1f) == INDEFINITE && majorType != MAJOR_SIMPLE;
+    switch (majorType) {
+      case MAJOR_BYTES:
+      case MAJOR_TEXT:
+        if (indefinite) {
+          for (int chunk = readByte(); chunk != BREAK; chunk = readByte()) {
+            skipItem(chunk, depth + 1);
+          }
+        } else {
+          skipBytes(readArgument(initial));
+        }
+        break;
+      case MAJOR_ARRAY:
+      case MAJOR_MAP:
+        if (indefinite) {
+          for (int item = readByte(); item != BREAK; item = readByte()) {
+            skipItem(item, depth + 1);
+          }
+        } else {
+          long count = readArgument(initial);
+          if (count < 0) {
+            throw syntaxError("Container too large");
+          }
+          if (majorType == MAJOR_MAP) {
+            count *= 2;
+          }
+          for (long i = 0; i < count; i++) {
+            skipItem(readByte(), depth + 1);
+          }
+        }
+        break;
+      case MAJOR_TAG:
+        readArgument(initial);
+        skipItem(readByte(), depth + 1);
+        break;
+      default:
+        readArgument(initial);
+        break;
+    }
+  }
+
+  private void skipBytes(long count) throws IOException {
+    if (count < 0) {
+      throw syntaxError("Item too large");
+    }
+    while (count > 0) {
+      if (position == limit) {
+        fill();
+      }
+      int n = (int) Math.min(count, limit - position);
+      position += n;
+      count -= n;
+    }
+  }
+
+  /**
+   * Reads the argument that follows {@code initial}. Arguments above {@code Long.MAX_VALUE} are
+   * returned as negative numbers, to be read as unsigned.
+   */
+  private long readArgument(int initial) throws IOException {
+    int info = initial & 0x1f;
+    if (info < 24) {
+      return info;
+    }
+    switch (info) {
+      case 24:
+        return readUnsigned(1);
+      case 25:
+        return readUnsigned(2);
+      case 26:
+        return readUnsigned(4);
+      case 27:
+        return readUnsigned(8);
+      case INDEFINITE:
+        if (initial >>> 5 == MAJOR_SIMPLE) {
+          return info;
+        }
+        break;
+      default:
+        break;
+    }
+    throw syntaxError("Malformed argument " + info);
+  }
+
+  /** Returns the number of bytes of the argument that follows {@code initial}. */
+  private static int argumentSize(int initial) {
+    switch (initial & 0x1f) {
+      case 24:
+        return 1;
+      case 25:
+        return 2;
+      case 26:
+        return 4;
+      case 27:
+        return 8;
+      default:
+        return 0;
+    }
+  }
+
+  private static BigInteger unsigned(long value) {
+    return BigInteger.valueOf(value).add(BigInteger.ONE.shiftLeft(64));
+  }
+
+  private long readUnsigned(int count) throws IOException {
+    require(count);
+    long result = 0;
+    for (int i = 0; i < count; i++) {
+      result = result << 8 | buffer[position++] & 0xff;
+    }
+    return result;
+  }
+
+  private int peekInitial() throws IOException {
+    if (peeked == NONE) {
+      if (position == limit && !fill(1)) {
+        return NONE;
+      }
+      peeked = buffer[position++] & 0xff;
+    }
+    return peeked;
+  }
+
+  private int takeInitial() throws IOException {
+    int initial = peekInitial();
+    if (initial == NONE) {
+      throw new EOFException("End of input" + locationString());
+    }
+    peeked = NONE;
+    return initial;
+  }
+
+  private int readByte() throws IOException {
+    require(1);
+    return buffer[position++] & 0xff;
+  }
+
+  private void require(int count) throws IOException {
+    if (limit - position < count && !fill(count)) {
+      throw new EOFException("End of input" + locationString());
+    }
+  }
+
+  private void fill() throws IOException {
+    require(1);
+  }
+
+  /** Reads until at least {@code count} bytes are buffered, returning false at end of input. */
+  private boolean fill(int count) throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    }
+    while (limit < count) {
+      int n = in.read(buffer, limit, buffer.length - limit);
+      if (n == -1) {
+        return false;
+      }
+      limit += n;
+    }
+    return true;
+  }
+}
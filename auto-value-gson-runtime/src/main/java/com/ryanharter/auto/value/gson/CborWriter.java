@@ -0,0 +1,400 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link JsonWriter} that writes <a href="https://www.rfc-editor.org/rfc/rfc8949">CBOR</a>
+ * instead of JSON text, so that generated TypeAdapters and Gson's own adapters can write the
+ * binary format unchanged:
+ *
+ * <pre>{@code
+ * try (CborWriter writer = new CborWriter(outputStream)) {
+ *   gson.toJson(value, Foo.class, writer);
+ * }
+ * }</pre>
+ *
+ * <p>Objects and arrays are written with indefinite lengths, numbers as the smallest integer or
+ * float encoding that holds them exactly, and strings as UTF-8 text. Names of {@code null} values
+ * are dropped unless {@link #setSerializeNulls(boolean) serializeNulls} is set, as with JSON.
+ * Raw JSON can't be embedded, so {@link #jsonValue(String)} is unsupported.
+ */
+public class CborWriter extends JsonWriter {
+  private static final Writer UNWRITABLE = new Writer() {
+    @Override public void write(char[] buffer, int offset, int count) {
+      throw new UnsupportedOperationException("CborWriter writes to its OutputStream");
+    }
+
+    @Override public void flush() {
+    }
+
+    @Override public void close() {
+    }
+  };
+
+  private static final int EMPTY_DOCUMENT = 0;
+  private static final int NONEMPTY_DOCUMENT = 1;
+  private static final int ARRAY = 2;
+  private static final int OBJECT = 3;
+
+  private static final int MAJOR_UNSIGNED = 0;
+  private static final int MAJOR_NEGATIVE = 1 << 5;
+  private static final int MAJOR_TEXT = 3 << 5;
+  private static final int BEGIN_INDEFINITE_ARRAY = 0x9f;
+  private static final int BEGIN_INDEFINITE_MAP = 0xbf;
+  private static final int FALSE = 0xf4;
+  private static final int TRUE = 0xf5;
+  private static final int NULL = 0xf6;
+  private static final int FLOAT32 = 0xfa;
+  private static final int FLOAT64 = 0xfb;
+  private static final int BREAK = 0xff;
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[8192];
+  private int position;
+
+  private int[] stack = new int[32];
+  private int stackSize = 1;
+  private String deferredName;
+
+  public CborWriter(OutputStream out) {
+    super(UNWRITABLE);
+    if (out == null) {
+      throw new NullPointerException("out == null");
+    }
+    this.out = out;
+    stack[0] = EMPTY_DOCUMENT;
+  }
+
+  @Override public CborWriter beginArray() throws IOException {
+    open(ARRAY, BEGIN_INDEFINITE_ARRAY);
+    return this;
+  }
+
+  @Override public CborWriter endArray() throws IOException {
+    close(ARRAY);
+    return this;
+  }
+
+  @Override public CborWriter beginObject() throws IOException {
+    open(OBJECT, BEGIN_INDEFINITE_MAP);
+    return this;
+  }
+
+  @Override public CborWriter endObject() throws IOException {
+    close(OBJECT);
+    return this;
+  }
+
+  @Override public CborWriter name(String name) throws IOException {
+    if (name == null) {
+      throw new NullPointerException("name == null");
+    }
+    if (deferredName != null || stack[stackSize - 1] != OBJECT) {
+      throw new IllegalStateException("Nesting problem.");
+    }
+    deferredName = name;
+    return this;
+  }
+
+  @Override public CborWriter value(String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    beforeValue();
+    writeText(value);
+    return this;
+  }
+
+  /**
+   * Always throws, since CBOR has no raw JSON. Adapters that write raw JSON can't write to this
+   * writer. Those of {@link GsonCacheSerialized} types can, as they don't use their cache with it.
+   */
+  @Override public CborWriter jsonValue(String value) throws IOException {
+    throw new IOException("Raw JSON can't be written as CBOR");
+  }
+
+  @Override public CborWriter nullValue() throws IOException {
+    if (deferredName != null && !getSerializeNulls()) {
+      // skip the name and the value
+      deferredName = null;
+      return this;
+    }
+    beforeValue();
+    writeByte(NULL);
+    return this;
+  }
+
+  @Override public CborWriter value(boolean value) throws IOException {
+    beforeValue();
+    writeByte(value ? TRUE : FALSE);
+    return this;
+  }
+
+  @Override public CborWriter value(Boolean value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    return value(value.booleanValue());
+  }
+
+  // Not an override on Gson versions before 2.9.1, which write floats through value(double).
+  public CborWriter value(float value) throws IOException {
+    checkFinite(value);
+    beforeValue();
+    writeFloat(value);
+    return this;
+  }
+
+  @Override public CborWriter value(double value) throws IOException {
+    checkFinite(value);
+    beforeValue();
+    if ((double) (float) value == value || Double.isNaN(value)) {
+      writeFloat((float) value);
+    } else {
+      ensureCapacity(9);
+      buffer[position++] = (byte) FLOAT64;
+      writeLong(Double.doubleToLongBits(value));
+    }
+    return this;
+  }
+
+  @Override public CborWriter value(long value) throws IOException {
+    beforeValue();
+    if (value >= 0) {
+      writeHead(MAJOR_UNSIGNED, value);
+    } else {
+      writeHead(MAJOR_NEGATIVE, -1 - value);
+    }
+    return this;
+  }
+
+  /**
+   * Writes integral numbers as integers, and others as floats. {@link BigDecimal} values and
+   * integers that don't fit in the 64-bit argument of a CBOR integer lose precision.
+   */
+  @Override public CborWriter value(Number value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte || value instanceof AtomicInteger || value instanceof AtomicLong) {
+      return value(value.longValue());
+    }
+    if (value instanceof Float) {
+      return value(value.floatValue());
+    }
+    if (value instanceof Double || value instanceof BigDecimal) {
+      return value(value.doubleValue());
+    }
+    if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+      return value(value.longValue());
+    }
+    if (value instanceof BigInteger && ((BigInteger) value).bitLength() == 64) {
+      // above Long.MAX_VALUE, or below Long.MIN_VALUE, written with an unsigned argument
+      BigInteger integer = (BigInteger) value;
+      beforeValue();
+      if (integer.signum() > 0) {
+        writeHead(MAJOR_UNSIGNED, integer.longValue());
+      } else {
+        writeHead(MAJOR_NEGATIVE, integer.not().longValue());
+      }
+      return this;
+    }
+    // e.g. LazilyParsedNumber, which holds the number as text
+    String text = value.toString();
+    try {
+      return value(Long.parseLong(text));
+    } catch (NumberFormatException e) {
+      return value(Double.parseDouble(text));
+    }
+  }
+
+  @Override public void flush() throws IOException {
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonWriter is closed.");
+    }
+    out.write(buffer, 0, position);
+    position = 0;
+    out.flush();
+  }
+
+  @Override public void close() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+    out.close();
+    int size = stackSize;
+    if (size > 1 || size == 1 && stack[0] != NONEMPTY_DOCUMENT) {
+      throw new IOException("Incomplete document");
+    }
+    stackSize = 0;
+  }
+
+  private void open(int scope, int head) throws IOException {
+    beforeValue();
+    if (stackSize == stack.length) {
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    }
+    stack[stackSize++] = scope;
+    writeByte(head);
+  }
+
+  private void close(int scope) throws IOException {
+    if (stackSize == 0 || stack[stackSize - 1] != scope) {
+      throw new IllegalStateException("Nesting problem.");
+    }
+    if (deferredName != null) {
+      throw new IllegalStateException("Dangling name: " + deferredName);
+    }
+    stackSize--;
+    writeByte(BREAK);
+  }
+
+  private void beforeValue() throws IOException {
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonWriter is closed.");
+    }
+    switch (stack[stackSize - 1]) {
+      case EMPTY_DOCUMENT:
+        stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+        break;
+      case NONEMPTY_DOCUMENT:
+        if (!isLenient()) {
+          throw new IllegalStateException("JSON must have only one top-level value.");
+        }
+        break;
+      case ARRAY:
+        break;
+      case OBJECT:
+        if (deferredName == null) {
+          throw new IllegalStateException("Nesting problem.");
+        }
+        String name = deferredName;
+        deferredName = null;
+        writeText(name);
+        break;
+      default:
+        throw new IllegalStateException("Nesting problem.");
+    }
+  }
+
+  private void checkFinite(double value) {
+    if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+  }
+
+  private void writeText(String value) throws IOException {
+    int length = value.length();
+    int utf8Length = 0;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        utf8Length++;
+      } else if (c < 0x800) {
+        utf8Length += 2;
+      } else if (isSurrogatePair(value, i)) {
+        utf8Length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        utf8Length++; // unpaired, written as '?'
+      } else {
+        utf8Length += 3;
+      }
+    }
+    writeHead(MAJOR_TEXT, utf8Length);
+    for (int i = 0; i < length; i++) {
+      if (position + 4 > buffer.length) {
+        out.write(buffer, 0, position);
+        position = 0;
+      }
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[position++] = (byte) (0xc0 | c >> 6);
+        buffer[position++] = (byte) (0x80 | c & 0x3f);
+      } else if (isSurrogatePair(value, i)) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+      } else if (Character.isSurrogate(c)) {
+        buffer[position++] = '?';
+      } else {
+        buffer[position++] = (byte) (0xe0 | c >> 12);
+        buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+        buffer[position++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+  }
+
+  private static boolean isSurrogatePair(String value, int index) {
+    return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length()
+        && Character.isLowSurrogate(value.charAt(index + 1));
+  }
+
+  private void writeFloat(float value) throws IOException {
+    ensureCapacity(5);
+    buffer[position++] = (byte) FLOAT32;
+    int bits = Float.floatToIntBits(value);
+    buffer[position++] = (byte) (bits >>> 24);
+    buffer[position++] = (byte) (bits >>> 16);
+    buffer[position++] = (byte) (bits >>> 8);
+    buffer[position++] = (byte) bits;
+  }
+
+  /** Writes the initial byte and argument of a data item, using the shortest encoding. */
+  /** Writes an initial byte and its argument, which is unsigned if negative. */
+  private void writeHead(int majorType, long argument) throws IOException {
+    ensureCapacity(9);
+    if (argument < 0) {
+      buffer[position++] = (byte) (majorType | 27);
+      writeLong(argument);
+    } else if (argument < 24) {
+      buffer[position++] = (byte) (majorType | (int) argument);
+    } else if (argument <= 0xff) {
+      buffer[position++] = (byte) (majorType | 24);
+      buffer[position++] = (byte) argument;
+    } else if (argument <= 0xffff) {
+      buffer[position++] = (byte) (majorType | 25);
+      buffer[position++] = (byte) (argument >>> 8);
+      buffer[position++] = (byte) argument;
+    } else if (argument <= 0xffffffffL) {
+      buffer[position++] = (byte) (majorType | 26);
+      buffer[position++] = (byte) (argument >>> 24);
+      buffer[position++] = (byte) (argument >>> 16);
+      buffer[position++] = (byte) (argument >>> 8);
+      buffer[position++] = (byte) argument;
+    } else {
+      buffer[position++] = (byte) (majorType | 27);
+      writeLong(argument);
+    }
+  }
+
+  private void writeLong(long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte) (value >>> shift);
+    }
+  }
+
+  private void writeByte(int b) throws IOException {
+    ensureCapacity(1);
+    buffer[position++] = (byte) b;
+  }
+
+  private void ensureCapacity(int count) throws IOException {
+    if (position + count > buffer.length) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+}
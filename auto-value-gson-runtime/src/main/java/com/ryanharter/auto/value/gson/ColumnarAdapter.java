@@ -0,0 +1,16 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.TypeAdapter;
+import java.util.List;
+
+/**
+ * Implemented by the generated TypeAdapters of {@link GsonColumnar} types.
+ */
+public interface ColumnarAdapter<T> {
+
+  /**
+   * Returns an adapter for lists of {@code T} that writes the property names once as a header
+   * row, followed by the values of each element as an array.
+   */
+  TypeAdapter<List<T>> columnar();
+}
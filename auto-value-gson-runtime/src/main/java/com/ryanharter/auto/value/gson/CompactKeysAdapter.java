@@ -0,0 +1,15 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.TypeAdapter;
+
+/**
+ * Implemented by the generated TypeAdapters of {@link GsonCompactKeys} types.
+ */
+public interface CompactKeysAdapter<T> {
+
+  /**
+   * Returns an adapter that writes short keys instead of the property names. Both adapters read
+   * either form.
+   */
+  TypeAdapter<T> compact();
+}
@@ -0,0 +1,25 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by the generated TypeAdapters of {@link GsonDelta} types.
+ */
+public interface DeltaAdapter<T> {
+
+  /**
+   * Writes an object with the properties of {@code current} that aren't equal to those of
+   * {@code base}, including {@code null}s. Writes {@code current} in full if either is
+   * {@code null}.
+   */
+  void writeDelta(JsonWriter out, @Nullable T base, @Nullable T current) throws IOException;
+
+  /**
+   * Reads a value written by {@link #writeDelta}, taking the properties that weren't written from
+   * {@code base}. Reads a full value if {@code base} is {@code null}.
+   */
+  T readDelta(JsonReader in, @Nullable T base) throws IOException;
+}
@@ -55,13 +55,18 @@ public @interface GenerateTypeAdapter {
       }
       //noinspection TryWithIdenticalCatches Resolves to API 19+ only type.
       try {
-        if (constructor.getParameterTypes().length == 1) {
+        if (constructor.getParameterTypes().length == 0) {
+          // A GsonStandalone adapter, which is shared by every Gson
+          return (TypeAdapter<T>) constructor.getDeclaringClass().getField("INSTANCE").get(null);
+        } else if (constructor.getParameterTypes().length == 1) {
           return constructor.newInstance(gson);
         } else {
           return constructor.newInstance(gson, ((ParameterizedType) type.getType()).getActualTypeArguments());
         }
       } catch (IllegalAccessException e) {
         throw new RuntimeException("Unable to invoke " + constructor, e);
+      } catch (NoSuchFieldException e) {
+        throw new RuntimeException("Unable to find the instance of " + constructor, e);
       } catch (InstantiationException e) {
         throw new RuntimeException("Unable to invoke " + constructor, e);
       } catch (InvocationTargetException e) {
@@ -99,12 +104,17 @@ public @interface GenerateTypeAdapter {
               (Constructor<? extends TypeAdapter>) bindingClass.getDeclaredConstructor(Gson.class);
           adapterCtor.setAccessible(true);
         } catch (NoSuchMethodException e) {
-          // Try the gson + type[] constructor
-          //noinspection unchecked
-          adapterCtor =
-              (Constructor<? extends TypeAdapter>) bindingClass.getDeclaredConstructor(Gson.class,
-                  typeArrayClass);
-          adapterCtor.setAccessible(true);
+          try {
+            // Try the gson + type[] constructor
+            //noinspection unchecked
+            adapterCtor =
+                (Constructor<? extends TypeAdapter>) bindingClass.getDeclaredConstructor(Gson.class,
+                    typeArrayClass);
+            adapterCtor.setAccessible(true);
+          } catch (NoSuchMethodException e2) {
+            // Try the no-arg constructor of a GsonStandalone adapter, which has an INSTANCE
+            adapterCtor = bindingClass.asSubclass(TypeAdapter.class).getDeclaredConstructor();
+          }
         }
       } catch (ClassNotFoundException e) {
         Constructor<? extends TypeAdapter> superClassAdapter = findConstructorForClass(cls.getSuperclass());
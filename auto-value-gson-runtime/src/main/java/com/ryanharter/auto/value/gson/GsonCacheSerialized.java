@@ -0,0 +1,20 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the JSON written for each instance of an AutoValue type in its generated TypeAdapter, and
+ * writes the cached text when the same instance is written again.
+ *
+ * <p>Cached text is only used with plain {@link com.google.gson.stream.JsonWriter JsonWriters}, and
+ * only if the {@link com.google.gson.Gson Gson} of the adapter doesn't pretty print. Properties must
+ * be deeply immutable, as is expected of AutoValue types.
+ */
+@Retention(CLASS)
+@Target(TYPE)
+public @interface GsonCacheSerialized {
+}
@@ -0,0 +1,50 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Adds a columnar list form to the generated TypeAdapter of an AutoValue type. A list is written
+ * as an array whose first element holds the property names, followed by one array of values per
+ * element, e.g. {@code [["id","name"],[1,"a"],[2,"b"]]}.
+ *
+ * <p>The generated adapter implements {@link ColumnarAdapter}, whose {@code columnar()} method
+ * returns the list adapter. To use it for every {@code List} of an annotated type, register
+ * {@link #FACTORY}.
+ */
+@Inherited
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface GsonColumnar {
+
+  TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (type.getRawType() != List.class || !(type.getType() instanceof ParameterizedType)) {
+        return null;
+      }
+      Type elementType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+      TypeToken<?> elementToken = TypeToken.get(elementType);
+      if (!elementToken.getRawType().isAnnotationPresent(GsonColumnar.class)) {
+        return null;
+      }
+      TypeAdapter<?> elementAdapter = gson.getAdapter(elementToken);
+      if (elementAdapter instanceof ColumnarAdapter) {
+        return (TypeAdapter<T>) ((ColumnarAdapter<?>) elementAdapter).columnar();
+      }
+      return null;
+    }
+  };
+}
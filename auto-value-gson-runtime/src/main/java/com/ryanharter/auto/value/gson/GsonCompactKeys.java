@@ -0,0 +1,42 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Adds a compact form to the generated TypeAdapter of an AutoValue type, which writes short keys
+ * instead of property names. Short keys are the base-36 index of the property, unless set with
+ * {@link GsonShortName}. Reads accept both the short keys and the regular names.
+ *
+ * <p>The generated adapter implements {@link CompactKeysAdapter}, whose {@code compact()} method
+ * returns the compact adapter for a single call site. To write every annotated type compactly,
+ * register {@link #FACTORY} after the factory that creates the generated adapters.
+ */
+@Inherited
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface GsonCompactKeys {
+
+  TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (!type.getRawType().isAnnotationPresent(GsonCompactKeys.class)) {
+        return null;
+      }
+      TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+      if (delegate instanceof CompactKeysAdapter) {
+        return ((CompactKeysAdapter<T>) delegate).compact();
+      }
+      return delegate;
+    }
+  };
+}
@@ -0,0 +1,17 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the generated TypeAdapter of an AutoValue type implement {@link DeltaAdapter}, to write
+ * only the properties that changed from a base value. Properties whose types are annotated as well
+ * are written as deltas themselves.
+ */
+@Retention(CLASS)
+@Target(TYPE)
+public @interface GsonDelta {
+}
@@ -0,0 +1,23 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Omits default values from the generated TypeAdapter's output, and restores them for absent
+ * properties when reading. Defaults are {@code 0} and {@code false} for primitives, {@code null}
+ * for {@code @Nullable} properties, and empty values of {@code List}, {@code Set}, {@code Map},
+ * their Guava immutable counterparts and {@code Optional}s.
+ *
+ * <p>Applies to a single property, or to all properties when set on the AutoValue type. Properties
+ * of other types are always written when the type is annotated, and are an error to annotate
+ * directly.
+ */
+@Retention(CLASS)
+@Target({TYPE, METHOD})
+public @interface GsonOmitDefaults {
+}
@@ -0,0 +1,19 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Omits {@code null} values of {@code @Nullable} properties from the generated TypeAdapter's
+ * output, regardless of {@link com.google.gson.stream.JsonWriter#getSerializeNulls()}. Applies to a
+ * single property, or to all properties when set on the AutoValue type. Absent properties are read
+ * as {@code null}.
+ */
+@Retention(CLASS)
+@Target({TYPE, METHOD})
+public @interface GsonOmitNulls {
+}
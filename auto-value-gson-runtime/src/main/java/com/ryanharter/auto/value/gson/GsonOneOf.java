@@ -0,0 +1,48 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Chooses how the kind of an {@code @AutoOneOf} type annotated with {@link GenerateTypeAdapter}
+ * is written. Without this annotation, values are written as {@link Style#WRAPPER_OBJECT}.
+ *
+ * <pre>{@code
+ * @AutoOneOf(Shape.Kind.class)
+ * @GenerateTypeAdapter
+ * @GsonOneOf(style = GsonOneOf.Style.DISCRIMINATOR)
+ * public abstract class Shape {
+ *   public enum Kind { CIRCLE, SQUARE }
+ *   public abstract Kind getKind();
+ *   public abstract Circle circle();
+ *   public abstract Square square();
+ * }
+ * }</pre>
+ *
+ * Kinds are named as their properties, or by {@link com.google.gson.annotations.SerializedName}.
+ */
+@Retention(CLASS)
+@Target(TYPE)
+public @interface GsonOneOf {
+
+  Style style() default Style.WRAPPER_OBJECT;
+
+  /** The name of the kind property, with {@link Style#DISCRIMINATOR}. */
+  String property() default "type";
+
+  /** The name of the value property, with {@link Style#DISCRIMINATOR}. */
+  String valueProperty() default "value";
+
+  enum Style {
+    /** Writes an object with one property, named by the kind: {@code {"circle":{...}}}. */
+    WRAPPER_OBJECT,
+    /**
+     * Writes the kind and the value as two properties: {@code {"type":"circle","value":{...}}}.
+     * A value that comes before the kind is buffered as JSON text until the kind is read.
+     */
+    DISCRIMINATOR
+  }
+}
@@ -0,0 +1,25 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the {@link com.google.gson.TypeAdapter} or {@link com.google.gson.TypeAdapterFactory} of a
+ * property, like Gson's {@link com.google.gson.annotations.JsonAdapter} does for fields. The class
+ * needs a no-arg constructor.
+ *
+ * <p>The generated adapter calls it directly instead of looking up an adapter for the property's
+ * type with Gson. A TypeAdapter without instance fields is shared by all generated adapters of
+ * the type, other TypeAdapters are created once per generated adapter, and factories on first use.
+ */
+@Retention(CLASS)
+@Target(METHOD)
+public @interface GsonPropertyAdapter {
+  Class<?> value();
+
+  /** Whether {@code null} values are written and read without calling the adapter. */
+  boolean nullSafe() default true;
+}
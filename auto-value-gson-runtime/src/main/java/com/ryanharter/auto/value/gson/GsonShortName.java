@@ -0,0 +1,17 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the key written for a property in the compact form of a {@link GsonCompactKeys} type,
+ * instead of the base-36 index of the property.
+ */
+@Retention(CLASS)
+@Target(METHOD)
+public @interface GsonShortName {
+  String value();
+}
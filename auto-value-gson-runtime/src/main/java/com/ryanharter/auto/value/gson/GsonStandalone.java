@@ -0,0 +1,30 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a TypeAdapter that doesn't depend on Gson, for a {@link GenerateTypeAdapter} type whose
+ * properties are all primitives, strings, enums or other {@code GsonStandalone} types. The adapter
+ * is a public singleton, {@code Foo_GsonTypeAdapter.INSTANCE}, that calls the adapters of the
+ * properties directly, and is returned by {@link GenerateTypeAdapter#FACTORY} for every Gson.
+ *
+ * <pre>{@code
+ * @GsonStandalone
+ * @GenerateTypeAdapter
+ * @AutoValue public abstract class Point {
+ *   public abstract int x();
+ *   public abstract int y();
+ * }
+ * }</pre>
+ *
+ * As it doesn't use Gson, the adapter writes properties as Gson's defaults would, regardless of
+ * registered adapters, the field naming policy, or the version.
+ */
+@Retention(CLASS)
+@Target(TYPE)
+public @interface GsonStandalone {
+}
@@ -0,0 +1,59 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.ryanharter.auto.value.gson.internal.SubtypeAdapter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Reads and writes an abstract type as one of its AutoValue subtypes, chosen by a discriminator
+ * property of the JSON object:
+ *
+ * <pre>{@code
+ * @GsonSubtypes({
+ *     @GsonSubtypes.Type(value = Click.class, name = "click"),
+ *     @GsonSubtypes.Type(value = Scroll.class, name = "scroll"),
+ * })
+ * public abstract class Event {}
+ * }</pre>
+ *
+ * <p>Register {@link #FACTORY} after the factory that provides the subtype adapters. It also
+ * writes the discriminator for values whose declared type is a subtype.
+ *
+ * <p>When the discriminator is the first property, as it is when written by this adapter, the rest
+ * of the object is read directly by the subtype's generated adapter. Otherwise reading takes the
+ * slow path: the object is copied as JSON text until the discriminator is found, and then parsed
+ * again by the subtype's adapter. The same happens to every object read by a subtype adapter that
+ * isn't generated. It isn't buffered as a tree, but put the discriminator first where you can.
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface GsonSubtypes {
+
+  /** The name of the discriminator property. */
+  String property() default "type";
+
+  Type[] value();
+
+  /** A subtype class, and the discriminator value it is written with. */
+  @Retention(RUNTIME)
+  @Target({})
+  @interface Type {
+    Class<?> value();
+
+    String name();
+  }
+
+  TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      return SubtypeAdapter.create(gson, this, type);
+    }
+  };
+}
@@ -0,0 +1,19 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Includes a property only when the {@link com.google.gson.GsonBuilder#setVersion version} of
+ * Gson is below {@code value}, like Gson's {@link com.google.gson.annotations.Until} does for
+ * fields. Excluded properties are neither written nor read, and without a version all
+ * properties are included.
+ */
+@Retention(CLASS)
+@Target(METHOD)
+public @interface GsonUntil {
+  double value();
+}
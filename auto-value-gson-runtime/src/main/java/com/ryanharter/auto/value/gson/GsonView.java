@@ -0,0 +1,30 @@
+package com.ryanharter.auto.value.gson;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Limits a property to the adapters returned by {@link ViewAdapter#view(Class)} for the given
+ * view classes, or their subtypes. Properties without this annotation are written in every view,
+ * and the regular adapter writes all properties.
+ *
+ * <pre>{@code
+ * interface Public {}
+ * interface Internal extends Public {}
+ *
+ * @AutoValue public abstract class User {
+ *   public abstract String name();
+ *   @GsonView(Internal.class) public abstract String email();
+ * }
+ * }</pre>
+ *
+ * The properties of each view are chosen at compile time, so views are always read in full.
+ */
+@Retention(CLASS)
+@Target(METHOD)
+public @interface GsonView {
+  Class<?>[] value();
+}
@@ -0,0 +1,142 @@
+package com.ryanharter.auto.value.gson;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default {@link AdapterMetrics}, which counts the reads, writes, failures and nanoseconds of
+ * each type in memory, along with histograms of their durations.
+ *
+ * <pre>{@code
+ * InMemoryAdapterMetrics metrics = (InMemoryAdapterMetrics) AdapterMetrics.get();
+ * for (InMemoryAdapterMetrics.Stats stats : metrics.stats().values()) {
+ *   System.out.println(stats);
+ * }
+ * }</pre>
+ *
+ * Counters are {@link LongAdder LongAdders}, so recording from many threads doesn't contend.
+ */
+public final class InMemoryAdapterMetrics extends AdapterMetrics {
+
+  private final ConcurrentMap<Class<?>, Stats> stats = new ConcurrentHashMap<>();
+
+  @Override public Stats forType(Class<?> type) {
+    Stats typeStats = stats.get(type);
+    if (typeStats == null) {
+      Stats created = new Stats(type);
+      typeStats = stats.putIfAbsent(type, created);
+      if (typeStats == null) {
+        typeStats = created;
+      }
+    }
+    return typeStats;
+  }
+
+  /** Returns the live stats of each type whose adapter has been initialized. */
+  public Map<Class<?>, Stats> stats() {
+    return Collections.unmodifiableMap(stats);
+  }
+
+  /** The counts of the generated adapter of one type. */
+  public static final class Stats implements TypeMetrics {
+    /** The number of histogram buckets, the last of which holds every longer duration. */
+    public static final int BUCKETS = 40;
+
+    private final Class<?> type;
+    private final Counts reads = new Counts();
+    private final Counts writes = new Counts();
+
+    Stats(Class<?> type) {
+      this.type = type;
+    }
+
+    public Class<?> type() {
+      return type;
+    }
+
+    public long reads() {
+      return reads.calls.sum();
+    }
+
+    public long readFailures() {
+      return reads.failures.sum();
+    }
+
+    public long readNanos() {
+      return reads.nanos.sum();
+    }
+
+    /**
+     * Returns the number of reads by duration, where bucket {@code i} counts the reads that took
+     * from {@code 2^i} up to {@code 2^(i+1)} nanoseconds.
+     */
+    public long[] readHistogram() {
+      return reads.histogram();
+    }
+
+    public long writes() {
+      return writes.calls.sum();
+    }
+
+    public long writeFailures() {
+      return writes.failures.sum();
+    }
+
+    public long writeNanos() {
+      return writes.nanos.sum();
+    }
+
+    /** Returns the number of writes by duration, bucketed as {@link #readHistogram()}. */
+    public long[] writeHistogram() {
+      return writes.histogram();
+    }
+
+    @Override public void recordRead(long nanos, boolean failed) {
+      reads.record(nanos, failed);
+    }
+
+    @Override public void recordWrite(long nanos, boolean failed) {
+      writes.record(nanos, failed);
+    }
+
+    @Override public String toString() {
+      return type.getName() + "{reads=" + reads() + ", readFailures=" + readFailures()
+          + ", readNanos=" + readNanos() + ", writes=" + writes()
+          + ", writeFailures=" + writeFailures() + ", writeNanos=" + writeNanos() + "}";
+    }
+  }
+
+  private static final class Counts {
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder nanos = new LongAdder();
+    final LongAdder[] buckets = new LongAdder[Stats.BUCKETS];
+
+    Counts() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(long duration, boolean failed) {
+      calls.increment();
+      if (failed) {
+        failures.increment();
+      }
+      nanos.add(duration);
+      int bucket = 63 - Long.numberOfLeadingZeros(Math.max(duration, 1));
+      buckets[Math.min(bucket, buckets.length - 1)].increment();
+    }
+
+    long[] histogram() {
+      long[] counts = new long[buckets.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buckets[i].sum();
+      }
+      return counts;
+    }
+  }
+}
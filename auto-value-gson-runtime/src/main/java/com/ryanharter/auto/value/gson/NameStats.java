@@ -0,0 +1,148 @@
+package com.ryanharter.auto.value.gson;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the names that the generated TypeAdapter of a type reads without using them, when compiled
+ * with the {@code autovaluegson.nameStats} processor option: the {@code SerializedName} alternates
+ * it accepts, and the unknown names whose values it skips.
+ *
+ * <pre>{@code
+ * for (NameStats stats : NameStats.all().values()) {
+ *   System.out.println(stats.type() + ": " + stats.unknownNames() + ", " + stats.alternates());
+ * }
+ * }</pre>
+ *
+ * Unknown names are kept in a sketch of at most {@link #MAX_UNKNOWN_NAMES}, which keeps the most
+ * frequent ones, with counts that may be overestimated by the counts of the names they replaced.
+ */
+public final class NameStats {
+  /** The number of unknown names that are counted per type. */
+  public static final int MAX_UNKNOWN_NAMES = 32;
+
+  private static final ConcurrentMap<Class<?>, NameStats> ALL = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the stats of {@code type}, which accepts {@code alternates}. Called once, when its
+   * adapter class is initialized.
+   */
+  public static NameStats forType(Class<?> type, String... alternates) {
+    NameStats stats = ALL.get(type);
+    if (stats == null) {
+      NameStats created = new NameStats(type, alternates);
+      stats = ALL.putIfAbsent(type, created);
+      if (stats == null) {
+        stats = created;
+      }
+    }
+    return stats;
+  }
+
+  /** Returns the live stats of each type whose adapter has been initialized. */
+  public static Map<Class<?>, NameStats> all() {
+    return Collections.unmodifiableMap(ALL);
+  }
+
+  private final Class<?> type;
+  private final Map<String, LongAdder> alternates;
+  private final LongAdder unknown = new LongAdder();
+  // the Space-Saving sketch of unknown names, only locked to add a name
+  private final ConcurrentMap<String, LongAdder> unknownNames = new ConcurrentHashMap<>();
+  private final Object unknownNamesLock = new Object();
+
+  private NameStats(Class<?> type, String[] alternates) {
+    this.type = type;
+    Map<String, LongAdder> counts = new HashMap<>();
+    for (String alternate : alternates) {
+      counts.put(alternate, new LongAdder());
+    }
+    this.alternates = counts;
+  }
+
+  public Class<?> type() {
+    return type;
+  }
+
+  /** Records a read of {@code name}, if it's one of the alternates of the type. */
+  public void alternate(String name) {
+    LongAdder count = alternates.get(name);
+    if (count != null) {
+      count.increment();
+    }
+  }
+
+  /** Records a skipped value of the unknown {@code name}. */
+  public void unknown(String name) {
+    unknown.increment();
+    LongAdder count = unknownNames.get(name);
+    if (count == null) {
+      count = addUnknownName(name);
+    }
+    count.increment();
+  }
+
+  /**
+   * Adds {@code name} to the sketch, replacing the least frequent name once it's full. Only names
+   * that aren't counted yet take the lock, so the names already in the sketch are counted without
+   * it.
+   */
+  private LongAdder addUnknownName(String name) {
+    synchronized (unknownNamesLock) {
+      LongAdder count = unknownNames.get(name);
+      if (count != null) {
+        return count;
+      }
+      count = new LongAdder();
+      if (unknownNames.size() >= MAX_UNKNOWN_NAMES) {
+        // replace the least frequent name, taking over its count
+        String leastName = null;
+        long least = 0;
+        for (Map.Entry<String, LongAdder> entry : unknownNames.entrySet()) {
+          long sum = entry.getValue().sum();
+          if (leastName == null || sum < least) {
+            leastName = entry.getKey();
+            least = sum;
+          }
+        }
+        unknownNames.remove(leastName);
+        count.add(least);
+      }
+      unknownNames.put(name, count);
+      return count;
+    }
+  }
+
+  /** Returns the number of reads of each alternate. */
+  public Map<String, Long> alternates() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Map.Entry<String, LongAdder> entry : alternates.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().sum());
+    }
+    return counts;
+  }
+
+  /** Returns the number of values skipped for unknown names. */
+  public long unknown() {
+    return unknown.sum();
+  }
+
+  /** Returns the most frequent unknown names, with their approximate counts. */
+  public Map<String, Long> unknownNames() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Map.Entry<String, LongAdder> entry : unknownNames.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().sum());
+    }
+    return counts;
+  }
+
+  @Override public String toString() {
+    return type.getName() + "{unknown=" + unknown() + ", unknownNames=" + unknownNames()
+        + ", alternates=" + alternates() + "}";
+  }
+}
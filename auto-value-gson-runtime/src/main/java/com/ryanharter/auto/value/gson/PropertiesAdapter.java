@@ -0,0 +1,21 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Implemented by the generated TypeAdapters of subtypes of a {@link GsonSubtypes} type, so that
+ * the subtype's properties can share an object with the discriminator.
+ */
+public interface PropertiesAdapter<T> {
+
+  /** Writes the properties of {@code value} into the current object, without opening it. */
+  void writeProperties(JsonWriter out, T value) throws IOException;
+
+  /**
+   * Reads the remaining properties of an object that was already opened, up to and including its
+   * end.
+   */
+  T readProperties(JsonReader in) throws IOException;
+}
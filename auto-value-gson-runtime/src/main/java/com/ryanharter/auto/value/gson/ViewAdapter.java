@@ -0,0 +1,34 @@
+package com.ryanharter.auto.value.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+/**
+ * Implemented by the generated TypeAdapters of types with {@link GsonView} properties.
+ */
+public interface ViewAdapter<T> {
+
+  /**
+   * Returns an adapter that writes only the properties in {@code view}: those without a
+   * {@link GsonView}, and those whose views {@code view} is assignable to. It reads like the
+   * regular adapter. The adapter of each view is created once.
+   *
+   * @throws IllegalArgumentException if {@code view} extends two named views of the type that
+   *     don't extend each other.
+   */
+  TypeAdapter<T> view(Class<?> view);
+
+  /**
+   * Returns the adapter of {@code type} from {@code gson} for {@code view}.
+   *
+   * @throws IllegalArgumentException if the adapter of {@code type} has no views.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> TypeAdapter<T> view(Gson gson, Class<T> type, Class<?> view) {
+    TypeAdapter<T> adapter = gson.getAdapter(type);
+    if (!(adapter instanceof ViewAdapter)) {
+      throw new IllegalArgumentException(type.getName() + " has no @GsonView properties");
+    }
+    return ((ViewAdapter<T>) adapter).view(view);
+  }
+}
@@ -0,0 +1,43 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.ryanharter.auto.value.gson.AdapterEvents;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The JFR event of one read or write of a generated TypeAdapter. */
+@Name("com.ryanharter.auto.value.gson.Adapter")
+@Label("AutoValue Gson Adapter")
+@Description("A read or write of a generated TypeAdapter")
+@Category({ "Gson", "AutoValue" })
+@StackTrace(false)
+public final class AdapterEvent extends Event implements AdapterEvents.Span {
+  @Label("Type")
+  Class<?> type;
+
+  @Label("Property Count")
+  int propertyCount;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Failed")
+  boolean failed;
+
+  AdapterEvent(Class<?> type, int propertyCount, String operation) {
+    this.type = type;
+    this.propertyCount = propertyCount;
+    this.operation = operation;
+  }
+
+  @Override public void finish(boolean failed) {
+    end();
+    if (shouldCommit()) {
+      this.failed = failed;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a list as an array holding a header row of property names, followed by one array of
+ * property values per element. The header is resolved to property indices once, so each row is
+ * read by position.
+ *
+ * <p>Subclasses are generated for {@link com.ryanharter.auto.value.gson.GsonColumnar} types.
+ */
+public abstract class ColumnarListAdapter<T> extends TypeAdapter<List<T>> {
+  private static final int INITIAL_CAPACITY = 8;
+
+  /** Writes the names of the properties, in the order {@link #writeRow} writes their values. */
+  public abstract void writeHeader(JsonWriter out) throws IOException;
+
+  public abstract void writeRow(JsonWriter out, T value) throws IOException;
+
+  /** Returns the index of the property read from {@code name}, or {@code -1} to skip it. */
+  public abstract int column(String name);
+
+  /** Reads a row whose values belong to the properties at {@code columns}. */
+  public abstract T readRow(JsonReader in, int[] columns) throws IOException;
+
+  @Override public final void write(JsonWriter out, List<T> value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    writeHeader(out);
+    for (T row : value) {
+      writeRow(out, row);
+    }
+    out.endArray();
+  }
+
+  @Override public final List<T> read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    List<T> rows = new ArrayList<>();
+    in.beginArray();
+    if (in.hasNext()) {
+      int[] columns = new int[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (size == columns.length) {
+          columns = Arrays.copyOf(columns, size * 2);
+        }
+        columns[size++] = column(in.nextString());
+      }
+      in.endArray();
+      columns = Arrays.copyOf(columns, size);
+      while (in.hasNext()) {
+        rows.add(readRow(in, columns));
+      }
+    }
+    in.endArray();
+    return rows;
+  }
+}
@@ -0,0 +1,155 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.FieldNamingStrategy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The names of the properties of a generated TypeAdapter under each field naming strategy, when
+ * compiled with the {@code autovaluegson.useFieldNamePolicy} processor option.
+ *
+ * <p>The names under the {@link FieldNamingPolicy} constants listed in {@link #POLICIES} are
+ * translated at compile time into tables, so that the adapter just picks one by the ordinal of
+ * the policy. Names under other strategies, including policies that Gson added after the tables,
+ * are translated by the strategy itself from the fields of the target class, once per strategy.
+ */
+public final class FieldNames {
+  /** The policies that have a table, in the order of the tables. */
+  public static final List<String> POLICIES = Collections.unmodifiableList(Arrays.asList(
+      "IDENTITY",
+      "UPPER_CAMEL_CASE",
+      "UPPER_CAMEL_CASE_WITH_SPACES",
+      "LOWER_CASE_WITH_UNDERSCORES",
+      "LOWER_CASE_WITH_DASHES",
+      "LOWER_CASE_WITH_DOTS"));
+
+  // the table of each FieldNamingPolicy of this Gson by ordinal, or -1 if it doesn't have one
+  private static final int[] TABLES = tables();
+
+  private final Class<?> targetClass;
+  private final String[][] tables;
+  private final AtomicReferenceArray<Map<String, String>> maps;
+  private final Map<FieldNamingStrategy, Map<String, String>> translated =
+      Collections.synchronizedMap(new WeakHashMap<FieldNamingStrategy, Map<String, String>>());
+
+  /**
+   * Creates the names of the fields of {@code targetClass}, with {@code tables} holding them under
+   * each of {@link #POLICIES}, as translated by {@link #translate}.
+   */
+  public FieldNames(Class<?> targetClass, String[]... tables) {
+    if (tables.length != POLICIES.size()) {
+      throw new IllegalArgumentException(
+          "Expected " + POLICIES.size() + " tables, but got " + tables.length);
+    }
+    this.targetClass = targetClass;
+    this.tables = tables;
+    this.maps = new AtomicReferenceArray<>(tables.length);
+  }
+
+  /** Returns the names of the fields, keyed by their names under {@code IDENTITY}. */
+  public Map<String, String> get(FieldNamingStrategy strategy) {
+    int table = strategy instanceof FieldNamingPolicy
+        ? TABLES[((FieldNamingPolicy) strategy).ordinal()]
+        : -1;
+    if (table >= 0) {
+      Map<String, String> names = maps.get(table);
+      if (names == null) {
+        names = Collections.unmodifiableMap(toMap(tables[table]));
+        if (!maps.compareAndSet(table, null, names)) {
+          names = maps.get(table);
+        }
+      }
+      return names;
+    }
+    Map<String, String> names = translated.get(strategy);
+    if (names == null) {
+      names = Collections.unmodifiableMap(
+          Util.renameFields(targetClass, Arrays.asList(tables[0]), strategy));
+      translated.put(strategy, names);
+    }
+    return names;
+  }
+
+  private Map<String, String> toMap(String[] table) {
+    Map<String, String> names = new LinkedHashMap<>();
+    for (int i = 0; i < table.length; i++) {
+      names.put(tables[0][i], table[i]);
+    }
+    return names;
+  }
+
+  /** Returns {@code name} as translated by the policy of {@link #POLICIES} named {@code policy}. */
+  public static String translate(String policy, String name) {
+    switch (policy) {
+      case "IDENTITY":
+        return name;
+      case "UPPER_CAMEL_CASE":
+        return upperCaseFirstLetter(name);
+      case "UPPER_CAMEL_CASE_WITH_SPACES":
+        return upperCaseFirstLetter(separateCamelCase(name, " "));
+      case "LOWER_CASE_WITH_UNDERSCORES":
+        return separateCamelCase(name, "_").toLowerCase(Locale.ENGLISH);
+      case "LOWER_CASE_WITH_DASHES":
+        return separateCamelCase(name, "-").toLowerCase(Locale.ENGLISH);
+      case "LOWER_CASE_WITH_DOTS":
+        return separateCamelCase(name, ".").toLowerCase(Locale.ENGLISH);
+      default:
+        throw new IllegalArgumentException("Unknown policy " + policy);
+    }
+  }
+
+  private static String separateCamelCase(String name, String separator) {
+    StringBuilder translation = new StringBuilder();
+    for (int i = 0, length = name.length(); i < length; i++) {
+      char character = name.charAt(i);
+      if (Character.isUpperCase(character) && translation.length() != 0) {
+        translation.append(separator);
+      }
+      translation.append(character);
+    }
+    return translation.toString();
+  }
+
+  private static String modifyString(char firstCharacter, String srcString,
+      int indexOfSubstring) {
+    return indexOfSubstring < srcString.length()
+        ? firstCharacter + srcString.substring(indexOfSubstring)
+        : String.valueOf(firstCharacter);
+  }
+
+  private static String upperCaseFirstLetter(String name) {
+    StringBuilder fieldNameBuilder = new StringBuilder();
+    int index = 0;
+    char firstCharacter = name.charAt(index);
+    int length = name.length();
+    while (index < length - 1) {
+      if (Character.isLetter(firstCharacter)) {
+        break;
+      }
+      fieldNameBuilder.append(firstCharacter);
+      firstCharacter = name.charAt(++index);
+    }
+    if (!Character.isUpperCase(firstCharacter)) {
+      String modifiedTarget = modifyString(Character.toUpperCase(firstCharacter), name, ++index);
+      return fieldNameBuilder.append(modifiedTarget).toString();
+    } else {
+      return name;
+    }
+  }
+
+  private static int[] tables() {
+    FieldNamingPolicy[] policies = FieldNamingPolicy.values();
+    int[] tables = new int[policies.length];
+    for (int i = 0; i < policies.length; i++) {
+      tables[i] = POLICIES.indexOf(policies[i].name());
+    }
+    return tables;
+  }
+}
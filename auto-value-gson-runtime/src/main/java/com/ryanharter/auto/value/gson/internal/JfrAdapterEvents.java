@@ -0,0 +1,38 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.ryanharter.auto.value.gson.AdapterEvents;
+import jdk.jfr.EventType;
+
+/**
+ * The {@link AdapterEvents} of JVMs with Java Flight Recorder, which {@link AdapterEvents} only
+ * loads reflectively when {@code jdk.jfr} is available.
+ */
+public final class JfrAdapterEvents extends AdapterEvents {
+  private static final EventType EVENT_TYPE = EventType.getEventType(AdapterEvent.class);
+
+  private final Class<?> type;
+  private final int propertyCount;
+
+  public JfrAdapterEvents(Class<?> type, int propertyCount) {
+    this.type = type;
+    this.propertyCount = propertyCount;
+  }
+
+  @Override public boolean isEnabled() {
+    return EVENT_TYPE.isEnabled();
+  }
+
+  @Override public Span beginRead() {
+    return begin("read");
+  }
+
+  @Override public Span beginWrite() {
+    return begin("write");
+  }
+
+  private Span begin(String operation) {
+    AdapterEvent event = new AdapterEvent(type, propertyCount, operation);
+    event.begin();
+    return event;
+  }
+}
@@ -0,0 +1,515 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Adapters for {@code int[]}, {@code long[]}, {@code double[]} and {@code List<Integer>},
+ * {@code List<Long>}, {@code List<Double>} properties that read numbers straight into growable
+ * primitive arrays and write them without boxing.
+ *
+ * <p>Each factory method only returns a specialized adapter if {@code gson} would otherwise use its
+ * built-in array or collection adapter together with its built-in number adapter. If either has
+ * been replaced, e.g. by a registered adapter or a {@link com.google.gson.LongSerializationPolicy},
+ * the adapter resolved by {@code gson} is returned instead, wrapped with
+ * {@link TypeAdapter#nullSafe()} so that every adapter returned here reads a JSON null itself.
+ *
+ * <p>Lists read by the specialized adapters are immutable. A list containing {@code null} elements
+ * is read into an unmodifiable boxed list instead.
+ */
+public final class PrimitiveAdapters {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private PrimitiveAdapters() {
+  }
+
+  public static TypeAdapter<int[]> intArrayAdapter(Gson gson) {
+    TypeAdapter<int[]> adapter = gson.getAdapter(int[].class);
+    if (isDefaultArrayAdapter(adapter) && isDefault(gson, int.class)) {
+      return new IntArrayAdapter();
+    }
+    return adapter.nullSafe();
+  }
+
+  public static TypeAdapter<long[]> longArrayAdapter(Gson gson) {
+    TypeAdapter<long[]> adapter = gson.getAdapter(long[].class);
+    if (isDefaultArrayAdapter(adapter) && isDefault(gson, long.class)) {
+      return new LongArrayAdapter();
+    }
+    return adapter.nullSafe();
+  }
+
+  public static TypeAdapter<double[]> doubleArrayAdapter(Gson gson) {
+    TypeAdapter<double[]> adapter = gson.getAdapter(double[].class);
+    if (isDefaultArrayAdapter(adapter)) {
+      DoubleMode mode = doubleMode(gson, double.class);
+      if (mode != null) {
+        return new DoubleArrayAdapter(mode == DoubleMode.CHECKED);
+      }
+    }
+    return adapter.nullSafe();
+  }
+
+  public static TypeAdapter<List<Integer>> intListAdapter(Gson gson) {
+    TypeAdapter<List<Integer>> adapter = listAdapter(gson, Integer.class);
+    if (isDefaultListAdapter(adapter) && isDefault(gson, Integer.class)) {
+      return new IntListAdapter();
+    }
+    return adapter.nullSafe();
+  }
+
+  public static TypeAdapter<List<Long>> longListAdapter(Gson gson) {
+    TypeAdapter<List<Long>> adapter = listAdapter(gson, Long.class);
+    if (isDefaultListAdapter(adapter) && isDefault(gson, Long.class)) {
+      return new LongListAdapter();
+    }
+    return adapter.nullSafe();
+  }
+
+  public static TypeAdapter<List<Double>> doubleListAdapter(Gson gson) {
+    TypeAdapter<List<Double>> adapter = listAdapter(gson, Double.class);
+    if (isDefaultListAdapter(adapter)) {
+      DoubleMode mode = doubleMode(gson, Double.class);
+      if (mode != null) {
+        return new DoubleListAdapter(mode == DoubleMode.CHECKED);
+      }
+    }
+    return adapter.nullSafe();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> TypeAdapter<List<T>> listAdapter(Gson gson, Class<T> elementType) {
+    return (TypeAdapter<List<T>>) gson.getAdapter(
+        TypeToken.getParameterized(List.class, elementType));
+  }
+
+  private static boolean isDefaultArrayAdapter(TypeAdapter<?> adapter) {
+    return adapter.getClass() == Defaults.ARRAY_ADAPTER;
+  }
+
+  private static boolean isDefaultListAdapter(TypeAdapter<?> adapter) {
+    return adapter.getClass() == Defaults.LIST_ADAPTER;
+  }
+
+  /** Gson's built-in int and long adapters are singletons shared by every instance. */
+  private static boolean isDefault(Gson gson, Class<?> type) {
+    return gson.getAdapter(type) == Defaults.GSON.getAdapter(type);
+  }
+
+  private enum DoubleMode {
+    /** Gson's default, which rejects NaN and infinite values when writing. */
+    CHECKED,
+    /** {@link GsonBuilder#serializeSpecialFloatingPointValues()}. */
+    SPECIAL
+  }
+
+  /**
+   * Gson creates a new finite-checking double adapter per instance, so that one can only be
+   * recognized by its class.
+   */
+  private static DoubleMode doubleMode(Gson gson, Class<?> type) {
+    TypeAdapter<?> adapter = gson.getAdapter(type);
+    if (adapter == Defaults.SPECIAL_FLOATS_GSON.getAdapter(type)) {
+      return DoubleMode.SPECIAL;
+    }
+    if (adapter.getClass() == Defaults.GSON.getAdapter(type).getClass()) {
+      return DoubleMode.CHECKED;
+    }
+    return null;
+  }
+
+  private static final class Defaults {
+    static final Gson GSON = new Gson();
+    static final Gson SPECIAL_FLOATS_GSON =
+        new GsonBuilder().serializeSpecialFloatingPointValues().create();
+    static final Class<?> ARRAY_ADAPTER = GSON.getAdapter(int[].class).getClass();
+    static final Class<?> LIST_ADAPTER = GSON.getAdapter(
+        TypeToken.getParameterized(List.class, Integer.class)).getClass();
+  }
+
+  static int nextInt(JsonReader in) throws IOException {
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  static long nextLong(JsonReader in) throws IOException {
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  static void writeDouble(JsonWriter out, double value, boolean checked) throws IOException {
+    if (checked && (Double.isNaN(value) || Double.isInfinite(value))) {
+      throw new IllegalArgumentException(value
+          + " is not a valid double value as per JSON specification. To override this"
+          + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+    }
+    out.value(value);
+  }
+
+  static final class IntArrayAdapter extends TypeAdapter<int[]> {
+    @Override public void write(JsonWriter out, int[] values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (int value : values) {
+        out.value(value);
+      }
+      out.endArray();
+    }
+
+    @Override public int[] read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      int[] values = new int[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = nextInt(in);
+      }
+      in.endArray();
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  static final class LongArrayAdapter extends TypeAdapter<long[]> {
+    @Override public void write(JsonWriter out, long[] values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (long value : values) {
+        out.value(value);
+      }
+      out.endArray();
+    }
+
+    @Override public long[] read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      long[] values = new long[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = nextLong(in);
+      }
+      in.endArray();
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  static final class DoubleArrayAdapter extends TypeAdapter<double[]> {
+    private final boolean checked;
+
+    DoubleArrayAdapter(boolean checked) {
+      this.checked = checked;
+    }
+
+    @Override public void write(JsonWriter out, double[] values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (double value : values) {
+        writeDouble(out, value, checked);
+      }
+      out.endArray();
+    }
+
+    @Override public double[] read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      double[] values = new double[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = in.nextDouble();
+      }
+      in.endArray();
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  static final class IntListAdapter extends TypeAdapter<List<Integer>> {
+    @Override public void write(JsonWriter out, List<Integer> values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      if (values instanceof IntList) {
+        IntList list = (IntList) values;
+        for (int i = 0; i < list.size; i++) {
+          out.value(list.values[i]);
+        }
+      } else {
+        for (Integer value : values) {
+          if (value == null) {
+            out.nullValue();
+          } else {
+            out.value(value.intValue());
+          }
+        }
+      }
+      out.endArray();
+    }
+
+    @Override public List<Integer> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      int[] values = new int[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (in.peek() == JsonToken.NULL) {
+          List<Integer> boxed = new ArrayList<>(size + 1);
+          for (int i = 0; i < size; i++) {
+            boxed.add(values[i]);
+          }
+          while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+              in.nextNull();
+              boxed.add(null);
+            } else {
+              boxed.add(nextInt(in));
+            }
+          }
+          in.endArray();
+          return Collections.unmodifiableList(boxed);
+        }
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = nextInt(in);
+      }
+      in.endArray();
+      return new IntList(values, size);
+    }
+  }
+
+  static final class LongListAdapter extends TypeAdapter<List<Long>> {
+    @Override public void write(JsonWriter out, List<Long> values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      if (values instanceof LongList) {
+        LongList list = (LongList) values;
+        for (int i = 0; i < list.size; i++) {
+          out.value(list.values[i]);
+        }
+      } else {
+        for (Long value : values) {
+          if (value == null) {
+            out.nullValue();
+          } else {
+            out.value(value.longValue());
+          }
+        }
+      }
+      out.endArray();
+    }
+
+    @Override public List<Long> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      long[] values = new long[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (in.peek() == JsonToken.NULL) {
+          List<Long> boxed = new ArrayList<>(size + 1);
+          for (int i = 0; i < size; i++) {
+            boxed.add(values[i]);
+          }
+          while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+              in.nextNull();
+              boxed.add(null);
+            } else {
+              boxed.add(nextLong(in));
+            }
+          }
+          in.endArray();
+          return Collections.unmodifiableList(boxed);
+        }
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = nextLong(in);
+      }
+      in.endArray();
+      return new LongList(values, size);
+    }
+  }
+
+  static final class DoubleListAdapter extends TypeAdapter<List<Double>> {
+    private final boolean checked;
+
+    DoubleListAdapter(boolean checked) {
+      this.checked = checked;
+    }
+
+    @Override public void write(JsonWriter out, List<Double> values) throws IOException {
+      if (values == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      if (values instanceof DoubleList) {
+        DoubleList list = (DoubleList) values;
+        for (int i = 0; i < list.size; i++) {
+          writeDouble(out, list.values[i], checked);
+        }
+      } else {
+        for (Double value : values) {
+          if (value == null) {
+            out.nullValue();
+          } else {
+            writeDouble(out, value, checked);
+          }
+        }
+      }
+      out.endArray();
+    }
+
+    @Override public List<Double> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      double[] values = new double[INITIAL_CAPACITY];
+      int size = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (in.peek() == JsonToken.NULL) {
+          List<Double> boxed = new ArrayList<>(size + 1);
+          for (int i = 0; i < size; i++) {
+            boxed.add(values[i]);
+          }
+          while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+              in.nextNull();
+              boxed.add(null);
+            } else {
+              boxed.add(in.nextDouble());
+            }
+          }
+          in.endArray();
+          return Collections.unmodifiableList(boxed);
+        }
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = in.nextDouble();
+      }
+      in.endArray();
+      return new DoubleList(values, size);
+    }
+  }
+
+  static final class IntList extends AbstractList<Integer> implements RandomAccess {
+    final int[] values;
+    final int size;
+
+    IntList(int[] values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override public Integer get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return values[index];
+    }
+
+    @Override public int size() {
+      return size;
+    }
+  }
+
+  static final class LongList extends AbstractList<Long> implements RandomAccess {
+    final long[] values;
+    final int size;
+
+    LongList(long[] values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override public Long get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return values[index];
+    }
+
+    @Override public int size() {
+      return size;
+    }
+  }
+
+  static final class DoubleList extends AbstractList<Double> implements RandomAccess {
+    final double[] values;
+    final int size;
+
+    DoubleList(double[] values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override public Double get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return values[index];
+    }
+
+    @Override public int size() {
+      return size;
+    }
+  }
+}
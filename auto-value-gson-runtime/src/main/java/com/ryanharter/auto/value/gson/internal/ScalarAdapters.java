@@ -0,0 +1,171 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Adapters for strings and boxed primitives that read and write them as Gson's built-in adapters
+ * do by default, for {@link com.ryanharter.auto.value.gson.GsonStandalone} adapters, which don't
+ * have a Gson instance to look them up in.
+ */
+public final class ScalarAdapters {
+
+  private ScalarAdapters() {
+  }
+
+  public static final TypeAdapter<String> STRING = new TypeAdapter<String>() {
+    @Override public void write(JsonWriter out, String value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public String read(JsonReader in) throws IOException {
+      JsonToken peek = in.peek();
+      if (peek == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      if (peek == JsonToken.BOOLEAN) {
+        return Boolean.toString(in.nextBoolean());
+      }
+      return in.nextString();
+    }
+  };
+
+  public static final TypeAdapter<Boolean> BOOLEAN = new TypeAdapter<Boolean>() {
+    @Override public void write(JsonWriter out, Boolean value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public Boolean read(JsonReader in) throws IOException {
+      JsonToken peek = in.peek();
+      if (peek == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      if (peek == JsonToken.STRING) {
+        // lenient, as Gson's
+        return Boolean.parseBoolean(in.nextString());
+      }
+      return in.nextBoolean();
+    }
+  };
+
+  public static final TypeAdapter<Integer> INTEGER = new TypeAdapter<Integer>() {
+    @Override public void write(JsonWriter out, Integer value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public Integer read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return PrimitiveAdapters.nextInt(in);
+    }
+  };
+
+  public static final TypeAdapter<Long> LONG = new TypeAdapter<Long>() {
+    @Override public void write(JsonWriter out, Long value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public Long read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return PrimitiveAdapters.nextLong(in);
+    }
+  };
+
+  public static final TypeAdapter<Short> SHORT = new TypeAdapter<Short>() {
+    @Override public void write(JsonWriter out, Short value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public Short read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return (short) PrimitiveAdapters.nextInt(in);
+    }
+  };
+
+  public static final TypeAdapter<Byte> BYTE = new TypeAdapter<Byte>() {
+    @Override public void write(JsonWriter out, Byte value) throws IOException {
+      out.value(value);
+    }
+
+    @Override public Byte read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return (byte) PrimitiveAdapters.nextInt(in);
+    }
+  };
+
+  public static final TypeAdapter<Double> DOUBLE = new TypeAdapter<Double>() {
+    @Override public void write(JsonWriter out, Double value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      PrimitiveAdapters.writeDouble(out, value, true);
+    }
+
+    @Override public Double read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return in.nextDouble();
+    }
+  };
+
+  public static final TypeAdapter<Float> FLOAT = new TypeAdapter<Float>() {
+    @Override public void write(JsonWriter out, Float value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      if (Float.isNaN(value) || Float.isInfinite(value)) {
+        // rejected with Gson's message
+        PrimitiveAdapters.writeDouble(out, value, true);
+      }
+      // written as the float, not its double widening
+      out.value(value);
+    }
+
+    @Override public Float read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return (float) in.nextDouble();
+    }
+  };
+
+  public static final TypeAdapter<Character> CHARACTER = new TypeAdapter<Character>() {
+    @Override public void write(JsonWriter out, Character value) throws IOException {
+      out.value(value == null ? null : String.valueOf(value));
+    }
+
+    @Override public Character read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      String value = in.nextString();
+      if (value.length() != 1) {
+        throw new JsonSyntaxException("Expecting character, got: " + value);
+      }
+      return value.charAt(0);
+    }
+  };
+}
@@ -0,0 +1,143 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the JSON text written for instances of a
+ * {@link com.ryanharter.auto.value.gson.GsonCacheSerialized} type, weakly keyed by instance
+ * identity.
+ *
+ * <p>Text is cached per combination of the writer's {@code serializeNulls}, {@code htmlSafe} and
+ * {@code lenient} settings. It is only used while the writers of the {@link Gson} that the adapter
+ * was created with are compact, and then only for plain {@link JsonWriter JsonWriters} like those
+ * of {@link Gson#newJsonWriter}. Other writers, like Gson's tree writer and the indented writers
+ * of {@link com.google.gson.GsonBuilder#setPrettyPrinting()}, are written to directly.
+ */
+public final class SerializedCache<T> {
+
+  /** The number of combinations of the writer settings, each of which has its own text. */
+  private static final int SETTINGS = 8;
+
+  /** Implemented by the generated TypeAdapter, to write an instance without the cache. */
+  public interface Source<T> {
+    void writeUncached(JsonWriter out, T value) throws IOException;
+  }
+
+  private final ConcurrentMap<Key, String[]> entries = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> staleKeys = new ReferenceQueue<>();
+  private final boolean compact;
+
+  public SerializedCache(Gson gson) {
+    this.compact = isCompact(gson);
+  }
+
+  public void write(JsonWriter out, T value, Source<T> source) throws IOException {
+    if (!compact || value == null || out.getClass() != JsonWriter.class) {
+      source.writeUncached(out, value);
+      return;
+    }
+    for (Reference<?> ref; (ref = staleKeys.poll()) != null; ) {
+      entries.remove(ref);
+    }
+    String[] texts = entries.get(new Lookup(value));
+    if (texts == null) {
+      String[] created = new String[SETTINGS];
+      texts = entries.putIfAbsent(new Key(value, staleKeys), created);
+      if (texts == null) {
+        texts = created;
+      }
+    }
+    int settings = settingsOf(out);
+    // Racing writers store equal, immutable text, so the slots aren't synchronized.
+    String json = texts[settings];
+    if (json == null) {
+      StringWriter buffer = new StringWriter();
+      JsonWriter writer = new JsonWriter(buffer);
+      writer.setSerializeNulls(out.getSerializeNulls());
+      writer.setHtmlSafe(out.isHtmlSafe());
+      writer.setLenient(out.isLenient());
+      source.writeUncached(writer, value);
+      json = buffer.toString();
+      texts[settings] = json;
+    }
+    out.jsonValue(json);
+  }
+
+  private static int settingsOf(JsonWriter out) {
+    return (out.getSerializeNulls() ? 1 : 0)
+        | (out.isHtmlSafe() ? 2 : 0)
+        | (out.isLenient() ? 4 : 0);
+  }
+
+  /**
+   * Returns whether the writers of {@code gson} write without whitespace, like the cached text.
+   * Gson doesn't expose its formatting, so it's told from the output of one of its writers.
+   */
+  private static boolean isCompact(Gson gson) {
+    StringWriter buffer = new StringWriter();
+    try {
+      JsonWriter writer = gson.newJsonWriter(buffer);
+      writer.beginArray();
+      writer.value(0);
+      writer.endArray();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return buffer.toString().equals("[0]");
+  }
+
+  /** Weakly refers to an instance, equal only to the keys of that same instance. */
+  private static final class Key extends WeakReference<Object> {
+    private final int hashCode;
+
+    Key(Object value, ReferenceQueue<Object> queue) {
+      super(value, queue);
+      this.hashCode = System.identityHashCode(value);
+    }
+
+    @Override public boolean equals(Object other) {
+      if (other == this) {
+        return true;
+      }
+      if (!(other instanceof Key) || ((Key) other).hashCode != hashCode) {
+        return false;
+      }
+      Object value = get();
+      return value != null && value == ((Key) other).get();
+    }
+
+    @Override public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * Looks up the {@link Key} of an instance without creating a reference to it. It's only passed
+   * to {@link ConcurrentMap#get}, which compares it to the keys by its own {@code equals}.
+   */
+  private static final class Lookup {
+    private final Object value;
+    private final int hashCode;
+
+    Lookup(Object value) {
+      this.value = value;
+      this.hashCode = System.identityHashCode(value);
+    }
+
+    @Override public boolean equals(Object other) {
+      return other instanceof Key && ((Key) other).get() == value;
+    }
+
+    @Override public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,418 @@
+package com.ryanharter.auto.value.gson.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.GsonSubtypes;
+import com.ryanharter.auto.value.gson.PropertiesAdapter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads and writes the subtypes of a {@link GsonSubtypes} type, as objects that start with the
+ * discriminator property.
+ *
+ * <p>Subtype adapters that implement {@link PropertiesAdapter} read the rest of the object
+ * straight from the stream when the discriminator comes first. Otherwise the object is copied
+ * into a JSON string until the discriminator is found, and read from there. A JsonReader that
+ * replays buffered tokens wouldn't do, as Gson's map adapter reads names through the internals
+ * of its readers. Other subtype adapters write their object through a {@code PropertiesWriter}.
+ */
+public final class SubtypeAdapter<T> extends TypeAdapter<T> {
+
+  /**
+   * Returns the adapter of a {@link GsonSubtypes} type, or a {@code SubtypeAdapter}-backed adapter
+   * of one of its subtypes, so that the discriminator is written even where Gson picks the adapter
+   * by runtime type. Returns {@code null} for other types.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public static <T> TypeAdapter<T> create(Gson gson, TypeAdapterFactory factory,
+      TypeToken<T> type) {
+    Class<? super T> rawType = type.getRawType();
+    GsonSubtypes annotation = rawType.getAnnotation(GsonSubtypes.class);
+    if (annotation != null) {
+      return new SubtypeAdapter<>(gson, factory, rawType, annotation);
+    }
+    Class<?> baseType = annotatedSupertype(rawType);
+    if (baseType == null || !isListed(rawType, baseType.getAnnotation(GsonSubtypes.class))) {
+      return null;
+    }
+    TypeAdapter<?> baseAdapter = gson.getAdapter(baseType);
+    if (!(baseAdapter instanceof SubtypeAdapter)) {
+      return null;
+    }
+    SubtypeAdapter<Object> base = (SubtypeAdapter<Object>) baseAdapter;
+    TypeAdapter<T> delegate = gson.getDelegateAdapter(factory, type);
+    return new TypeAdapter<T>() {
+      @Override public void write(JsonWriter out, T value) throws IOException {
+        base.write(out, value);
+      }
+
+      @Override public T read(JsonReader in) throws IOException {
+        // the discriminator is skipped as an unknown name
+        return delegate.read(in);
+      }
+    };
+  }
+
+  @Nullable private static Class<?> annotatedSupertype(Class<?> type) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      if (c != type && c.isAnnotationPresent(GsonSubtypes.class)) {
+        return c;
+      }
+      for (Class<?> i : c.getInterfaces()) {
+        Class<?> found = i.isAnnotationPresent(GsonSubtypes.class) ? i : annotatedSupertype(i);
+        if (found != null) {
+          return found;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean isListed(Class<?> type, GsonSubtypes annotation) {
+    for (GsonSubtypes.Type subtype : annotation.value()) {
+      if (subtype.value().isAssignableFrom(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private final Gson gson;
+  /** The factory that created this adapter, skipped when looking up subtype adapters. */
+  private final TypeAdapterFactory factory;
+  private final Class<?> baseType;
+  private final String property;
+  private final Map<String, Class<?>> subtypes = new HashMap<>();
+  private final Map<Class<?>, String> names = new HashMap<>();
+  /** Subtype adapters by name, resolved on first use as they may refer back to this adapter. */
+  private final Map<String, TypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+  /** Discriminator values by the runtime class of written values. */
+  private final Map<Class<?>, String> classNames = new ConcurrentHashMap<>();
+
+  private SubtypeAdapter(Gson gson, TypeAdapterFactory factory, Class<? super T> baseType,
+      GsonSubtypes annotation) {
+    this.gson = gson;
+    this.factory = factory;
+    this.baseType = baseType;
+    this.property = annotation.property();
+    for (GsonSubtypes.Type type : annotation.value()) {
+      // Written values are matched to their subtype by superclass.
+      if (type.value().isInterface()) {
+        throw new IllegalArgumentException(type.value().getName() + " is an interface, but "
+            + "the subtypes of " + baseType.getName() + " must be classes");
+      }
+      if (!baseType.isAssignableFrom(type.value())) {
+        throw new IllegalArgumentException(
+            type.value().getName() + " is not a subtype of " + baseType.getName());
+      }
+      if (subtypes.put(type.name(), type.value()) != null) {
+        throw new IllegalArgumentException("Duplicate " + property + " \"" + type.name()
+            + "\" of " + baseType.getName());
+      }
+      names.put(type.value(), type.name());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public void write(JsonWriter out, T value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    String name = nameOf(value.getClass());
+    TypeAdapter<Object> adapter = adapter(name);
+    out.beginObject();
+    out.name(property).value(name);
+    if (adapter instanceof PropertiesAdapter) {
+      ((PropertiesAdapter<Object>) adapter).writeProperties(out, value);
+    } else {
+      adapter.write(new PropertiesWriter(out, property, value.getClass()), value);
+    }
+    out.endObject();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public T read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    in.beginObject();
+    if (!in.hasNext()) {
+      throw missingProperty(in);
+    }
+    String first = in.nextName();
+    if (first.equals(property)) {
+      TypeAdapter<Object> adapter = adapter(readName(in));
+      if (adapter instanceof PropertiesAdapter) {
+        return (T) ((PropertiesAdapter<Object>) adapter).readProperties(in);
+      }
+      StringWriter buffer = new StringWriter();
+      JsonWriter writer = Util.bufferWriter(buffer);
+      writer.beginObject();
+      copyRemaining(in, writer);
+      return (T) adapter.read(Util.bufferedReader(buffer.toString(), in));
+    }
+
+    // Copy the object until the discriminator comes along, and then the rest of it.
+    StringWriter buffer = new StringWriter();
+    JsonWriter writer = Util.bufferWriter(buffer);
+    writer.beginObject();
+    writer.name(first);
+    Util.copyValue(in, writer);
+    String name = null;
+    while (in.hasNext()) {
+      String next = in.nextName();
+      if (name == null && next.equals(property)) {
+        name = readName(in);
+      } else {
+        writer.name(next);
+        Util.copyValue(in, writer);
+      }
+    }
+    if (name == null) {
+      throw missingProperty(in);
+    }
+    in.endObject();
+    writer.endObject();
+    return (T) adapter(name).read(Util.bufferedReader(buffer.toString(), in));
+  }
+
+  private String nameOf(Class<?> type) {
+    String name = classNames.get(type);
+    if (name == null) {
+      // AutoValue instances are of generated subclasses of the registered types.
+      for (Class<?> c = type; c != null && name == null; c = c.getSuperclass()) {
+        name = names.get(c);
+      }
+      if (name == null) {
+        throw new IllegalArgumentException(
+            type.getName() + " is not a registered subtype of " + baseType.getName());
+      }
+      classNames.put(type, name);
+    }
+    return name;
+  }
+
+  @SuppressWarnings("unchecked")
+  private TypeAdapter<Object> adapter(String name) {
+    TypeAdapter<?> adapter = adapters.get(name);
+    if (adapter == null) {
+      adapter = gson.getDelegateAdapter(factory, TypeToken.get(subtypes.get(name)));
+      adapters.put(name, adapter);
+    }
+    return (TypeAdapter<Object>) adapter;
+  }
+
+  private String readName(JsonReader in) throws IOException {
+    String name = in.nextString();
+    if (!subtypes.containsKey(name)) {
+      throw new JsonParseException("Unknown " + property + " \"" + name + "\" of "
+          + baseType.getName() + " at " + in.getPath());
+    }
+    return name;
+  }
+
+  private JsonParseException missingProperty(JsonReader in) {
+    return new JsonParseException("Missing " + property + " of " + baseType.getName() + " at "
+        + in.getPath());
+  }
+
+  /**
+   * Writes the properties of the object written to it into the object already begun on
+   * {@code out}, leaving out any discriminator, so subtype adapters that aren't
+   * {@link PropertiesAdapter PropertiesAdapters} are streamed rather than written to a tree.
+   */
+  private static final class PropertiesWriter extends JsonWriter {
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+      @Override public void write(char[] buffer, int offset, int counter) {
+        throw new AssertionError();
+      }
+
+      @Override public void flush() {
+        throw new AssertionError();
+      }
+
+      @Override public void close() {
+        throw new AssertionError();
+      }
+    };
+
+    private final JsonWriter out;
+    private final String property;
+    private final Class<?> type;
+    /** The nesting of the written value, which is 1 between the properties of the object. */
+    private int depth;
+    /** Whether the value of a discriminator written by the adapter is being left out. */
+    private boolean skipping;
+
+    PropertiesWriter(JsonWriter out, String property, Class<?> type) {
+      super(UNWRITABLE_WRITER);
+      this.out = out;
+      this.property = property;
+      this.type = type;
+      setSerializeNulls(out.getSerializeNulls());
+      setHtmlSafe(out.isHtmlSafe());
+      setLenient(out.isLenient());
+    }
+
+    @Override public JsonWriter beginObject() throws IOException {
+      if (depth++ > 0 && !skipping) {
+        out.beginObject();
+      }
+      return this;
+    }
+
+    @Override public JsonWriter endObject() throws IOException {
+      if (isEndWritten()) {
+        out.endObject();
+      }
+      return this;
+    }
+
+    @Override public JsonWriter beginArray() throws IOException {
+      if (depth++ == 0) {
+        throw notAnObject();
+      }
+      if (!skipping) {
+        out.beginArray();
+      }
+      return this;
+    }
+
+    @Override public JsonWriter endArray() throws IOException {
+      if (isEndWritten()) {
+        out.endArray();
+      }
+      return this;
+    }
+
+    @Override public JsonWriter name(String name) throws IOException {
+      if (depth == 1 && name.equals(property)) {
+        skipping = true;
+      } else if (!skipping) {
+        out.name(name);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter value(String value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter jsonValue(String value) throws IOException {
+      if (isWritten()) {
+        out.jsonValue(value);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter nullValue() throws IOException {
+      if (isWritten()) {
+        out.nullValue();
+      }
+      return this;
+    }
+
+    @Override public JsonWriter value(boolean value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter value(Boolean value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    // overrides the method of later Gson versions, which would write to UNWRITABLE_WRITER
+    public JsonWriter value(float value) throws IOException {
+      return value((Number) value);
+    }
+
+    @Override public JsonWriter value(double value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter value(long value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter value(Number value) throws IOException {
+      if (isWritten()) {
+        out.value(value);
+      }
+      return this;
+    }
+
+    @Override public void flush() {
+    }
+
+    @Override public void close() {
+    }
+
+    /** Returns whether a value is passed on to {@code out}, and ends a discriminator's value. */
+    private boolean isWritten() {
+      if (depth == 0) {
+        throw notAnObject();
+      }
+      if (skipping && depth == 1) {
+        skipping = false;
+        return false;
+      }
+      return !skipping;
+    }
+
+    /**
+     * Returns whether the end of an object or array is passed on to {@code out}, and ends a
+     * discriminator's value. The end of the written object is left to the caller.
+     */
+    private boolean isEndWritten() {
+      depth--;
+      if (skipping) {
+        skipping = depth > 1;
+        return false;
+      }
+      return depth > 0;
+    }
+
+    private JsonParseException notAnObject() {
+      return new JsonParseException(type.getName() + " must be written as an object");
+    }
+  }
+
+  /** Copies the rest of the current object, including its end. */
+  private static void copyRemaining(JsonReader in, JsonWriter out) throws IOException {
+    while (in.hasNext()) {
+      out.name(in.nextName());
+      Util.copyValue(in, out);
+    }
+    in.endObject();
+    out.endObject();
+  }
+}
@@ -17,6 +17,21 @@ package com.ryanharter.auto.value.gson.internal;
 
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.FieldNamingStrategy;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.Since;
+import com.google.gson.annotations.Until;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.DeltaAdapter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -24,86 +39,248 @@ import java.lang.reflect.WildcardType;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.jetbrains.annotations.Nullable;
 
 public final class Util {
   static final Type[] EMPTY_TYPE_ARRAY = new Type[] {};
+  private static final ConcurrentMap<TypeKey, TypeTokenRef> TYPE_TOKENS =
+      new ConcurrentHashMap<>();
+  private static final ReferenceQueue<TypeToken<?>> STALE_TYPE_TOKENS = new ReferenceQueue<>();
 
   private Util() {
   }
 
+  /**
+   * Writes {@code current} as a delta from {@code base} if {@code adapter} is a
+   * {@link DeltaAdapter}, or else in full.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> void writeDelta(TypeAdapter<T> adapter, JsonWriter out, @Nullable T base,
+      @Nullable T current) throws IOException {
+    if (adapter instanceof DeltaAdapter) {
+      ((DeltaAdapter<T>) adapter).writeDelta(out, base, current);
+    } else {
+      adapter.write(out, current);
+    }
+  }
+
+  /**
+   * Writes a member named {@code name} with a null value, whatever the {@code serializeNulls}
+   * setting of {@code out}, since a null in a delta clears the base value.
+   */
+  public static void writeNullMember(JsonWriter out, String name) throws IOException {
+    boolean serializeNulls = out.getSerializeNulls();
+    out.setSerializeNulls(true);
+    try {
+      out.name(name).nullValue();
+    } finally {
+      out.setSerializeNulls(serializeNulls);
+    }
+  }
+
+  /** Reads a value written by {@link #writeDelta}. */
+  @SuppressWarnings("unchecked")
+  public static <T> T readDelta(TypeAdapter<T> adapter, JsonReader in, @Nullable T base)
+      throws IOException {
+    if (adapter instanceof DeltaAdapter) {
+      return ((DeltaAdapter<T>) adapter).readDelta(in, base);
+    }
+    return adapter.read(in);
+  }
+
+  /**
+   * Copies the next value of {@code in} into a JSON string, to be read later with
+   * {@link #bufferedReader}.
+   */
+  public static String bufferValue(JsonReader in) throws IOException {
+    StringWriter buffer = new StringWriter();
+    copyValue(in, bufferWriter(buffer));
+    return buffer.toString();
+  }
+
+  /** Returns a reader of {@code json} that is as lenient as {@code in}. */
+  public static JsonReader bufferedReader(String json, JsonReader in) {
+    JsonReader reader = new JsonReader(new StringReader(json));
+    reader.setLenient(in.isLenient());
+    return reader;
+  }
+
+  static JsonWriter bufferWriter(StringWriter buffer) {
+    JsonWriter writer = new JsonWriter(buffer);
+    writer.setLenient(true);
+    writer.setSerializeNulls(true);
+    return writer;
+  }
+
+  /** Copies the next value of {@code in}, which may be an array or object, to {@code out}. */
+  static void copyValue(JsonReader in, JsonWriter out) throws IOException {
+    int depth = 0;
+    do {
+      switch (in.peek()) {
+        case BEGIN_ARRAY:
+          in.beginArray();
+          out.beginArray();
+          depth++;
+          break;
+        case END_ARRAY:
+          in.endArray();
+          out.endArray();
+          depth--;
+          break;
+        case BEGIN_OBJECT:
+          in.beginObject();
+          out.beginObject();
+          depth++;
+          break;
+        case END_OBJECT:
+          in.endObject();
+          out.endObject();
+          depth--;
+          break;
+        case NAME:
+          out.name(in.nextName());
+          break;
+        case STRING:
+          out.value(in.nextString());
+          break;
+        case NUMBER:
+          // keeps the number exactly as written
+          out.jsonValue(in.nextString());
+          break;
+        case BOOLEAN:
+          out.value(in.nextBoolean());
+          break;
+        case NULL:
+          in.nextNull();
+          out.nullValue();
+          break;
+        default:
+          throw new IllegalStateException("Unexpected " + in.peek() + " at " + in.getPath());
+      }
+    } while (depth > 0);
+  }
+
+  /**
+   * Returns whether {@code gson} has a version set with
+   * {@link com.google.gson.GsonBuilder#setVersion}. Gson doesn't expose the version, so it's
+   * tested with {@link #versionExcludes} on a class that every version excludes.
+   */
+  public static boolean hasVersion(Gson gson) {
+    return versionExcludes(gson, AnyVersion.class);
+  }
+
+  /**
+   * Returns whether the version of {@code gson} excludes {@code marker}, a class annotated with
+   * {@link Since} or {@link Until} for a version bound. Only use it once {@link #hasVersion} is
+   * true.
+   *
+   * <p>The marker is passed to the excluder of {@code gson}, which also asks its
+   * {@link com.google.gson.ExclusionStrategy ExclusionStrategies}. Those must not skip the marker
+   * classes, or their version bounds are taken to exclude every version.
+   */
+  public static boolean versionExcludes(Gson gson, Class<?> marker) {
+    return gson.excluder().excludeClass(marker, true);
+  }
+
+  @Until(-Double.MAX_VALUE)
+  private static final class AnyVersion {
+  }
+
+  /**
+   * Returns the parameterized type of {@code rawType} with {@code typeArguments}, owned by the class
+   * enclosing {@code rawType}, if any.
+   */
+  public static ParameterizedType parameterizedType(Class<?> rawType, Type... typeArguments) {
+    return new ParameterizedTypeImpl(rawType.getEnclosingClass(), rawType, typeArguments);
+  }
+
+  /**
+   * Returns the TypeToken of {@code type}, which is the same instance for every equal type as long
+   * as it's in use. Gson caches its adapters by TypeToken, so the lookups of generated adapters with
+   * interned TypeTokens are identity hits rather than deep comparisons of their types. The
+   * TypeTokens are held weakly, so they don't keep their classes from being unloaded.
+   */
+  public static TypeToken<?> typeToken(Type type) {
+    for (Reference<?> ref; (ref = STALE_TYPE_TOKENS.poll()) != null; ) {
+      TypeTokenRef stale = (TypeTokenRef) ref;
+      TYPE_TOKENS.remove(stale.key, stale);
+    }
+    // canonical like the type of the TypeToken, for an equal hash code
+    Type canonical = canonicalize(type);
+    TypeKey key = new TypeKey(canonical);
+    while (true) {
+      TypeTokenRef ref = TYPE_TOKENS.get(key);
+      TypeToken<?> typeToken = ref != null ? ref.get() : null;
+      if (typeToken != null) {
+        return typeToken;
+      }
+      if (ref == null) {
+        typeToken = TypeToken.get(canonical);
+        TypeTokenRef created = new TypeTokenRef(typeToken);
+        ref = TYPE_TOKENS.putIfAbsent(created.key, created);
+        if (ref == null) {
+          return typeToken;
+        }
+        typeToken = ref.get();
+        if (typeToken != null) {
+          return typeToken;
+        }
+      }
+      // cleared, but not polled yet
+      TYPE_TOKENS.remove(ref.key, ref);
+    }
+  }
+
+  /**
+   * Returns {@code names} as translated by {@code fieldNamingStrategy}. The policies with a table
+   * in {@link FieldNames} are translated directly, and other strategies, including policies added
+   * to Gson later, are given the field of each name in {@code targetClass} or its superclasses. A
+   * name without a field is kept as is.
+   */
   public static Map<String, String> renameFields(Class<?> targetClass,
       List<String> names,
       FieldNamingStrategy fieldNamingStrategy) {
+    String policy = fieldNamingStrategy instanceof FieldNamingPolicy
+        ? ((FieldNamingPolicy) fieldNamingStrategy).name()
+        : null;
     Map<String, String> renamedFields = new LinkedHashMap<>();
     for (String fieldName : names) {
-      if (fieldNamingStrategy instanceof FieldNamingPolicy) {
-        switch ((FieldNamingPolicy) fieldNamingStrategy) {
-          case UPPER_CAMEL_CASE:
-            renamedFields.put(fieldName, upperCaseFirstLetter(fieldName));
-            break;
-          case UPPER_CAMEL_CASE_WITH_SPACES:
-            renamedFields.put(fieldName, upperCaseFirstLetter(separateCamelCase(fieldName, " ")));
-            break;
-          case LOWER_CASE_WITH_UNDERSCORES:
-            renamedFields.put(fieldName, separateCamelCase(fieldName, "_").toLowerCase(Locale.ENGLISH));
-            break;
-          case LOWER_CASE_WITH_DASHES:
-            renamedFields.put(fieldName, separateCamelCase(fieldName, "-").toLowerCase(Locale.ENGLISH));
-            break;
-          case LOWER_CASE_WITH_DOTS:
-            renamedFields.put(fieldName, separateCamelCase(fieldName, ".").toLowerCase(Locale.ENGLISH));
-            break;
-          default:
-            renamedFields.put(fieldName, fieldName);
-        }
+      if (policy != null && FieldNames.POLICIES.contains(policy)) {
+        renamedFields.put(fieldName, FieldNames.translate(policy, fieldName));
       } else {
-        try {
-          renamedFields.put(fieldName, fieldNamingStrategy.translateName(targetClass.getDeclaredField(fieldName)));
-        } catch (NoSuchFieldException E) {
-          renamedFields.put(fieldName, fieldName);
-        }
+        Field field = declaredField(targetClass, fieldName);
+        renamedFields.put(fieldName,
+            field != null ? fieldNamingStrategy.translateName(field) : fieldName);
       }
     }
     return renamedFields;
   }
-  private static String separateCamelCase(String name, String separator) {
-    StringBuilder translation = new StringBuilder();
-    for (int i = 0, length = name.length(); i < length; i++) {
-      char character = name.charAt(i);
-      if (Character.isUpperCase(character) && translation.length() != 0) {
-        translation.append(separator);
+
+  @Nullable private static Field declaredField(Class<?> targetClass, String name) {
+    for (Class<?> c = targetClass; c != null && c != Object.class; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredField(name);
+      } catch (NoSuchFieldException e) {
+        // look in the superclass
       }
-      translation.append(character);
     }
-    return translation.toString();
-  }
-
-  private static String modifyString(char firstCharacter, String srcString,
-      int indexOfSubstring) {
-    return (indexOfSubstring < srcString.length()) ? firstCharacter + srcString.substring(indexOfSubstring) : String.valueOf(firstCharacter);
+    return null;
   }
 
-  private static String upperCaseFirstLetter(String name) {
-    StringBuilder fieldNameBuilder = new StringBuilder();
-    int index = 0;
-    char firstCharacter = name.charAt(index);
-    int length = name.length();
-    while (index < length - 1) {
-      if (Character.isLetter(firstCharacter)) {
-        break;
-      }
-      fieldNameBuilder.append(firstCharacter);
-      firstCharacter = name.charAt(++index);
-    }
-    if (!Character.isUpperCase(firstCharacter)) {
-      String modifiedTarget = modifyString(Character.toUpperCase(firstCharacter), name, ++index);
-      return fieldNameBuilder.append(modifiedTarget).toString();
-    } else {
-      return name;
-    }
+  /**
+   * Returns the adapter {@code gson} resolves for {@code enumClass}, unless that is Gson's built-in
+   * reflective enum adapter, in which case the compile-time {@code generated} adapter is returned
+   * instead. This keeps custom enum adapters registered with Gson in charge. Generated adapters
+   * call it once per Gson instance, when they first need the adapter.
+   */
+  public static <E extends Enum<E>> TypeAdapter<E> enumAdapter(Gson gson,
+      Class<E> enumClass,
+      TypeAdapter<E> generated) {
+    TypeAdapter<E> adapter = gson.getAdapter(enumClass);
+    return adapter.getClass() == BuiltInEnumAdapter.CLASS ? generated : adapter;
   }
 
   /**
@@ -136,6 +313,51 @@ public final class Util {
     }
   }
 
+  /**
+   * Holds the class of Gson's built-in enum adapter, which is the same for every enum. It's told
+   * from the adapter of a plain Gson instance rather than by name, since Gson moves it around.
+   */
+  private static final class BuiltInEnumAdapter {
+    static final Class<?> CLASS = new Gson().getAdapter(Probe.class).getClass();
+
+    enum Probe { VALUE }
+  }
+
+  /** A key of {@link #TYPE_TOKENS}, which holds its type weakly. */
+  private static final class TypeKey extends WeakReference<Type> {
+    private final int hashCode;
+
+    TypeKey(Type type) {
+      super(type);
+      this.hashCode = type.hashCode();
+    }
+
+    @Override public boolean equals(Object other) {
+      if (other == this) {
+        return true;
+      }
+      if (!(other instanceof TypeKey) || ((TypeKey) other).hashCode != hashCode) {
+        return false;
+      }
+      Type type = get();
+      return type != null && WildcardUtil.equals(type, ((TypeKey) other).get());
+    }
+
+    @Override public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** A value of {@link #TYPE_TOKENS}, keyed by the type of its TypeToken. */
+  private static final class TypeTokenRef extends WeakReference<TypeToken<?>> {
+    final TypeKey key;
+
+    TypeTokenRef(TypeToken<?> typeToken) {
+      super(typeToken, STALE_TYPE_TOKENS);
+      this.key = new TypeKey(typeToken.getType());
+    }
+  }
+
   private static int hashCodeOrZero(@Nullable Object o) {
     return o != null ? o.hashCode() : 0;
   }
@@ -154,6 +376,7 @@ public final class Util {
     private final @Nullable Type ownerType;
     private final Type rawType;
     final Type[] typeArguments;
+    private final int hashCode;
 
     ParameterizedTypeImpl(@Nullable Type ownerType, Type rawType, Type... typeArguments) {
       // Require an owner type if the raw type needs it.
@@ -178,6 +401,9 @@ public final class Util {
         checkNotPrimitive(this.typeArguments[t]);
         this.typeArguments[t] = canonicalize(this.typeArguments[t]);
       }
+      this.hashCode = Arrays.hashCode(this.typeArguments)
+          ^ this.rawType.hashCode()
+          ^ hashCodeOrZero(this.ownerType);
     }
 
     @Override public Type[] getActualTypeArguments() {
@@ -198,9 +424,7 @@ public final class Util {
     }
 
     @Override public int hashCode() {
-      return Arrays.hashCode(typeArguments)
-          ^ rawType.hashCode()
-          ^ hashCodeOrZero(ownerType);
+      return hashCode;
     }
 
     @Override public String toString() {
@@ -221,9 +445,11 @@ public final class Util {
 
   public static final class GenericArrayTypeImpl implements GenericArrayType {
     private final Type componentType;
+    private final int hashCode;
 
     GenericArrayTypeImpl(Type componentType) {
       this.componentType = canonicalize(componentType);
+      this.hashCode = this.componentType.hashCode();
     }
 
     @Override public Type getGenericComponentType() {
@@ -236,7 +462,7 @@ public final class Util {
     }
 
     @Override public int hashCode() {
-      return componentType.hashCode();
+      return hashCode;
     }
 
     @Override public String toString() {
@@ -252,6 +478,7 @@ public final class Util {
   public static final class WildcardTypeImpl implements WildcardType {
     private final Type upperBound;
     private final @Nullable Type lowerBound;
+    private final int hashCode;
 
     WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
       if (lowerBounds.length > 1) throw new IllegalArgumentException();
@@ -270,6 +497,9 @@ public final class Util {
         this.lowerBound = null;
         this.upperBound = canonicalize(upperBounds[0]);
       }
+      // This equals Arrays.hashCode(getLowerBounds()) ^ Arrays.hashCode(getUpperBounds()).
+      this.hashCode = (lowerBound != null ? 31 + lowerBound.hashCode() : 1)
+          ^ (31 + upperBound.hashCode());
     }
 
     @Override public Type[] getUpperBounds() {
@@ -286,9 +516,7 @@ public final class Util {
     }
 
     @Override public int hashCode() {
-      // This equals Arrays.hashCode(getLowerBounds()) ^ Arrays.hashCode(getUpperBounds()).
-      return (lowerBound != null ? 31 + lowerBound.hashCode() : 1)
-          ^ (31 + upperBound.hashCode());
+      return hashCode;
     }
 
     @Override public String toString() {
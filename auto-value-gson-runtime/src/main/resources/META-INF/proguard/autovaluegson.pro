@@ -1,3 +1,9 @@
 # Annotations are for embedding static analysis information.
 -dontwarn org.jetbrains.annotations.**
 -dontwarn com.google.errorprone.annotations.**
+
+# JFR events are created reflectively, and only where jdk.jfr exists.
+-keep class com.ryanharter.auto.value.gson.internal.JfrAdapterEvents {
+    public <init>(java.lang.Class, int);
+}
+-dontwarn jdk.jfr.**
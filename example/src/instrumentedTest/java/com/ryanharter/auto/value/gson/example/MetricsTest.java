@@ -0,0 +1,108 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.AdapterMetrics;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.InMemoryAdapterMetrics;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class MetricsTest {
+
+  private final Gson gson =
+      new GsonBuilder().registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY).create();
+
+  @Test
+  public void recordsReadsWritesAndFailures() throws IOException {
+    TypeAdapter<Item> adapter = gson.getAdapter(Item.class);
+    InMemoryAdapterMetrics.Stats stats =
+        ((InMemoryAdapterMetrics) AdapterMetrics.get()).stats().get(Item.class);
+
+    assertEquals("{\"name\":\"a\",\"count\":1}", adapter.toJson(Item.create("a", 1)));
+    assertEquals(Item.create("b", 2), adapter.fromJson("{\"name\":\"b\",\"count\":2}"));
+    try {
+      adapter.fromJson("{\"name\":\"c\",\"count\":\"many\"}");
+      fail();
+    } catch (JsonSyntaxException expected) {
+    }
+
+    assertEquals(1, stats.writes());
+    assertEquals(0, stats.writeFailures());
+    assertEquals(2, stats.reads());
+    assertEquals(1, stats.readFailures());
+    assertTrue(stats.readNanos() > 0);
+    assertEquals(2, Arrays.stream(stats.readHistogram()).sum());
+  }
+
+  @Test
+  public void recordsErrorsAsFailures() throws IOException {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Payload.class, new TypeAdapter<Payload>() {
+          @Override public void write(JsonWriter out, Payload value) {
+            throw new PayloadError();
+          }
+
+          @Override public Payload read(JsonReader in) {
+            throw new PayloadError();
+          }
+        })
+        .create();
+    TypeAdapter<Holder> adapter = gson.getAdapter(Holder.class);
+    InMemoryAdapterMetrics.Stats stats =
+        ((InMemoryAdapterMetrics) AdapterMetrics.get()).stats().get(Holder.class);
+
+    try {
+      adapter.toJson(Holder.create(new Payload()));
+      fail();
+    } catch (PayloadError expected) {
+    }
+    try {
+      adapter.fromJson("{\"payload\":{}}");
+      fail();
+    } catch (PayloadError expected) {
+    }
+
+    assertEquals(1, stats.writeFailures());
+    assertEquals(1, stats.readFailures());
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Item {
+    public abstract String name();
+
+    public abstract int count();
+
+    static Item create(String name, int count) {
+      return new AutoValue_MetricsTest_Item(name, count);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Holder {
+    public abstract Payload payload();
+
+    static Holder create(Payload payload) {
+      return new AutoValue_MetricsTest_Holder(payload);
+    }
+  }
+
+  static final class Payload {
+  }
+
+  static final class PayloadError extends Error {
+  }
+}
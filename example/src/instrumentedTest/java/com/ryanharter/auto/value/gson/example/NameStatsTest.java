@@ -0,0 +1,65 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.NameStats;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class NameStatsTest {
+
+  private final Gson gson =
+      new GsonBuilder().registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY).create();
+
+  @Test
+  public void countsAlternatesAndUnknownNames() throws IOException {
+    TypeAdapter<Book> adapter = gson.getAdapter(Book.class);
+    NameStats stats = NameStats.all().get(Book.class);
+
+    assertEquals(Book.create("a"), adapter.fromJson("{\"title\":\"a\",\"extra\":{\"x\":[1,2]}}"));
+    assertEquals(Book.create("b"), adapter.fromJson("{\"name\":\"b\",\"extra\":null}"));
+    assertEquals(Book.create("c"), adapter.fromJson("{\"label\":\"c\",\"other\":1}"));
+
+    Map<String, Long> alternates = new LinkedHashMap<>();
+    alternates.put("title", 1L);
+    alternates.put("label", 1L);
+    assertEquals(alternates, stats.alternates());
+    assertEquals(3, stats.unknown());
+    assertEquals(Long.valueOf(2), stats.unknownNames().get("extra"));
+    assertEquals(Long.valueOf(1), stats.unknownNames().get("other"));
+  }
+
+  @Test
+  public void keepsTheMostFrequentUnknownNames() {
+    NameStats stats = NameStats.forType(NameStatsTest.class);
+    for (int i = 0; i < 10; i++) {
+      stats.unknown("frequent");
+    }
+    for (int i = 0; i < NameStats.MAX_UNKNOWN_NAMES * 2; i++) {
+      stats.unknown("rare" + i);
+    }
+    assertEquals(NameStats.MAX_UNKNOWN_NAMES, stats.unknownNames().size());
+    assertEquals(Long.valueOf(10), stats.unknownNames().get("frequent"));
+    assertEquals(Collections.emptyMap(), stats.alternates());
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Book {
+    @SerializedName(value = "name", alternate = {"title", "label"})
+    public abstract String name();
+
+    static Book create(String name) {
+      return new AutoValue_NameStatsTest_Book(name);
+    }
+  }
+}
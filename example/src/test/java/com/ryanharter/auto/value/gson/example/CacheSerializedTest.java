@@ -0,0 +1,135 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonCacheSerialized;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class CacheSerializedTest {
+
+  @Test
+  public void writesCachedText() {
+    CountingAdapter counter = new CountingAdapter();
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Counted.class, counter)
+        .create();
+    Flag flag = Flag.create("beta", new Counted());
+    assertEquals("{\"name\":\"beta\",\"counted\":1}", gson.toJson(flag));
+    assertEquals("{\"name\":\"beta\",\"counted\":1}", gson.toJson(flag));
+    assertEquals("[{\"name\":\"beta\",\"counted\":1}]", gson.toJson(new Flag[] {flag}));
+    assertEquals(1, counter.writes);
+  }
+
+  @Test
+  public void cachesPerInstance() {
+    CountingAdapter counter = new CountingAdapter();
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Counted.class, counter)
+        .create();
+    Counted counted = new Counted();
+    assertEquals("{\"name\":\"beta\",\"counted\":1}", gson.toJson(Flag.create("beta", counted)));
+    assertEquals("{\"name\":\"beta\",\"counted\":2}", gson.toJson(Flag.create("beta", counted)));
+  }
+
+  @Test
+  public void cachesPerWriterSettings() throws IOException {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .create();
+    TypeAdapter<Flag> adapter = gson.getAdapter(Flag.class);
+    Flag flag = Flag.create("beta", null);
+    assertEquals("{\"name\":\"beta\"}", write(adapter, flag, false));
+    assertEquals("{\"name\":\"beta\",\"counted\":null}", write(adapter, flag, true));
+  }
+
+  @Test
+  public void keepsTextOfAlternatingSettings() throws IOException {
+    CountingAdapter counter = new CountingAdapter();
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Counted.class, counter)
+        .create();
+    TypeAdapter<Flag> adapter = gson.getAdapter(Flag.class);
+    Flag flag = Flag.create("beta", new Counted());
+    for (int i = 0; i < 2; i++) {
+      assertEquals("{\"name\":\"beta\",\"counted\":1}", write(adapter, flag, false));
+      assertEquals("{\"name\":\"beta\",\"counted\":2}", write(adapter, flag, true));
+    }
+    assertEquals(2, counter.writes);
+  }
+
+  @Test
+  public void writesIndentedWritersDirectly() throws IOException {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .setPrettyPrinting()
+        .create();
+    Flag flag = Flag.create("beta", null);
+    assertEquals("{\"name\":\"beta\"}", write(gson.getAdapter(Flag.class), flag, false));
+    assertEquals("{\n  \"name\": \"beta\"\n}", gson.toJson(flag));
+  }
+
+  @Test
+  public void writesTreesDirectly() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .create();
+    Flag flag = Flag.create("beta", null);
+    gson.toJson(flag);
+    JsonObject expected = new JsonObject();
+    expected.addProperty("name", "beta");
+    assertEquals(expected, gson.toJsonTree(flag));
+  }
+
+  private static String write(TypeAdapter<Flag> adapter, Flag flag, boolean serializeNulls)
+      throws IOException {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+    writer.setSerializeNulls(serializeNulls);
+    adapter.write(writer, flag);
+    return out.toString();
+  }
+
+  @GenerateTypeAdapter
+  @GsonCacheSerialized
+  @AutoValue
+  public static abstract class Flag {
+    abstract String name();
+
+    @Nullable abstract Counted counted();
+
+    static Flag create(String name, Counted counted) {
+      return new AutoValue_CacheSerializedTest_Flag(name, counted);
+    }
+  }
+
+  static final class Counted {
+  }
+
+  static final class CountingAdapter extends TypeAdapter<Counted> {
+    int writes;
+
+    @Override public void write(JsonWriter out, Counted value) throws IOException {
+      out.value(++writes);
+    }
+
+    @Override public Counted read(JsonReader in) throws IOException {
+      in.skipValue();
+      return new Counted();
+    }
+  }
+
+  @interface Nullable {}
+}
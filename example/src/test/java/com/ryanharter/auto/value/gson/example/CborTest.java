@@ -0,0 +1,171 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.ryanharter.auto.value.gson.CborReader;
+import com.ryanharter.auto.value.gson.CborWriter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class CborTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .registerTypeAdapterFactory(CborReader.FACTORY)
+      .create();
+
+  @Test
+  public void roundTrips() throws IOException {
+    Entry entry = Entry.create("key", -7, 2.5, Arrays.asList(1L, 1L << 40),
+        Collections.singletonMap("a", "b"), null);
+    byte[] bytes = write(entry);
+    assertEquals(entry, read(bytes));
+    assertTrue(bytes.length < gson.toJson(entry).length());
+  }
+
+  @Test
+  public void writesCbor() throws IOException {
+    Entry entry = Entry.create("k", 1, 0.5, Collections.<Long>emptyList(),
+        Collections.<String, String>emptyMap(), null);
+    byte[] expected = {
+        (byte) 0xbf,
+        0x61, 'k', 0x61, 'k',
+        0x65, 'c', 'o', 'u', 'n', 't', 0x01,
+        0x65, 'r', 'a', 't', 'i', 'o', (byte) 0xfa, 0x3f, 0x00, 0x00, 0x00,
+        0x64, 'l', 'o', 'n', 'g', 's', (byte) 0x9f, (byte) 0xff,
+        0x64, 't', 'a', 'g', 's', (byte) 0xbf, (byte) 0xff,
+        (byte) 0xff
+    };
+    assertArrayEquals(expected, write(entry));
+  }
+
+  @Test
+  public void readsDefiniteLengths() throws IOException {
+    // {"k": "x", "count": -2, "ratio": 1.5 as a half float, "longs": [3], "tags": {}, "note": null}
+    byte[] bytes = {
+        (byte) 0xa6,
+        0x61, 'k', 0x61, 'x',
+        0x65, 'c', 'o', 'u', 'n', 't', 0x21,
+        0x65, 'r', 'a', 't', 'i', 'o', (byte) 0xf9, 0x3e, 0x00,
+        0x64, 'l', 'o', 'n', 'g', 's', (byte) 0x81, 0x03,
+        0x64, 't', 'a', 'g', 's', (byte) 0xa0,
+        0x64, 'n', 'o', 't', 'e', (byte) 0xf6
+    };
+    assertEquals(Entry.create("x", -2, 1.5, Collections.singletonList(3L),
+        Collections.<String, String>emptyMap(), null), read(bytes));
+  }
+
+  @Test
+  public void rejectsRawJson() {
+    CborWriter writer = new CborWriter(new ByteArrayOutputStream());
+    try {
+      writer.jsonValue("{}");
+      fail();
+    } catch (IOException expected) {
+      assertEquals("Raw JSON can't be written as CBOR", expected.getMessage());
+    }
+  }
+
+  @Test
+  public void writesSixtyFourBitIntegers() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CborWriter writer = new CborWriter(out)) {
+      writer.beginArray();
+      writer.value(new BigInteger("18446744073709551615"));
+      writer.value(new BigInteger("-18446744073709551616"));
+      writer.endArray();
+    }
+    byte[] expected = {
+        (byte) 0x9f,
+        0x1b, -1, -1, -1, -1, -1, -1, -1, -1,
+        0x3b, -1, -1, -1, -1, -1, -1, -1, -1,
+        (byte) 0xff
+    };
+    assertArrayEquals(expected, out.toByteArray());
+
+    try (CborReader reader = new CborReader(new ByteArrayInputStream(expected))) {
+      reader.beginArray();
+      assertEquals("18446744073709551615", reader.nextString());
+      assertEquals("-18446744073709551616", reader.nextString());
+      reader.endArray();
+    }
+  }
+
+  @Test
+  public void staysOnNumbersOutOfRange() throws IOException {
+    // [3000000000, 1.5]
+    byte[] bytes = {
+        (byte) 0x82,
+        0x1a, (byte) 0xb2, (byte) 0xd0, 0x5e, 0x00,
+        (byte) 0xf9, 0x3e, 0x00
+    };
+    try (CborReader reader = new CborReader(new ByteArrayInputStream(bytes))) {
+      reader.beginArray();
+      try {
+        reader.nextInt();
+        fail();
+      } catch (NumberFormatException expected) {
+      }
+      assertEquals(3000000000L, reader.nextLong());
+      try {
+        reader.nextLong();
+        fail();
+      } catch (NumberFormatException expected) {
+      }
+      assertEquals(1.5, reader.nextDouble(), 0);
+      reader.endArray();
+    }
+  }
+
+  private byte[] write(Entry entry) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CborWriter writer = new CborWriter(out)) {
+      gson.toJson(entry, Entry.class, writer);
+    }
+    return out.toByteArray();
+  }
+
+  private Entry read(byte[] bytes) throws IOException {
+    try (CborReader reader = new CborReader(new ByteArrayInputStream(bytes))) {
+      return gson.fromJson(reader, Entry.class);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Entry {
+    @SerializedName("k") abstract String key();
+
+    abstract int count();
+
+    abstract double ratio();
+
+    abstract List<Long> longs();
+
+    abstract Map<String, String> tags();
+
+    @Nullable abstract String note();
+
+    static Entry create(String key, int count, double ratio, List<Long> longs,
+        Map<String, String> tags, String note) {
+      return new AutoValue_CborTest_Entry(key, count, ratio, longs, tags, note);
+    }
+  }
+
+  @interface Nullable {}
+}
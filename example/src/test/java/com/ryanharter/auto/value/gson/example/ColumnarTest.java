@@ -0,0 +1,74 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.ryanharter.auto.value.gson.ColumnarAdapter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonColumnar;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class ColumnarTest {
+
+  private static final Type ROWS = new TypeToken<List<Row>>() {}.getType();
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .registerTypeAdapterFactory(GsonColumnar.FACTORY)
+      .create();
+
+  @Test
+  public void writesHeaderAndRows() {
+    List<Row> rows = Arrays.asList(Row.create(1, "a"), Row.create(2, null));
+    String json = gson.toJson(rows, ROWS);
+    assertEquals("[[\"id\",\"name\"],[1,\"a\"],[2,null]]", json);
+    assertEquals(rows, gson.fromJson(json, ROWS));
+  }
+
+  @Test
+  public void readsColumnsInAnyOrder() {
+    List<Row> rows = gson.fromJson("[[\"name\",\"other\",\"id\"],[\"a\",true,1]]", ROWS);
+    assertEquals(Collections.singletonList(Row.create(1, "a")), rows);
+  }
+
+  @Test
+  public void readsEmptyList() {
+    assertEquals(Collections.emptyList(), gson.fromJson("[]", ROWS));
+    assertEquals(Collections.emptyList(), gson.fromJson("[[\"id\",\"name\"]]", ROWS));
+  }
+
+  @Test
+  public void elementsUseRegularForm() {
+    assertEquals("{\"id\":1,\"name\":\"a\"}", gson.toJson(Row.create(1, "a")));
+  }
+
+  @Test
+  public void reusesColumnarAdapter() {
+    @SuppressWarnings("unchecked")
+    ColumnarAdapter<Row> adapter = (ColumnarAdapter<Row>) gson.getAdapter(Row.class);
+    assertSame(adapter.columnar(), adapter.columnar());
+  }
+
+  @GenerateTypeAdapter
+  @GsonColumnar
+  @AutoValue
+  public static abstract class Row {
+    abstract int id();
+
+    @Nullable abstract String name();
+
+    static Row create(int id, String name) {
+      return new AutoValue_ColumnarTest_Row(id, name);
+    }
+  }
+
+  @interface Nullable {}
+}
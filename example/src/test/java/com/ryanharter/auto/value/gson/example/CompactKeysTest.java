@@ -0,0 +1,77 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.ryanharter.auto.value.gson.CompactKeysAdapter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonCompactKeys;
+import com.ryanharter.auto.value.gson.GsonShortName;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class CompactKeysTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void writesRegularNamesByDefault() {
+    Event event = Event.create("click", 3, "home");
+    assertEquals("{\"type\":\"click\",\"count\":3,\"page\":\"home\"}", gson.toJson(event));
+  }
+
+  @Test
+  public void writesShortKeysPerCall() {
+    @SuppressWarnings("unchecked")
+    TypeAdapter<Event> compact =
+        ((CompactKeysAdapter<Event>) gson.getAdapter(Event.class)).compact();
+    Event event = Event.create("click", 3, "home");
+    assertEquals("{\"0\":\"click\",\"1\":3,\"p\":\"home\"}", compact.toJson(event));
+  }
+
+  @Test
+  public void reusesCompactAdapter() {
+    @SuppressWarnings("unchecked")
+    CompactKeysAdapter<Event> adapter = (CompactKeysAdapter<Event>) gson.getAdapter(Event.class);
+    assertSame(adapter.compact(), adapter.compact());
+  }
+
+  @Test
+  public void writesShortKeysPerGson() {
+    Gson compactGson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapterFactory(GsonCompactKeys.FACTORY)
+        .create();
+    Event event = Event.create("click", 3, "home");
+    String json = compactGson.toJson(event);
+    assertEquals("{\"0\":\"click\",\"1\":3,\"p\":\"home\"}", json);
+    assertEquals(event, compactGson.fromJson(json, Event.class));
+  }
+
+  @Test
+  public void readsBothForms() {
+    Event event = Event.create("click", 3, "home");
+    assertEquals(event, gson.fromJson("{\"0\":\"click\",\"count\":3,\"p\":\"home\"}", Event.class));
+    assertEquals(event, gson.fromJson("{\"type\":\"click\",\"1\":3,\"page\":\"home\"}", Event.class));
+  }
+
+  @GenerateTypeAdapter
+  @GsonCompactKeys
+  @AutoValue
+  public static abstract class Event {
+    abstract String type();
+
+    abstract int count();
+
+    @GsonShortName("p") abstract String page();
+
+    static Event create(String type, int count, String page) {
+      return new AutoValue_CompactKeysTest_Event(type, count, page);
+    }
+  }
+}
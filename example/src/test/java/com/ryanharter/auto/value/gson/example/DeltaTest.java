@@ -0,0 +1,135 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.DeltaAdapter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonDelta;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public final class DeltaTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @SuppressWarnings("unchecked")
+  private final DeltaAdapter<Player> adapter =
+      (DeltaAdapter<Player>) gson.getAdapter(Player.class);
+
+  private final Player base = Player.create("ann", 10, Position.create(1, 2), "red");
+
+  @Test
+  public void writesChangedProperties() throws IOException {
+    Player current = Player.create("ann", 12, Position.create(1, 5), null);
+    String delta = writeDelta(base, current);
+    assertEquals("{\"score\":12,\"position\":{\"y\":5},\"team\":null}", delta);
+    assertEquals(current, readDelta(delta, base));
+  }
+
+  @Test
+  public void writesEmptyDeltaForEqualValues() throws IOException {
+    Player current = Player.create("ann", 10, Position.create(1, 2), "red");
+    assertEquals("{}", writeDelta(base, current));
+    assertEquals(base, readDelta("{}", base));
+  }
+
+  @Test
+  public void writesFullValueWithoutBase() throws IOException {
+    String delta = writeDelta(null, base);
+    assertEquals(gson.toJson(base), delta);
+    assertEquals(base, readDelta(delta, null));
+  }
+
+  @Test
+  public void writesChangedValuesWithoutNulls() throws IOException {
+    @SuppressWarnings("unchecked")
+    DeltaAdapter<Squad> squadAdapter = (DeltaAdapter<Squad>) gson.getAdapter(Squad.class);
+    Squad base = Squad.create("red", Captain.create("ann", "a"));
+    Squad current = Squad.create("red", Captain.create("bo", null));
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+    writer.setSerializeNulls(false);
+    squadAdapter.writeDelta(writer, base, current);
+    assertEquals("{\"captain\":{\"name\":\"bo\"}}", out.toString());
+    assertFalse(writer.getSerializeNulls());
+  }
+
+  private String writeDelta(Player base, Player current) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+    writer.setSerializeNulls(false);
+    adapter.writeDelta(writer, base, current);
+    return out.toString();
+  }
+
+  private Player readDelta(String json, Player base) throws IOException {
+    return adapter.readDelta(new JsonReader(new StringReader(json)), base);
+  }
+
+  @GenerateTypeAdapter
+  @GsonDelta
+  @AutoValue
+  public static abstract class Player {
+    abstract String name();
+
+    abstract int score();
+
+    abstract Position position();
+
+    @Nullable abstract String team();
+
+    static Player create(String name, int score, Position position, String team) {
+      return new AutoValue_DeltaTest_Player(name, score, position, team);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @GsonDelta
+  @AutoValue
+  public static abstract class Position {
+    abstract int x();
+
+    abstract int y();
+
+    static Position create(int x, int y) {
+      return new AutoValue_DeltaTest_Position(x, y);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @GsonDelta
+  @AutoValue
+  public static abstract class Squad {
+    abstract String name();
+
+    abstract Captain captain();
+
+    static Squad create(String name, Captain captain) {
+      return new AutoValue_DeltaTest_Squad(name, captain);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Captain {
+    abstract String name();
+
+    @Nullable abstract String nickname();
+
+    static Captain create(String name, String nickname) {
+      return new AutoValue_DeltaTest_Captain(name, nickname);
+    }
+  }
+
+  @interface Nullable {}
+}
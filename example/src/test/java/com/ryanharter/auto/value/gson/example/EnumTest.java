@@ -0,0 +1,119 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public final class EnumTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void writesSerializedNames() {
+    Order order = Order.create(Status.DONE, Status.NEW, Status.CANCELLED);
+    assertEquals("{\"status\":\"done\",\"previous\":\"new\",\"fallback\":\"CANCELLED\"}",
+        gson.toJson(order));
+  }
+
+  @Test
+  public void readsNamesAndAlternates() {
+    Order order = gson.fromJson(
+        "{\"status\":\"finished\",\"previous\":\"new\",\"fallback\":\"CANCELLED\"}", Order.class);
+    assertEquals(Order.create(Status.DONE, Status.NEW, Status.CANCELLED), order);
+  }
+
+  @Test
+  public void readsUnknownNamesAsNull() {
+    Order order = gson.fromJson(
+        "{\"status\":\"new\",\"previous\":\"unknown\",\"fallback\":\"CANCELLED\"}", Order.class);
+    assertNull(order.previous());
+  }
+
+  @Test
+  public void registeredAdapterWins() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Status.class, new OrdinalStatusAdapter())
+        .create();
+    Order order = Order.create(Status.DONE, null, Status.CANCELLED);
+    String json = gson.toJson(order);
+    assertEquals("{\"status\":1,\"fallback\":2}", json);
+    assertEquals(order, gson.fromJson(json, Order.class));
+  }
+
+  @Test
+  public void registeredFactoryWins() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapterFactory(new TypeAdapterFactory() {
+          @SuppressWarnings("unchecked")
+          @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return type.getRawType() == Status.class
+                ? (TypeAdapter<T>) new OrdinalStatusAdapter()
+                : null;
+          }
+        })
+        .create();
+    Order order = Order.create(Status.NEW, Status.DONE, Status.CANCELLED);
+    String json = gson.toJson(order);
+    assertEquals("{\"status\":0,\"previous\":1,\"fallback\":2}", json);
+    assertEquals(order, gson.fromJson(json, Order.class));
+  }
+
+  @Test
+  public void registeredAdapterReadsNoNull() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Status.class, new OrdinalStatusAdapter())
+        .create();
+    Order order = gson.fromJson("{\"status\":1,\"previous\":null,\"fallback\":2}",
+        Order.class);
+    assertNull(order.previous());
+  }
+
+  enum Status {
+    @SerializedName("new") NEW,
+    @SerializedName(value = "done", alternate = {"finished", "complete"}) DONE,
+    CANCELLED
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Order {
+    abstract Status status();
+
+    @Nullable abstract Status previous();
+
+    abstract Status fallback();
+
+    static Order create(Status status, Status previous, Status fallback) {
+      return new AutoValue_EnumTest_Order(status, previous, fallback);
+    }
+  }
+
+  @interface Nullable {}
+
+  static final class OrdinalStatusAdapter extends TypeAdapter<Status> {
+    @Override public void write(JsonWriter out, Status value) throws IOException {
+      out.value(value.ordinal());
+    }
+
+    @Override public Status read(JsonReader in) throws IOException {
+      return Status.values()[in.nextInt()];
+    }
+  }
+}
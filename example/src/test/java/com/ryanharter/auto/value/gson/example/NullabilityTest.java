@@ -0,0 +1,114 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonPropertyAdapter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public final class NullabilityTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void writesNullableValues() {
+    Gson serializeNulls = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .serializeNulls()
+        .create();
+    Ticket ticket = Ticket.create("abc", null, 2);
+    assertEquals("{\"id\":\"abc\",\"owner\":null,\"count\":2}", serializeNulls.toJson(ticket));
+    assertEquals("{\"id\":\"abc\",\"count\":2}", gson.toJson(ticket));
+    assertEquals("{\"id\":\"abc\",\"owner\":\"me\",\"count\":2}",
+        gson.toJson(Ticket.create("abc", "me", 2)));
+  }
+
+  @Test
+  public void readsNulls() {
+    Ticket ticket = gson.fromJson("{\"id\":\"abc\",\"owner\":null,\"count\":null}", Ticket.class);
+    assertEquals(Ticket.create("abc", null, 0), ticket);
+  }
+
+  @Test
+  public void readsNullsWithoutNullSafeAdapters() {
+    Gson strict = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .registerTypeAdapter(Label.class, new TypeAdapter<Label>() {
+          @Override public void write(JsonWriter out, Label value) throws IOException {
+            out.value(value.text);
+          }
+
+          @Override public Label read(JsonReader in) throws IOException {
+            return new Label(in.nextString());
+          }
+        })
+        .create();
+    assertNull(strict.fromJson("{\"label\":null}", Labelled.class).label());
+    assertEquals("new",
+        strict.fromJson("{\"label\":\"new\"}", Labelled.class).label().text);
+  }
+
+  @Test
+  public void readsNullsWithoutNullSafePropertyAdapters() {
+    assertNull(gson.fromJson("{\"label\":null}", PropertyLabelled.class).label());
+    assertEquals("new",
+        gson.fromJson("{\"label\":\"new\"}", PropertyLabelled.class).label().text);
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Ticket {
+    abstract String id();
+
+    @Nullable abstract String owner();
+
+    abstract int count();
+
+    static Ticket create(String id, String owner, int count) {
+      return new AutoValue_NullabilityTest_Ticket(id, owner, count);
+    }
+  }
+
+  static final class Label {
+    final String text;
+
+    Label(String text) {
+      this.text = text;
+    }
+  }
+
+  static final class LabelAdapter extends TypeAdapter<Label> {
+    @Override public void write(JsonWriter out, Label value) throws IOException {
+      out.value(value.text);
+    }
+
+    @Override public Label read(JsonReader in) throws IOException {
+      return new Label(in.nextString());
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Labelled {
+    @Nullable abstract Label label();
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class PropertyLabelled {
+    @GsonPropertyAdapter(value = LabelAdapter.class, nullSafe = false)
+    @Nullable abstract Label label();
+  }
+
+  @interface Nullable {}
+}
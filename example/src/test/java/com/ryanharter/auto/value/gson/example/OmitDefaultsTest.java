@@ -0,0 +1,125 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonOmitDefaults;
+import com.ryanharter.auto.value.gson.GsonOmitNulls;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class OmitDefaultsTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .serializeNulls()
+      .create();
+
+  @Test
+  public void omitsAndRestoresDefaults() {
+    Config config = Config.create(0, false, Collections.emptyMap(), null, "x");
+    String json = gson.toJson(config);
+    assertEquals("{\"label\":\"x\"}", json);
+    assertEquals(config, gson.fromJson(json, Config.class));
+  }
+
+  @Test
+  public void writesOtherValues() {
+    Config config = Config.create(3, true, Collections.singletonMap("a", "b"), "n", null);
+    String json = gson.toJson(config);
+    assertEquals("{\"retries\":3,\"enabled\":true,\"headers\":{\"a\":\"b\"},\"note\":\"n\","
+        + "\"label\":null}", json);
+    assertEquals(config, gson.fromJson(json, Config.class));
+  }
+
+  @Test
+  public void keepsDefaultsForNulls() {
+    Config config = Config.create(0, false, Collections.emptyMap(), null, "x");
+    assertEquals(config, gson.fromJson("{\"headers\":null,\"label\":\"x\"}", Config.class));
+  }
+
+  @Test
+  public void restoresDefaultsThroughBuilder() {
+    Settings settings = gson.fromJson("{}", Settings.class);
+    assertEquals(Settings.builder()
+        .size(0)
+        .tags(Collections.emptyList())
+        .build(), settings);
+    assertEquals("{}", gson.toJson(settings));
+  }
+
+  @Test
+  public void omitsOnlyNaturallyOrderedEmptySortedSets() {
+    Index natural = Index.create(new TreeSet<>());
+    assertEquals("{}", gson.toJson(natural));
+    assertEquals(natural, gson.fromJson("{}", Index.class));
+    Index reversed = Index.create(new TreeSet<>(Collections.reverseOrder()));
+    assertEquals("{\"names\":[]}", gson.toJson(reversed));
+  }
+
+  @GenerateTypeAdapter
+  @GsonOmitDefaults
+  @AutoValue
+  public static abstract class Config {
+    abstract int retries();
+
+    abstract boolean enabled();
+
+    abstract Map<String, String> headers();
+
+    @GsonOmitNulls @Nullable abstract String note();
+
+    // Defaults are omitted per class, but nulls aren't unless asked for.
+    @Nullable abstract String label();
+
+    static Config create(int retries, boolean enabled, Map<String, String> headers, String note,
+        String label) {
+      return new AutoValue_OmitDefaultsTest_Config(retries, enabled, headers, note, label);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Settings {
+    @GsonOmitDefaults abstract int size();
+
+    @GsonOmitDefaults abstract List<String> tags();
+
+    @GsonOmitDefaults abstract Optional<String> name();
+
+    static Builder builder() {
+      return new AutoValue_OmitDefaultsTest_Settings.Builder();
+    }
+
+    @AutoValue.Builder
+    abstract static class Builder {
+      abstract Builder size(int size);
+
+      abstract Builder tags(List<String> tags);
+
+      abstract Builder name(Optional<String> name);
+
+      abstract Settings build();
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Index {
+    @GsonOmitDefaults abstract SortedSet<String> names();
+
+    static Index create(SortedSet<String> names) {
+      return new AutoValue_OmitDefaultsTest_Index(names);
+    }
+  }
+
+  @interface Nullable {}
+}
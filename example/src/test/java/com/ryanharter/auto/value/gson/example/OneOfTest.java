@@ -0,0 +1,134 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoOneOf;
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonOneOf;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class OneOfTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void wrapperObject() {
+    Pet dog = AutoOneOf_OneOfTest_Pet.dog(Dog.create("Rex"));
+    assertEquals("{\"dog\":{\"name\":\"Rex\"}}", gson.toJson(dog, Pet.class));
+    assertEquals(dog, gson.fromJson("{\"dog\":{\"name\":\"Rex\"}}", Pet.class));
+    assertEquals(dog, gson.fromJson("{\"hound\":{\"name\":\"Rex\"}}", Pet.class));
+  }
+
+  @Test
+  public void wrapperObjectVoidKind() {
+    assertEquals("{\"none\":{}}", gson.toJson(AutoOneOf_OneOfTest_Pet.none(), Pet.class));
+    assertEquals(AutoOneOf_OneOfTest_Pet.none(), gson.fromJson("{\"none\":{}}", Pet.class));
+  }
+
+  @Test
+  public void runtimeTypeIsWrittenAsOneOf() {
+    assertEquals("{\"cat\":\"Tom\"}", gson.toJson(AutoOneOf_OneOfTest_Pet.cat("Tom")));
+  }
+
+  @Test
+  public void rejectsUnknownKind() {
+    try {
+      gson.fromJson("{\"fish\":\"Nemo\"}", Pet.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  @Test
+  public void discriminator() {
+    Shape circle = AutoOneOf_OneOfTest_Shape.circle(2.5);
+    assertEquals("{\"type\":\"circle\",\"value\":2.5}", gson.toJson(circle, Shape.class));
+    assertEquals(circle, gson.fromJson("{\"type\":\"circle\",\"value\":2.5}", Shape.class));
+  }
+
+  @Test
+  public void discriminatorAfterValue() {
+    Shape polygon = AutoOneOf_OneOfTest_Shape.polygon(Arrays.asList(1.0, 2.0, 3.0));
+    assertEquals(polygon,
+        gson.fromJson("{\"value\":[1,2,3],\"extra\":{},\"type\":\"polygon\"}", Shape.class));
+  }
+
+  @Test
+  public void discriminatorVoidKind() {
+    Shape empty = AutoOneOf_OneOfTest_Shape.empty();
+    assertEquals("{\"type\":\"empty\"}", gson.toJson(empty, Shape.class));
+    assertEquals(empty, gson.fromJson("{\"type\":\"empty\"}", Shape.class));
+  }
+
+  @Test
+  public void discriminatorRejectsNullValue() {
+    assertMissingValue("{\"type\":\"polygon\",\"value\":null}");
+    assertMissingValue("{\"value\":null,\"type\":\"polygon\"}");
+    assertMissingValue("{\"type\":\"polygon\"}");
+  }
+
+  private void assertMissingValue(String json) {
+    try {
+      gson.fromJson(json, Shape.class);
+      fail();
+    } catch (JsonParseException expected) {
+      assertTrue(expected.getMessage(),
+          expected.getMessage().startsWith("Missing value of kind \"polygon\" of Shape at "));
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoOneOf(Pet.Kind.class)
+  public static abstract class Pet {
+    public enum Kind {
+      DOG, CAT, NONE
+    }
+
+    public abstract Kind getKind();
+
+    @SerializedName(value = "dog", alternate = "hound")
+    public abstract Dog dog();
+
+    public abstract String cat();
+
+    public abstract void none();
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Dog {
+    public abstract String name();
+
+    static Dog create(String name) {
+      return new AutoValue_OneOfTest_Dog(name);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @GsonOneOf(style = GsonOneOf.Style.DISCRIMINATOR)
+  @AutoOneOf(Shape.Kind.class)
+  public static abstract class Shape {
+    public enum Kind {
+      CIRCLE, POLYGON, EMPTY
+    }
+
+    public abstract Kind getKind();
+
+    public abstract double circle();
+
+    public abstract List<Double> polygon();
+
+    public abstract void empty();
+  }
+}
@@ -0,0 +1,101 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.LongSerializationPolicy;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public final class PrimitiveAdaptersTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void roundTrips() {
+    Series series = Series.create(new int[] {1, 2, 3}, new long[] {Long.MAX_VALUE},
+        new double[] {0.5, 1}, Arrays.asList(4, 5), Arrays.asList(6L, 7L),
+        Arrays.asList(8.5, 9.0));
+    String json = gson.toJson(series);
+    assertEquals("{\"ints\":[1,2,3],\"longs\":[9223372036854775807],\"doubles\":[0.5,1.0],"
+        + "\"intList\":[4,5],\"longList\":[6,7],\"doubleList\":[8.5,9.0]}", json);
+    Series read = gson.fromJson(json, Series.class);
+    assertArrayEquals(series.ints(), read.ints());
+    assertArrayEquals(series.longs(), read.longs());
+    assertArrayEquals(series.doubles(), read.doubles(), 0);
+    assertEquals(series.intList(), read.intList());
+    assertEquals(series.longList(), read.longList());
+    assertEquals(series.doubleList(), read.doubleList());
+  }
+
+  @Test
+  public void readsLargeArrays() {
+    StringBuilder json = new StringBuilder("{\"ints\":[],\"longs\":[],\"doubles\":[");
+    double[] expected = new double[10_000];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = i / 4d;
+      json.append(i == 0 ? "" : ",").append(expected[i]);
+    }
+    json.append("],\"intList\":[],\"longList\":[],\"doubleList\":[]}");
+    Series read = gson.fromJson(json.toString(), Series.class);
+    assertArrayEquals(expected, read.doubles(), 0);
+  }
+
+  @Test
+  public void readsNullListElements() {
+    Series read = gson.fromJson("{\"ints\":[],\"longs\":[],\"doubles\":[],"
+        + "\"intList\":[1,null],\"longList\":[null],\"doubleList\":[]}", Series.class);
+    assertEquals(Arrays.asList(1, null), read.intList());
+    assertEquals(Arrays.asList((Long) null), read.longList());
+  }
+
+  @Test
+  public void honorsLongSerializationPolicy() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+        .setLongSerializationPolicy(LongSerializationPolicy.STRING)
+        .create();
+    Series series = Series.create(new int[0], new long[] {1}, new double[0], Arrays.asList(),
+        Arrays.asList(2L), Arrays.asList());
+    assertEquals("{\"ints\":[],\"longs\":[\"1\"],\"doubles\":[],"
+        + "\"intList\":[],\"longList\":[\"2\"],\"doubleList\":[]}", gson.toJson(series));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNaNByDefault() {
+    gson.toJson(Series.create(new int[0], new long[0], new double[] {Double.NaN},
+        Arrays.asList(), Arrays.asList(), Arrays.asList()));
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Series {
+    @SuppressWarnings("mutable")
+    abstract int[] ints();
+
+    @SuppressWarnings("mutable")
+    abstract long[] longs();
+
+    @SuppressWarnings("mutable")
+    abstract double[] doubles();
+
+    abstract List<Integer> intList();
+
+    abstract List<Long> longList();
+
+    abstract List<Double> doubleList();
+
+    static Series create(int[] ints, long[] longs, double[] doubles, List<Integer> intList,
+        List<Long> longList, List<Double> doubleList) {
+      return new AutoValue_PrimitiveAdaptersTest_Series(ints, longs, doubles, intList, longList,
+          doubleList);
+    }
+  }
+}
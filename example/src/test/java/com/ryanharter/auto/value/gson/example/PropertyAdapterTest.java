@@ -0,0 +1,92 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonPropertyAdapter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public final class PropertyAdapterTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  @Test
+  public void usesPropertyAdapters() {
+    Calendar calendar = Calendar.getInstance();
+    calendar.clear();
+    calendar.set(1990, Calendar.MARCH, 4);
+    Entry entry = Entry.create("Ann", calendar.getTime(), asList("b", "a"));
+    String json = gson.toJson(entry);
+    assertEquals("{\"name\":\"ANN\",\"birthdate\":\"1990-03-04\",\"tags\":[\"a\",\"b\"]}", json);
+    assertEquals(Entry.create("ANN", calendar.getTime(), asList("a", "b")),
+        gson.fromJson(json, Entry.class));
+  }
+
+  @Test
+  public void nullSafeByDefault() {
+    Entry entry = Entry.create("Ann", null, asList("a"));
+    String json = gson.toJson(entry);
+    assertEquals("{\"name\":\"ANN\",\"tags\":[\"a\"]}", json);
+    assertEquals(Entry.create("ANN", null, asList("a")), gson.fromJson(json, Entry.class));
+  }
+
+  static final class UpperCaseAdapter extends TypeAdapter<String> {
+    @Override public void write(JsonWriter out, String value) throws IOException {
+      out.value(value.toUpperCase());
+    }
+
+    @Override public String read(JsonReader in) throws IOException {
+      return in.nextString();
+    }
+  }
+
+  static final class SortedFactory implements TypeAdapterFactory {
+    @SuppressWarnings("unchecked")
+    @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      TypeAdapter<List<String>> delegate = (TypeAdapter<List<String>>) gson.getAdapter(type);
+      return (TypeAdapter<T>) new TypeAdapter<List<String>>() {
+        @Override public void write(JsonWriter out, List<String> value) throws IOException {
+          String[] sorted = value.toArray(new String[0]);
+          Arrays.sort(sorted);
+          delegate.write(out, asList(sorted));
+        }
+
+        @Override public List<String> read(JsonReader in) throws IOException {
+          return delegate.read(in);
+        }
+      };
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Entry {
+    @GsonPropertyAdapter(UpperCaseAdapter.class) abstract String name();
+
+    @GsonPropertyAdapter(BirthdateAdapter.class) @Nullable abstract Date birthdate();
+
+    @GsonPropertyAdapter(SortedFactory.class) abstract List<String> tags();
+
+    static Entry create(String name, Date birthdate, List<String> tags) {
+      return new AutoValue_PropertyAdapterTest_Entry(name, birthdate, tags);
+    }
+  }
+
+  @interface Nullable {}
+}
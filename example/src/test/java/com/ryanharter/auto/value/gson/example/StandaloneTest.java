@@ -0,0 +1,79 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonStandalone;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class StandaloneTest {
+
+  @Test
+  public void usableWithoutGson() throws IOException {
+    TypeAdapter<Line> adapter = StandaloneTest_Line_GsonTypeAdapter.INSTANCE;
+    Line line = Line.create(Point.create(1, 2), Point.create(3, 4), Style.DASHED, "edge");
+    String json = "{\"from\":{\"x\":1,\"y\":2},\"to\":{\"x\":3,\"y\":4},\"style\":\"dashed\","
+        + "\"label\":\"edge\"}";
+    assertEquals(json, adapter.toJson(line));
+    assertEquals(line, adapter.fromJson(json));
+  }
+
+  @Test
+  public void sharedByEveryGson() {
+    Gson first = new GsonBuilder().registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY).create();
+    Gson second = new GsonBuilder().registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY).create();
+    assertSame(StandaloneTest_Point_GsonTypeAdapter.INSTANCE, first.getAdapter(Point.class));
+    assertSame(first.getAdapter(Line.class), second.getAdapter(Line.class));
+  }
+
+  @Test
+  public void readsNulls() throws IOException {
+    Line line = Line.create(Point.create(0, 0), Point.create(1, 1), Style.SOLID, null);
+    assertEquals(line, StandaloneTest_Line_GsonTypeAdapter.INSTANCE.fromJson(
+        "{\"from\":{\"x\":0,\"y\":0},\"to\":{\"x\":1,\"y\":1},\"style\":\"SOLID\",\"label\":null}"));
+  }
+
+  public enum Style {
+    SOLID,
+    @SerializedName("dashed") DASHED
+  }
+
+  @GsonStandalone
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Point {
+    public abstract int x();
+
+    public abstract int y();
+
+    static Point create(int x, int y) {
+      return new AutoValue_StandaloneTest_Point(x, y);
+    }
+  }
+
+  @GsonStandalone
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Line {
+    public abstract Point from();
+
+    public abstract Point to();
+
+    public abstract Style style();
+
+    @Nullable public abstract String label();
+
+    static Line create(Point from, Point to, Style style, @Nullable String label) {
+      return new AutoValue_StandaloneTest_Line(from, to, style, label);
+    }
+  }
+
+  @interface Nullable {}
+}
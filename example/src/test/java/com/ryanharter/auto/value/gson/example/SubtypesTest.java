@@ -0,0 +1,132 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonSubtypes;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public final class SubtypesTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .registerTypeAdapterFactory(GsonSubtypes.FACTORY)
+      .create();
+
+  private final Type eventList = new TypeToken<List<Event>>() {}.getType();
+
+  @Test
+  public void writesDiscriminatorFirst() {
+    List<Event> events = Arrays.asList(Click.create(1, 2), Scroll.create(singletonMap("y", 3.0)));
+    String json = gson.toJson(events, eventList);
+    assertEquals("[{\"kind\":\"click\",\"x\":1,\"y\":2},{\"kind\":\"scroll\",\"to\":{\"y\":3.0}}]",
+        json);
+    assertEquals(events, gson.fromJson(json, eventList));
+  }
+
+  @Test
+  public void writesDiscriminatorOfSubtype() {
+    assertEquals("{\"kind\":\"click\",\"x\":1,\"y\":2}", gson.toJson(Click.create(1, 2)));
+    assertEquals(Click.create(1, 2), gson.fromJson("{\"kind\":\"click\",\"x\":1,\"y\":2}",
+        Click.class));
+  }
+
+  @Test
+  public void readsDiscriminatorAnywhere() {
+    Event event = gson.fromJson("{\"to\":{\"y\":3.50},\"extra\":[null,true],\"kind\":\"scroll\"}",
+        Event.class);
+    assertEquals(Scroll.create(singletonMap("y", 3.5)), event);
+  }
+
+  @Test
+  public void rejectsUnknownDiscriminator() {
+    try {
+      gson.fromJson("{\"kind\":\"drag\"}", Event.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  @Test
+  public void writesPropertiesOfOtherAdapters() {
+    Gson custom = new GsonBuilder()
+        .registerTypeAdapter(Click.class, new TypeAdapter<Click>() {
+          @Override public void write(JsonWriter out, Click value) throws IOException {
+            out.beginObject();
+            out.name("kind").value("ignored");
+            out.name("at").beginArray().value(value.x()).value(value.y()).endArray();
+            out.endObject();
+          }
+
+          @Override public Click read(JsonReader in) throws IOException {
+            throw new UnsupportedOperationException();
+          }
+        })
+        .registerTypeAdapterFactory(GsonSubtypes.FACTORY)
+        .create();
+    assertEquals("{\"kind\":\"click\",\"at\":[1,2]}",
+        custom.toJson(Click.create(1, 2), Event.class));
+  }
+
+  @Test
+  public void rejectsInterfaceSubtypes() {
+    try {
+      gson.getAdapter(Shape.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals(Polygon.class.getName() + " is an interface, but the subtypes of "
+          + Shape.class.getName() + " must be classes", expected.getMessage());
+    }
+  }
+
+  @GsonSubtypes(property = "kind", value = {
+      @GsonSubtypes.Type(value = Click.class, name = "click"),
+      @GsonSubtypes.Type(value = Scroll.class, name = "scroll"),
+  })
+  public static abstract class Event {
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Click extends Event {
+    abstract int x();
+
+    abstract int y();
+
+    static Click create(int x, int y) {
+      return new AutoValue_SubtypesTest_Click(x, y);
+    }
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Scroll extends Event {
+    abstract Map<String, Double> to();
+
+    static Scroll create(Map<String, Double> to) {
+      return new AutoValue_SubtypesTest_Scroll(to);
+    }
+  }
+
+  @GsonSubtypes(@GsonSubtypes.Type(value = Polygon.class, name = "polygon"))
+  public interface Shape {
+  }
+
+  public interface Polygon extends Shape {
+  }
+}
@@ -0,0 +1,60 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonSince;
+import com.ryanharter.auto.value.gson.GsonUntil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class VersionTest {
+
+  private final Account account = Account.create("ann", "a", "ann@example.com");
+
+  @Test
+  public void includesEverythingWithoutVersion() {
+    Gson gson = gson(new GsonBuilder());
+    String json = gson.toJson(account);
+    assertEquals("{\"name\":\"ann\",\"login\":\"a\",\"email\":\"ann@example.com\"}", json);
+    assertEquals(account, gson.fromJson(json, Account.class));
+  }
+
+  @Test
+  public void writesPropertiesOfVersion() {
+    assertEquals("{\"name\":\"ann\",\"login\":\"a\"}",
+        gson(new GsonBuilder().setVersion(1.5)).toJson(account));
+    assertEquals("{\"name\":\"ann\",\"email\":\"ann@example.com\"}",
+        gson(new GsonBuilder().setVersion(2.0)).toJson(account));
+  }
+
+  @Test
+  public void skipsExcludedPropertiesOnRead() {
+    Gson gson = gson(new GsonBuilder().setVersion(2.0));
+    Account read = gson.fromJson(
+        "{\"name\":\"ann\",\"login\":\"a\",\"email\":\"ann@example.com\"}", Account.class);
+    assertEquals(Account.create("ann", null, "ann@example.com"), read);
+  }
+
+  private static Gson gson(GsonBuilder builder) {
+    return builder.registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY).create();
+  }
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class Account {
+    abstract String name();
+
+    @GsonUntil(2.0) @Nullable abstract String login();
+
+    @GsonSince(2.0) @Nullable abstract String email();
+
+    static Account create(String name, String login, String email) {
+      return new AutoValue_VersionTest_Account(name, login, email);
+    }
+  }
+
+  @interface Nullable {}
+}
@@ -0,0 +1,83 @@
+package com.ryanharter.auto.value.gson.example;
+
+import com.google.auto.value.AutoValue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.ryanharter.auto.value.gson.GenerateTypeAdapter;
+import com.ryanharter.auto.value.gson.GsonView;
+import com.ryanharter.auto.value.gson.ViewAdapter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class ViewTest {
+
+  private final Gson gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GenerateTypeAdapter.FACTORY)
+      .create();
+
+  private final User user = User.create("ann", "a.png", "ann@example.com");
+
+  @Test
+  public void regularAdapterWritesEverything() {
+    assertEquals("{\"name\":\"ann\",\"avatar\":\"a.png\",\"email\":\"ann@example.com\"}",
+        gson.toJson(user));
+  }
+
+  @Test
+  public void writesPropertiesOfView() {
+    TypeAdapter<User> adapter = ViewAdapter.view(gson, User.class, Public.class);
+    assertEquals("{\"name\":\"ann\",\"avatar\":\"a.png\"}", adapter.toJson(user));
+  }
+
+  @Test
+  public void subviewIncludesParentViews() {
+    TypeAdapter<User> adapter = ViewAdapter.view(gson, User.class, Internal.class);
+    String json = adapter.toJson(user);
+    assertEquals("{\"name\":\"ann\",\"avatar\":\"a.png\",\"email\":\"ann@example.com\"}", json);
+    assertEquals(user, gson.fromJson(json, User.class));
+  }
+
+  @Test
+  public void viewExtendingViewsUsesMostSpecific() {
+    TypeAdapter<User> adapter = ViewAdapter.view(gson, User.class, Admin.class);
+    assertEquals("{\"name\":\"ann\",\"avatar\":\"a.png\",\"email\":\"ann@example.com\"}",
+        adapter.toJson(user));
+  }
+
+  @Test
+  public void unrelatedViewWritesPropertiesWithoutViews() {
+    TypeAdapter<User> adapter = ViewAdapter.view(gson, User.class, String.class);
+    assertEquals("{\"name\":\"ann\"}", adapter.toJson(user));
+  }
+
+  @Test
+  public void cachesAdapterOfView() {
+    assertSame(ViewAdapter.view(gson, User.class, Public.class),
+        ViewAdapter.view(gson, User.class, Public.class));
+  }
+
+  interface Public {}
+
+  interface Internal extends Public {}
+
+  interface Admin extends Internal {}
+
+  @GenerateTypeAdapter
+  @AutoValue
+  public static abstract class User {
+    abstract String name();
+
+    @GsonView(Public.class) abstract String avatar();
+
+    @GsonView(Internal.class) @Nullable abstract String email();
+
+    static User create(String name, String avatar, String email) {
+      return new AutoValue_ViewTest_User(name, avatar, email);
+    }
+  }
+
+  @interface Nullable {}
+}